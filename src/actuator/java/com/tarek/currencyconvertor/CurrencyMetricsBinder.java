@@ -0,0 +1,144 @@
+package com.tarek.currencyconvertor;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.tarek.currencyconvertor.CurrencyMetrics.ConversionPath;
+import com.tarek.currencyconvertor.CurrencyMetrics.FetchOutcome;
+import com.tarek.currencyconvertor.CurrencyMetrics.RejectionReason;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exposes the {@link CurrencyMetrics} through Micrometer, and thus through
+ * the actuator metrics endpoint. The meters only read the counters of the
+ * service when they are polled, so that recording stays as cheap as without
+ * Micrometer.
+ */
+@Component
+public class CurrencyMetricsBinder implements MeterBinder {
+
+    private static final double[] PERCENTILES = { 50, 99, 99.9 };
+
+    private final CurrencyMetrics metrics;
+    private final RatesSnapshotStore ratesSnapshotStore;
+    private final AdmissionControl admissionControl;
+
+    CurrencyMetricsBinder(CurrencyMetrics metrics,
+            RatesSnapshotStore ratesSnapshotStore,
+            AdmissionControl admissionControl) {
+        this.metrics = metrics;
+        this.ratesSnapshotStore = ratesSnapshotStore;
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (var path : ConversionPath.values()) {
+            bindHistogram(registry, "currencyconvertor.conversion", "path",
+                    key(path), metrics.getConversions(path));
+        }
+        for (var outcome : FetchOutcome.values()) {
+            bindHistogram(registry, "currencyconvertor.upstream.fetch",
+                    "outcome", key(outcome),
+                    metrics.getUpstreamFetches(outcome));
+        }
+        for (var reason : RejectionReason.values()) {
+            FunctionCounter
+                    .builder("currencyconvertor.rejections", metrics,
+                            m -> m.getRejections(reason))
+                    .tag("reason", key(reason))
+                    .description("Conversions rejected by validation")
+                    .register(registry);
+        }
+        Gauge.builder("currencyconvertor.rates.snapshot.age",
+                ratesSnapshotStore, store -> {
+                    var age = store.getSnapshotAge();
+                    return age == null ? Double.NaN : age.toMillis() / 1000d;
+                }).baseUnit("seconds")
+                .description("Age of the current rates snapshot")
+                .register(registry);
+        FunctionCounter
+                .builder("currencyconvertor.rates.coalesced.callers",
+                        ratesSnapshotStore,
+                        RatesSnapshotStore::getCoalescedCallers)
+                .description(
+                        "Callers that shared a retrieval started by another")
+                .register(registry);
+        FunctionCounter
+                .builder("currencyconvertor.rates.updates", metrics,
+                        CurrencyMetrics::getRatesUpdates)
+                .description("Latest rates swapped in as the rates snapshot")
+                .register(registry);
+        FunctionCounter
+                .builder("currencyconvertor.rates.updates.unchanged", metrics,
+                        CurrencyMetrics::getUnchangedRatesUpdates)
+                .description(
+                        "Latest rates identical to the previous ones, for which nothing was rebuilt")
+                .register(registry);
+        FunctionCounter
+                .builder("currencyconvertor.rates.changed.currencies", metrics,
+                        CurrencyMetrics::getChangedCurrencies)
+                .description(
+                        "Currencies whose rate was added, removed or changed by the latest rates")
+                .register(registry);
+        var circuitBreaker = ratesSnapshotStore.getCircuitBreaker();
+        Gauge.builder("currencyconvertor.upstream.circuit.open",
+                circuitBreaker, breaker -> breaker.isOpen() ? 1 : 0)
+                .description(
+                        "Whether retrievals from the remote API are suspended")
+                .register(registry);
+        FunctionCounter
+                .builder("currencyconvertor.upstream.circuit.stale.serves",
+                        circuitBreaker, CircuitBreaker::getStaleServes)
+                .description(
+                        "Stale snapshots served while the circuit was open")
+                .register(registry);
+        Gauge.builder("currencyconvertor.admission.in.flight",
+                admissionControl, AdmissionControl::getInFlight)
+                .description("Admitted conversion requests in progress")
+                .register(registry);
+        FunctionCounter
+                .builder("currencyconvertor.admission.rejections",
+                        admissionControl, AdmissionControl::getRateRejections)
+                .tag("limit", "client-rate")
+                .description("Conversion requests rejected with 429")
+                .register(registry);
+        FunctionCounter
+                .builder("currencyconvertor.admission.rejections",
+                        admissionControl,
+                        AdmissionControl::getConcurrencyRejections)
+                .tag("limit", "concurrency")
+                .description("Conversion requests rejected with 429")
+                .register(registry);
+    }
+
+    private static void bindHistogram(MeterRegistry registry, String name,
+            String tag, String value, LatencyHistogram histogram) {
+        FunctionTimer
+                .builder(name, histogram, LatencyHistogram::getCount,
+                        LatencyHistogram::getTotalNanos, TimeUnit.NANOSECONDS)
+                .tag(tag, value).register(registry);
+        Gauge.builder(name + ".max", histogram,
+                h -> h.getMaxNanos() / 1e9).tag(tag, value)
+                .baseUnit("seconds").register(registry);
+        for (var percentile : PERCENTILES) {
+            Gauge.builder(name + ".percentile", histogram,
+                    h -> h.getValueAtPercentile(percentile) / 1e9)
+                    .tag(tag, value)
+                    .tag("percentile", Double.toString(percentile))
+                    .baseUnit("seconds").register(registry);
+        }
+    }
+
+    private static String key(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+}
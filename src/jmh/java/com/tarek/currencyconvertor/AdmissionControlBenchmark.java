@@ -0,0 +1,82 @@
+package com.tarek.currencyconvertor;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the overhead of the {@link AdmissionControl} on an admitted
+ * request, that is one call to {@link AdmissionControl#admit(String)} and one
+ * to {@link AdmissionControl#release()}, from four threads sending the
+ * requests of either a single client, whose bucket they all contend on, or of
+ * many clients. The limits are high enough for every request to be admitted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AdmissionControlBenchmark {
+
+    @Param({ "1", "10000" })
+    private int clients;
+
+    private AdmissionControl admissionControl;
+    private AdmissionControl disabledAdmissionControl;
+    private String[] clientKeys;
+
+    @State(Scope.Thread)
+    public static class ClientCursor {
+
+        private int next;
+
+    }
+
+    @Setup
+    public void setUp() {
+        admissionControl = new AdmissionControl(1_000_000, 1e9, 1_000_000_000,
+                Clock.systemUTC());
+        disabledAdmissionControl = new AdmissionControl(0, 0, 0,
+                Clock.systemUTC());
+        clientKeys = new String[clients];
+        for (var i = 0; i < clients; i++) {
+            clientKeys[i] = "client-" + i;
+        }
+    }
+
+    @Benchmark
+    public long admitAndRelease(ClientCursor cursor) {
+        var wait = admissionControl.admit(nextClient(cursor));
+        admissionControl.release();
+        return wait;
+    }
+
+    @Benchmark
+    public long disabled(ClientCursor cursor) {
+        var wait = disabledAdmissionControl.admit(nextClient(cursor));
+        disabledAdmissionControl.release();
+        return wait;
+    }
+
+    private String nextClient(ClientCursor cursor) {
+        var client = clientKeys[cursor.next];
+        cursor.next = cursor.next + 1 == clientKeys.length ? 0
+                : cursor.next + 1;
+        return client;
+    }
+
+}
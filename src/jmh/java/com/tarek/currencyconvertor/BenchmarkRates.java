@@ -0,0 +1,77 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * The stubbed rates source shared by the benchmarks: a fixed set of rates of
+ * realistic size and precision, served without any network call.
+ */
+final class BenchmarkRates {
+
+    private static final String[] SYMBOLS = { "EUR", "USD", "GBP", "JPY",
+            "CHF", "AUD", "CAD", "CNY", "SEK", "NOK", "DKK", "PLN", "CZK",
+            "HUF", "RON", "BGN", "TRY", "INR", "BRL", "MXN", "ZAR", "KRW",
+            "SGD", "HKD", "NZD", "THB", "IDR", "MYR", "PHP", "ILS" };
+
+    private BenchmarkRates() {
+    }
+
+    static LatestRates createLatestRates() {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put(SYMBOLS[0], BigDecimal.ONE);
+        rates.put(SYMBOLS[1], new BigDecimal("1.158074"));
+        rates.put(SYMBOLS[2], new BigDecimal("0.843486"));
+        for (var i = 3; i < SYMBOLS.length; i++) {
+            // rates of varying magnitude, with six decimals as served by the
+            // remote API
+            rates.put(SYMBOLS[i], BigDecimal.valueOf(i * 7919L % 100000 + 1,
+                    6 - i % 4));
+        }
+        return new LatestRates(true, Instant.now().getEpochSecond(), "EUR",
+                LocalDate.now(ZoneOffset.UTC), rates);
+    }
+
+    static RatesSnapshotStore createRatesSnapshotStore() {
+        var latestRates = createLatestRates();
+        var ratesProvider = new RatesProvider() {
+
+            @Override
+            public String getName() {
+                return "benchmark";
+            }
+
+            @Override
+            public LatestRates fetchLatestRates() {
+                return latestRates;
+            }
+        };
+        var store = new RatesSnapshotStore(ratesProvider,
+                new RatesSnapshotFile((Path) null), event -> {
+                }, new CurrencyMetrics(), new CircuitBreaker(0),
+                Duration.ofDays(365), Clock.systemUTC());
+        store.getSnapshot();
+        return store;
+    }
+
+    static CurrencyService createCurrencyService() {
+        return createCurrencyService(new BigDecimalConversionEngine());
+    }
+
+    static CurrencyService createCurrencyService(
+            ConversionEngine conversionEngine) {
+        return new CurrencyService(createRatesSnapshotStore(),
+                new HistoricalRatesStore((Path) null, 1), new CurrencyMetrics(),
+                conversionEngine, 100000, 10000);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tarek.currencyconvertor.model.ConversionResult;
+import com.tarek.currencyconvertor.model.CurrencyCode;
+
+/**
+ * Benchmarks {@link CurrencyService#convert} against a loaded rates snapshot,
+ * for each of the ways a rate relates to the base currency and each
+ * conversion engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    private static final CurrencyCode EUR = CurrencyCode.of("EUR");
+    private static final CurrencyCode USD = CurrencyCode.of("USD");
+    private static final CurrencyCode GBP = CurrencyCode.of("GBP");
+
+    @Param({ "bigdecimal", "fixed-point" })
+    private String engine;
+
+    private CurrencyService currencyService;
+    private BigDecimal amount;
+
+    @Setup
+    public void setUp() {
+        currencyService = BenchmarkRates.createCurrencyService(
+                "fixed-point".equals(engine) ? new FixedPointConversionEngine()
+                        : new BigDecimalConversionEngine());
+        amount = new BigDecimal("1234.56");
+    }
+
+    @Benchmark
+    public ConversionResult baseToTarget() {
+        return currencyService.convert(EUR, USD, amount);
+    }
+
+    @Benchmark
+    public ConversionResult sourceToBase() {
+        return currencyService.convert(USD, EUR, amount);
+    }
+
+    @Benchmark
+    public ConversionResult cross() {
+        return currencyService.convert(USD, GBP, amount);
+    }
+
+}
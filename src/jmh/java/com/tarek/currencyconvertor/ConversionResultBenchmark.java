@@ -0,0 +1,73 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tarek.currencyconvertor.model.ConversionResult;
+
+/**
+ * Benchmarks the construction of a {@link ConversionResult} and its
+ * serialization to JSON, as done for every response of the converter, by
+ * Jackson and by the {@link ConversionResultJsonWriter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionResultBenchmark {
+
+    private ObjectWriter writer;
+    private BigDecimal amount;
+    private BigDecimal rate;
+    private BigDecimal result;
+    private ConversionResult conversionResult;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().writerFor(ConversionResult.class);
+        amount = new BigDecimal("1234.56");
+        rate = new BigDecimal("1.372966739820172428017578925016716");
+        result = amount.multiply(rate, AppConstants.MATH_CONTEXT);
+        conversionResult = construct();
+    }
+
+    @Benchmark
+    public ConversionResult construct() {
+        var conversionResult = new ConversionResult();
+        conversionResult.setSuccess(true);
+        conversionResult.setFrom("USD");
+        conversionResult.setTo("GBP");
+        conversionResult.setAmount(amount);
+        conversionResult.setRate(rate);
+        conversionResult.setResult(result);
+        conversionResult.setTimestamp(1633046400L);
+        return conversionResult;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(conversionResult);
+    }
+
+    @Benchmark
+    public byte[] serializePreEncoded() {
+        return ConversionResultJsonWriter.toBytes(conversionResult);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.MultiConversionResult;
+
+/**
+ * Benchmarks the conversion of an amount into all of the currencies of a
+ * loaded rates snapshot, in one call to
+ * {@link CurrencyService#convertToMany} and in one call to
+ * {@link CurrencyService#convert} per currency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiConversionBenchmark {
+
+    private static final CurrencyCode USD = CurrencyCode.of("USD");
+
+    private CurrencyService currencyService;
+    private List<CurrencyCode> targets;
+    private BigDecimal amount;
+
+    @Setup
+    public void setUp() {
+        currencyService = BenchmarkRates.createCurrencyService();
+        var crossRates = BenchmarkRates.createRatesSnapshotStore()
+                .getSnapshot().getCrossRates();
+        targets = new ArrayList<>(crossRates.size());
+        for (var i = 0; i < crossRates.size(); i++) {
+            targets.add(crossRates.getCode(i));
+        }
+        amount = new BigDecimal("1234.56");
+    }
+
+    @Benchmark
+    public MultiConversionResult multi() {
+        return currencyService.convertToMany(USD, targets, amount);
+    }
+
+    @Benchmark
+    public void singleCalls(Blackhole blackhole) {
+        for (var to : targets) {
+            blackhole.consume(currencyService.convert(USD, to, amount));
+        }
+    }
+
+}
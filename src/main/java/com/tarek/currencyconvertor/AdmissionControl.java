@@ -0,0 +1,191 @@
+package com.tarek.currencyconvertor;
+
+import java.time.Clock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides whether a request to the conversion endpoints is served, so that a
+ * client flooding the service cannot hold all of the request threads.
+ *
+ * <p>
+ * A request is only admitted if (1) fewer than the maximum number of admitted
+ * requests are in progress, and (2) its client, identified by its API key or
+ * address, has a token left in its bucket, which holds up to a burst of
+ * tokens and is refilled at a steady rate. The global limit is checked first,
+ * so that a request it rejects does not cost its client a token. The buckets
+ * are held in a concurrent map and updated lock-free: each of them is a
+ * single {@code AtomicLong} holding the time at which it will be full again
+ * (the theoretical arrival time of the generic cell rate algorithm), so that
+ * neither the buckets of different clients nor the requests of a same client
+ * contend on a lock. The buckets that are full again are evicted
+ * periodically, as a new bucket is full too.
+ *
+ * <p>
+ * Either limit is disabled when set to 0, and admission control as a whole
+ * when both are.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxConcurrentRequests;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rateRejections = new LongAdder();
+    private final LongAdder concurrencyRejections = new LongAdder();
+
+    @Autowired
+    public AdmissionControl(
+            @Value("${currencyconvertor.admission.max-concurrent-requests:0}") int maxConcurrentRequests,
+            @Value("${currencyconvertor.admission.client-rate:0}") double clientRate,
+            @Value("${currencyconvertor.admission.client-burst:20}") int clientBurst) {
+        this(maxConcurrentRequests, clientRate, clientBurst,
+                Clock.systemUTC());
+    }
+
+    /**
+     * @param maxConcurrentRequests
+     *            the maximum number of admitted requests in progress at once
+     * @param clientRate
+     *            the number of requests per second a client is refilled with
+     * @param clientBurst
+     *            the number of requests a client may send at once
+     * @param clock
+     *            the clock the buckets are refilled by
+     */
+    AdmissionControl(int maxConcurrentRequests, double clientRate,
+            int clientBurst, Clock clock) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.emissionIntervalNanos = clientRate > 0
+                ? (long) (NANOS_PER_SECOND / clientRate)
+                : 0;
+        this.burstToleranceNanos = emissionIntervalNanos
+                * (Math.max(clientBurst, 1) - 1);
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if any of the limits is enabled
+     */
+    public boolean isEnabled() {
+        return maxConcurrentRequests > 0 || emissionIntervalNanos > 0;
+    }
+
+    /**
+     * Admit a request of a client, if it is within both limits. An admitted
+     * request must be released with {@link #release()} once it completes.
+     *
+     * @param client
+     *            the API key or address of the client
+     * @return 0 if the request is admitted, or else the number of nanoseconds
+     *         after which the client may retry
+     */
+    public long admit(String client) {
+        if (maxConcurrentRequests > 0) {
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= maxConcurrentRequests) {
+                    concurrencyRejections.increment();
+                    return NANOS_PER_SECOND;
+                }
+            } while (!inFlight.compareAndSet(current, current + 1));
+        }
+        if (emissionIntervalNanos > 0) {
+            var wait = takeToken(client);
+            if (wait > 0) {
+                release();
+                rateRejections.increment();
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Release a request admitted by {@link #admit(String)}
+     */
+    public void release() {
+        if (maxConcurrentRequests > 0) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private long takeToken(String client) {
+        var now = currentNanos();
+        var bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(client, key -> new AtomicLong());
+        }
+        while (true) {
+            var fullAt = bucket.get();
+            var start = Math.max(fullAt, now);
+            var wait = start - burstToleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drop the buckets that are full again. A request racing with the
+     * eviction of its bucket may take its token from the evicted one, which
+     * at worst grants its client one extra burst.
+     */
+    @Scheduled(fixedDelayString = "${currencyconvertor.admission.eviction-interval:PT1M}")
+    public void evictIdleClients() {
+        var now = currentNanos();
+        buckets.values().removeIf(bucket -> bucket.get() <= now);
+    }
+
+    private long currentNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+    }
+
+    /**
+     * @return the number of admitted requests in progress
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the number of clients holding a bucket
+     */
+    public int getClients() {
+        return buckets.size();
+    }
+
+    /**
+     * @return the number of requests rejected as their client had no token
+     *         left
+     */
+    public long getRateRejections() {
+        return rateRejections.sum();
+    }
+
+    /**
+     * @return the number of requests rejected as the maximum number of
+     *         requests were in progress
+     */
+    public long getConcurrencyRejections() {
+        return concurrencyRejections.sum();
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.tarek.currencyconvertor;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Puts the {@link AdmissionControl} in front of the {@link CurrencyController}.
+ * A rejected request is answered right away with
+ * {@code 429 Too Many Requests} and a {@code Retry-After} header, and an
+ * admitted one is released once completed, which for a streamed response is
+ * once its body is written.
+ *
+ * <p>
+ * A client is identified by its API key only if the key is one of the known
+ * ones, and else by its address, so that a client sending a new key with each
+ * request neither gets a fresh burst nor adds a bucket each time.
+ */
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ADMITTED = AdmissionControlInterceptor.class
+            .getName() + ".ADMITTED";
+
+    private final AdmissionControl admissionControl;
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+
+    /**
+     * @param admissionControl
+     *            the admission control of the conversion endpoints
+     * @param apiKeyHeader
+     *            the request header holding the API key of the client, whose
+     *            address identifies it when the header is absent or holds an
+     *            unknown key
+     * @param apiKeys
+     *            the known API keys
+     */
+    public AdmissionControlInterceptor(AdmissionControl admissionControl,
+            String apiKeyHeader, Set<String> apiKeys) {
+        this.admissionControl = admissionControl;
+        this.apiKeyHeader = apiKeyHeader;
+        this.apiKeys = Set.copyOf(apiKeys);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request,
+            HttpServletResponse response, Object handler) throws IOException {
+        // the dispatch that completes a streamed response was admitted
+        // with the request
+        if (request.getDispatcherType() == DispatcherType.ASYNC
+                || !(handler instanceof HandlerMethod)
+                || !CurrencyController.class.isAssignableFrom(
+                        ((HandlerMethod) handler).getBeanType())) {
+            return true;
+        }
+        var wait = admissionControl.admit(getClient(request));
+        if (wait == 0) {
+            request.setAttribute(ADMITTED, Boolean.TRUE);
+            return true;
+        }
+        var retryAfter = Math.max(1,
+                (wait + TimeUnit.SECONDS.toNanos(1) - 1)
+                        / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many requests, retry after "
+                + retryAfter + " seconds");
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request,
+            HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ADMITTED) != null) {
+            request.removeAttribute(ADMITTED);
+            admissionControl.release();
+        }
+    }
+
+    private String getClient(HttpServletRequest request) {
+        var apiKey = request.getHeader(apiKeyHeader);
+        return apiKey != null && apiKeys.contains(apiKey) ? apiKey
+                : request.getRemoteAddr();
+    }
+
+}
@@ -1,15 +1,136 @@
 package com.tarek.currencyconvertor;
 
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties(RatesSourcesProperties.class)
 public class AppConfig {
 
+    /**
+     * The HTTP client used to reach the remote rates API. Connections are
+     * pooled and kept alive between retrievals, every phase of a request is
+     * bounded by a timeout, and gzip-compressed responses are accepted and
+     * decompressed transparently.
+     */
+    @Bean
+    public CloseableHttpClient upstreamHttpClient(
+            @Value("${currencyconvertor.upstream.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${currencyconvertor.upstream.read-timeout:PT5S}") Duration readTimeout,
+            @Value("${currencyconvertor.upstream.connection-request-timeout:PT1S}") Duration connectionRequestTimeout,
+            @Value("${currencyconvertor.upstream.max-connections:20}") int maxConnections,
+            @Value("${currencyconvertor.upstream.keep-alive:PT30S}") Duration keepAlive) {
+        var requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .setConnectionRequestTimeout(
+                        (int) connectionRequestTimeout.toMillis())
+                .build();
+        var keepAliveMillis = keepAlive.toMillis();
+        return HttpClients.custom().setDefaultRequestConfig(requestConfig)
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setKeepAliveStrategy((response, context) -> {
+                    // honour a shorter keep-alive announced by the server
+                    var announced = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    return announced > 0
+                            ? Math.min(announced, keepAliveMillis)
+                            : keepAliveMillis;
+                }).evictExpiredConnections()
+                .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+            CloseableHttpClient upstreamHttpClient,
+            @Value("${currencyconvertor.upstream.max-response-size:1MB}") DataSize maxResponseSize) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(
+                        upstreamHttpClient))
+                .additionalInterceptors(new ResponseSizeLimitInterceptor(
+                        maxResponseSize.toBytes()))
+                .build();
+    }
+
+    /**
+     * The sources the latest rates are retrieved from, in order of priority.
+     * A source whose URL has the {@code file} scheme is read from the local
+     * file system, any other one over HTTP. Without any configured source, the
+     * latest rates are retrieved from the single configured endpoint, or from
+     * exchangeratesapi.io.
+     */
+    @Bean
+    public HedgedRatesProvider ratesProvider(RestTemplate restTemplate,
+            ObjectMapper objectMapper, RatesSourcesProperties properties,
+            @Value("${currencyconvertor.upstream.latest-rates-url:}") String latestRatesUrl) {
+        var sources = new ArrayList<HedgedRatesProvider.Source>();
+        for (var source : properties.getSources()) {
+            var url = URI.create(source.getUrl());
+            var name = StringUtils.hasText(source.getName()) ? source.getName()
+                    : source.getUrl();
+            RatesProvider provider = "file".equals(url.getScheme())
+                    ? new FileRatesProvider(name,
+                            Path.of(url.getSchemeSpecificPart()), objectMapper)
+                    : new HttpRatesProvider(name, restTemplate, url);
+            sources.add(new HedgedRatesProvider.Source(provider,
+                    source.getPriority(), source.getTimeout()));
+        }
+        if (sources.isEmpty()) {
+            var url = StringUtils.hasText(latestRatesUrl)
+                    ? URI.create(latestRatesUrl)
+                    : AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL;
+            sources.add(new HedgedRatesProvider.Source(
+                    new HttpRatesProvider("exchangeratesapi", restTemplate,
+                            url),
+                    0, new RatesSourcesProperties.Source().getTimeout()));
+        }
+        return new HedgedRatesProvider(sources,
+                properties.getHedgeDelay());
+    }
+
+    /**
+     * Keeps the beans with scheduled tasks out of the lazy initialization
+     * enabled by the {@code production} profile, as their tasks are only
+     * registered once they are created. The rates snapshot store also
+     * restores the persisted snapshot on creation.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                RatesSnapshotStore.class, AdmissionControl.class);
+    }
+
+    /**
+     * Serializes the conversion results returned by the controllers without
+     * the Jackson bean serializer; picked up ahead of the default message
+     * converters
+     */
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public ConversionResultHttpMessageConverter conversionResultHttpMessageConverter() {
+        return new ConversionResultHttpMessageConverter();
     }
 }
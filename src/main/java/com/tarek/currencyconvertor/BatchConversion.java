@@ -0,0 +1,118 @@
+package com.tarek.currencyconvertor;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import com.tarek.currencyconvertor.model.ConversionRequest;
+import com.tarek.currencyconvertor.model.ConversionResult;
+
+/**
+ * A batch of conversions that are all resolved against the same rates
+ * snapshot. The results are handed out one by one, in the order of the
+ * requests, so that they can be written out without being collected first.
+ * Iterating over the batch performs the conversions as the results are
+ * pulled, so that a consumer pulling them on demand never has more than a
+ * chunk of them computed ahead.
+ */
+public final class BatchConversion implements Iterable<ConversionResult> {
+
+    /**
+     * The number of results that are computed in parallel before being handed
+     * out, which bounds the memory used by a parallel batch
+     */
+    static final int PARALLEL_CHUNK_SIZE = 4096;
+
+    private final CurrencyService currencyService;
+    private final List<ConversionRequest> requests;
+    private final RatesSnapshot snapshot;
+    private final boolean parallel;
+
+    BatchConversion(CurrencyService currencyService,
+            List<ConversionRequest> requests, RatesSnapshot snapshot,
+            boolean parallel) {
+        this.currencyService = currencyService;
+        this.requests = requests;
+        this.snapshot = snapshot;
+        this.parallel = parallel;
+    }
+
+    /**
+     * @return the rates snapshot the conversions are resolved against, or
+     *         {@code null} if the batch is empty
+     */
+    public RatesSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the number of conversions in this batch
+     */
+    public int size() {
+        return requests.size();
+    }
+
+    /**
+     * Perform the conversions of this batch in a single pass, and hand each
+     * result to the given consumer in the order of the requests. A request
+     * that cannot be converted yields an unsuccessful result carrying the
+     * reason.
+     *
+     * @param consumer
+     *            the consumer of the results
+     */
+    public void forEachResult(Consumer<ConversionResult> consumer) {
+        iterator().forEachRemaining(consumer);
+    }
+
+    /**
+     * @return an iterator over the results of this batch, in the order of the
+     *         requests, which performs each conversion when its result is
+     *         pulled, or each chunk of conversions when the first of its
+     *         results is pulled for a parallel batch
+     */
+    @Override
+    public Iterator<ConversionResult> iterator() {
+        return new ResultIterator();
+    }
+
+    private final class ResultIterator implements Iterator<ConversionResult> {
+
+        private final ConversionResult[] chunk = parallel
+                ? new ConversionResult[PARALLEL_CHUNK_SIZE]
+                : null;
+        private int next;
+        private int chunkStart;
+        private int chunkLength;
+
+        @Override
+        public boolean hasNext() {
+            return next < requests.size();
+        }
+
+        @Override
+        public ConversionResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (!parallel) {
+                return currencyService.convert(requests.get(next++), snapshot);
+            }
+            if (next == chunkStart + chunkLength) {
+                var offset = next;
+                chunkStart = offset;
+                chunkLength = Math.min(chunk.length, requests.size() - offset);
+                IntStream.range(0, chunkLength).parallel()
+                        .forEach(i -> chunk[i] = currencyService
+                                .convert(requests.get(offset + i), snapshot));
+            }
+            var i = next++ - chunkStart;
+            var result = chunk[i];
+            chunk[i] = null;
+            return result;
+        }
+    }
+
+}
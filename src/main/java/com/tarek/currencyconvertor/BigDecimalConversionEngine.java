@@ -0,0 +1,24 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts amounts by multiplying them with the rate at
+ * {@link AppConstants#MATH_CONTEXT} precision. This is the reference engine,
+ * and the default one.
+ */
+@Component
+@ConditionalOnProperty(name = "currencyconvertor.conversion.engine", havingValue = "bigdecimal", matchIfMissing = true)
+public class BigDecimalConversionEngine implements ConversionEngine {
+
+    @Override
+    public BigDecimal convert(CrossRateTable crossRates, int from, int to,
+            BigDecimal amount) {
+        return amount.multiply(crossRates.getRate(from, to),
+                AppConstants.MATH_CONTEXT);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.tarek.currencyconvertor;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * A command-line entry point for bulk conversions, which converts a file of
+ * rows without going through the HTTP endpoint.
+ *
+ * <p>
+ * Usage: {@code BulkConversionCommand <ndjson|csv> [input [output]]}, where
+ * the input and output default to the standard input and output, and
+ * {@code -} also stands for them. The counters of the conversion are printed
+ * to the standard error once it completes.
+ *
+ * @see BulkConverter
+ */
+public class BulkConversionCommand {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println(
+                    "Usage: BulkConversionCommand <ndjson|csv> [input [output]]");
+            System.exit(2);
+        }
+        var format = BulkConverter.Format
+                .valueOf(args[0].toUpperCase(Locale.ROOT));
+        var input = args.length > 1 ? args[1] : "-";
+        var output = args.length > 2 ? args[2] : "-";
+
+        var builder = new SpringApplicationBuilder(
+                CurrencyConvertorApplication.class)
+                        .web(WebApplicationType.NONE)
+                        .properties("spring.main.banner-mode=off");
+        if ("-".equals(output)) {
+            // keep the standard output for the results only
+            builder.properties("logging.level.root=OFF");
+        }
+
+        try (var context = builder.run();
+                var in = openInput(input);
+                var out = openOutput(output)) {
+            var stats = context.getBean(BulkConverter.class).convert(in, out,
+                    format);
+            out.flush();
+            System.err.println(stats);
+        }
+    }
+
+    private static InputStream openInput(String input) throws IOException {
+        return "-".equals(input) ? System.in : new FileInputStream(input);
+    }
+
+    private static OutputStream openOutput(String output) throws IOException {
+        return "-".equals(output) ? System.out : new FileOutputStream(output);
+    }
+
+}
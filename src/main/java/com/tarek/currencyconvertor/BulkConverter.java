@@ -0,0 +1,432 @@
+package com.tarek.currencyconvertor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tarek.currencyconvertor.model.ConversionRequest;
+import com.tarek.currencyconvertor.model.ConversionResult;
+
+/**
+ * Converts a stream of rows, in NDJSON or CSV, into a stream of conversion
+ * results in the same format. Rows are read, converted and written one at a
+ * time, so the memory used does not depend on the size of the input.
+ *
+ * <p>
+ * An NDJSON row is a {@code {"from", "to", "amount"}} object per line, and a
+ * CSV row is a {@code from,to,amount} line, with an optional header line. A
+ * row that cannot be parsed or converted yields an unsuccessful result
+ * carrying the reason, as in a batch conversion.
+ *
+ * <p>
+ * The rows can also be converted one at a time with a {@link RowConverter},
+ * by a caller that reads the rows and writes the results itself, such as the
+ * reactive stack, which does so without blocking I/O.
+ */
+@Component
+public class BulkConverter {
+
+    /**
+     * The supported formats of the rows
+     */
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+        CSV(MediaType.parseMediaType("text/csv"));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        /**
+         * @return the media type of the format
+         */
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        /**
+         * @throws IllegalArgumentException
+         *             thrown if the given media type is not supported
+         *
+         * @param mediaType
+         *            the media type of the rows
+         * @return the matching format
+         */
+        public static Format of(MediaType mediaType) {
+            for (var format : values()) {
+                if (format.mediaType.isCompatibleWith(mediaType)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException(
+                    "Unsupported bulk conversion format: " + mediaType);
+        }
+    }
+
+    /**
+     * The counters of a completed bulk conversion
+     */
+    public static final class Stats {
+
+        private final long rows;
+        private final long failedRows;
+        private final long elapsedNanos;
+
+        Stats(long rows, long failedRows, long elapsedNanos) {
+            this.rows = rows;
+            this.failedRows = failedRows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the number of rows that were converted, including the
+         *         failed ones
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the number of rows that could not be converted
+         */
+        public long getFailedRows() {
+            return failedRows;
+        }
+
+        /**
+         * @return the time taken by the conversion, in milliseconds
+         */
+        public long getElapsedMillis() {
+            return elapsedNanos / 1000000;
+        }
+
+        /**
+         * @return the throughput of the conversion, in rows per second
+         */
+        public long getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1000000000L / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats [rows=" + rows + ", failedRows=" + failedRows
+                    + ", elapsedMillis=" + getElapsedMillis()
+                    + ", rowsPerSecond=" + getRowsPerSecond() + "]";
+        }
+    }
+
+    /**
+     * Converts the rows of a bulk conversion one at a time, against the same
+     * rates snapshot, into the text of their results. An instance is not
+     * thread-safe, and converts the rows of a single input, in order.
+     */
+    public final class RowConverter {
+
+        private final Format format;
+        private final RatesSnapshot snapshot;
+        private final long startTime = System.nanoTime();
+        private boolean firstLine = true;
+        private long rows;
+        private long failedRows;
+
+        private RowConverter(Format format, RatesSnapshot snapshot) {
+            this.format = format;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * @return the text to write before the results, i.e. the CSV header
+         *         line, or an empty string
+         */
+        public String getHeader() {
+            return format == Format.CSV ? CSV_HEADER + '\n' : "";
+        }
+
+        /**
+         * @param line
+         *            a line of the input, without its line break
+         * @return the result of the row, terminated by a line break, or an
+         *         empty string if the line is blank or the CSV header
+         */
+        public String convert(String line) {
+            var conversionResult = convertLine(line);
+            if (conversionResult == null) {
+                return "";
+            }
+            var writer = new StringWriter();
+            try {
+                if (format == Format.NDJSON) {
+                    writer.write(resultWriter
+                            .writeValueAsString(conversionResult));
+                    writer.write('\n');
+                } else {
+                    writeCsvRow(writer, conversionResult);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return writer.toString();
+        }
+
+        /**
+         * @return the counters of the rows converted so far
+         */
+        public Stats getStats() {
+            return new Stats(rows, failedRows, System.nanoTime() - startTime);
+        }
+
+        /**
+         * Log the completion of the conversion.
+         *
+         * @return the counters of all of the rows converted
+         */
+        public Stats complete() {
+            var stats = getStats();
+            log.info("Bulk conversion completed: {}", stats);
+            return stats;
+        }
+
+        private ConversionResult convertLine(String line) {
+            if (line.isBlank()) {
+                return null;
+            }
+            if (firstLine && format == Format.CSV && isCsvHeader(line)) {
+                firstLine = false;
+                return null;
+            }
+            firstLine = false;
+
+            var conversionResult = convertRow(line, format, snapshot);
+            rows++;
+            if (!conversionResult.isSuccess()) {
+                failedRows++;
+            }
+            if (rows % PROGRESS_LOG_INTERVAL == 0) {
+                log.info("Bulk conversion in progress: {}", getStats());
+            }
+            return conversionResult;
+        }
+    }
+
+    private static final Logger log = LoggerFactory
+            .getLogger(BulkConverter.class);
+
+    private static final int PROGRESS_LOG_INTERVAL = 1000000;
+    private static final String CSV_HEADER = "success,from,to,amount,rate,result,timestamp,error";
+
+    private final CurrencyService currencyService;
+    private final RatesSnapshotStore ratesSnapshotStore;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+
+    BulkConverter(CurrencyService currencyService,
+            RatesSnapshotStore ratesSnapshotStore, ObjectMapper objectMapper) {
+        this.currencyService = currencyService;
+        this.ratesSnapshotStore = ratesSnapshotStore;
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(ConversionRequest.class);
+        this.resultWriter = objectMapper.writerFor(ConversionResult.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Convert every row of the input and write the results to the output, in
+     * the order of the rows. All of the rows are converted against the same
+     * rates snapshot, which is obtained before anything is written.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if the rates snapshot cannot be obtained
+     *
+     * @throws IOException
+     *             thrown if reading the input or writing the output fails
+     *
+     * @param in
+     *            the rows to convert, in UTF-8
+     * @param out
+     *            where to write the results, in UTF-8
+     * @param format
+     *            the format of both the rows and the results
+     * @return the counters of the conversion
+     */
+    public Stats convert(InputStream in, OutputStream out, Format format)
+            throws IOException {
+        return convert(in, out, format, ratesSnapshotStore.getSnapshot());
+    }
+
+    /**
+     * Convert every row of the input against the given rates snapshot, as in
+     * {@link #convert(InputStream, OutputStream, Format)}.
+     *
+     * @throws IOException
+     *             thrown if reading the input or writing the output fails
+     *
+     * @param in
+     *            the rows to convert, in UTF-8
+     * @param out
+     *            where to write the results, in UTF-8
+     * @param format
+     *            the format of both the rows and the results
+     * @param snapshot
+     *            the rates snapshot to convert the rows with
+     * @return the counters of the conversion
+     */
+    public Stats convert(InputStream in, OutputStream out, Format format,
+            RatesSnapshot snapshot) throws IOException {
+        var rowConverter = new RowConverter(format, snapshot);
+        var reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8));
+        var writer = new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator generator = null;
+        if (format == Format.NDJSON) {
+            generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // each result is terminated by a line break instead
+            generator.setRootValueSeparator(null);
+        } else {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            var conversionResult = rowConverter.convertLine(line);
+            if (conversionResult == null) {
+                continue;
+            }
+            if (generator != null) {
+                resultWriter.writeValue(generator, conversionResult);
+                generator.writeRaw('\n');
+            } else {
+                writeCsvRow(writer, conversionResult);
+            }
+        }
+        if (generator != null) {
+            generator.close();
+        }
+        writer.flush();
+
+        return rowConverter.complete();
+    }
+
+    /**
+     * Create a converter of the rows of an input, one at a time, as in
+     * {@link #convert(InputStream, OutputStream, Format, RatesSnapshot)}.
+     *
+     * @param format
+     *            the format of both the rows and the results
+     * @param snapshot
+     *            the rates snapshot to convert the rows with
+     * @return the converter of the rows
+     */
+    public RowConverter createRowConverter(Format format,
+            RatesSnapshot snapshot) {
+        return new RowConverter(format, snapshot);
+    }
+
+    private ConversionResult convertRow(String line, Format format,
+            RatesSnapshot snapshot) {
+        ConversionRequest request;
+        try {
+            request = format == Format.NDJSON ? parseNdjsonRow(line)
+                    : parseCsvRow(line);
+        } catch (IllegalArgumentException e) {
+            return CurrencyService.createFailedConversionResult(null,
+                    e.getMessage());
+        }
+        return currencyService.convert(request, snapshot);
+    }
+
+    private ConversionRequest parseNdjsonRow(String line) {
+        try {
+            return requestReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed NDJSON row");
+        }
+    }
+
+    private ConversionRequest parseCsvRow(String line) {
+        var firstComma = line.indexOf(',');
+        var secondComma = firstComma < 0 ? -1
+                : line.indexOf(',', firstComma + 1);
+        if (secondComma < 0 || line.indexOf(',', secondComma + 1) >= 0) {
+            throw new IllegalArgumentException(
+                    "A CSV row must have exactly three fields: from,to,amount");
+        }
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(line.substring(secondComma + 1).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "The conversion amount is not a number");
+        }
+        return new ConversionRequest(line.substring(0, firstComma).trim(),
+                line.substring(firstComma + 1, secondComma).trim(), amount);
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.regionMatches(true, 0, "from,", 0, 5);
+    }
+
+    private static void writeCsvRow(Writer writer,
+            ConversionResult conversionResult) throws IOException {
+        writer.write(Boolean.toString(conversionResult.isSuccess()));
+        writer.write(',');
+        writeCsvField(writer, conversionResult.getFrom());
+        writer.write(',');
+        writeCsvField(writer, conversionResult.getTo());
+        writer.write(',');
+        writeCsvField(writer, conversionResult.getAmount());
+        writer.write(',');
+        writeCsvField(writer, conversionResult.getRate());
+        writer.write(',');
+        writeCsvField(writer, conversionResult.getResult());
+        writer.write(',');
+        writer.write(Long.toString(conversionResult.getTimestamp()));
+        writer.write(',');
+        writeCsvField(writer, conversionResult.getError());
+        writer.write('\n');
+    }
+
+    private static void writeCsvField(Writer writer, Object value)
+            throws IOException {
+        if (value == null) {
+            return;
+        }
+        var text = value instanceof BigDecimal
+                ? ((BigDecimal) value).toPlainString()
+                : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0
+                && text.indexOf('\n') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+}
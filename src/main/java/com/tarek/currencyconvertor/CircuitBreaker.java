@@ -0,0 +1,78 @@
+package com.tarek.currencyconvertor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops the retrievals from the remote API after a number of consecutive
+ * failures, so that a failing remote API is no longer called on behalf of
+ * every request. Once open, the circuit is only closed again by a successful
+ * retrieval, which is left to the periodic probes of the remote API.
+ */
+public final class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(CircuitBreaker.class);
+
+    private final int failureThreshold;
+    private final LongAdder staleServes = new LongAdder();
+    private int consecutiveFailures;
+    private volatile boolean open;
+
+    /**
+     * @param failureThreshold
+     *            the number of consecutive failed retrievals after which the
+     *            circuit opens, the circuit never opening if it is 0 or less
+     */
+    public CircuitBreaker(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * @return true if the retrievals triggered by requests are suspended
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * @return the number of consecutive failed retrievals so far
+     */
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return the number of snapshots handed out beyond the maximum staleness
+     *         while the circuit was open
+     */
+    public long getStaleServes() {
+        return staleServes.sum();
+    }
+
+    synchronized void recordSuccess() {
+        if (open) {
+            log.info("Closing the circuit: the remote API has recovered");
+        }
+        consecutiveFailures = 0;
+        open = false;
+    }
+
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (!open && failureThreshold > 0
+                && consecutiveFailures >= failureThreshold) {
+            log.warn(
+                    "Opening the circuit after {} consecutive failed retrievals from the remote API",
+                    consecutiveFailures);
+            open = true;
+        }
+    }
+
+    void recordStaleServe() {
+        staleServes.increment();
+    }
+
+}
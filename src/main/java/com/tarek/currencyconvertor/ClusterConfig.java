@@ -0,0 +1,50 @@
+package com.tarek.currencyconvertor;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+/**
+ * Shares the rates snapshot between the instances of a cluster, which are
+ * listed in {@code currencyconvertor.cluster.instances}, so that only one of
+ * them retrieves the latest rates from the remote API
+ */
+@Configuration
+@ConditionalOnProperty("currencyconvertor.cluster.instances")
+public class ClusterConfig {
+
+    /**
+     * The source of the latest rates of the rates snapshot store, which pulls
+     * them from the instances ahead of this one before falling back to the
+     * configured sources. The URL of this instance is required, for it not to
+     * pull its own snapshot.
+     */
+    @Bean
+    @Primary
+    public ClusterRatesProvider clusterRatesProvider(
+            HedgedRatesProvider ratesProvider, RestTemplateBuilder builder,
+            @Value("${currencyconvertor.cluster.instances}") String[] instances,
+            @Value("${currencyconvertor.cluster.self-url:}") String selfUrl,
+            @Value("${currencyconvertor.cluster.timeout:PT1S}") Duration timeout) {
+        if (!StringUtils.hasText(selfUrl)) {
+            throw new IllegalStateException(
+                    "currencyconvertor.cluster.self-url must be set along with currencyconvertor.cluster.instances");
+        }
+        var instanceUrls = new ArrayList<URI>(instances.length);
+        for (var instance : instances) {
+            instanceUrls.add(URI.create(instance.trim()));
+        }
+        var restTemplate = builder.setConnectTimeout(timeout)
+                .setReadTimeout(timeout).build();
+        return new ClusterRatesProvider(instanceUrls,
+                URI.create(selfUrl.trim()), restTemplate, ratesProvider);
+    }
+}
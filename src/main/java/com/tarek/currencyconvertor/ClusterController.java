@@ -0,0 +1,55 @@
+package com.tarek.currencyconvertor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves the rates snapshot of this instance to the other instances of the
+ * cluster, in the format of the snapshot file
+ */
+@RestController
+@ConditionalOnProperty("currencyconvertor.cluster.instances")
+public class ClusterController {
+
+    private final RatesSnapshotStore ratesSnapshotStore;
+
+    ClusterController(RatesSnapshotStore ratesSnapshotStore) {
+        this.ratesSnapshotStore = ratesSnapshotStore;
+    }
+
+    /**
+     * Get the current rates snapshot, without retrieving one. An instance
+     * whose snapshot is missing or older than the maximum staleness answers
+     * with {@code 503 Service Unavailable}, so that the other instances do not
+     * pull it.
+     *
+     * @return the rates snapshot
+     */
+    @GetMapping(ClusterRatesProvider.SNAPSHOT_PATH)
+    public ResponseEntity<byte[]> ratesSnapshot() {
+        var snapshot = ratesSnapshotStore.getFreshSnapshot();
+        if (snapshot == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .build();
+        }
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            RatesSnapshotFile.writeSnapshot(out, snapshot);
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Could not serialize the rates snapshot", e);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(bytes.toByteArray());
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.tarek.currencyconvertor;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * Retrieves the latest rates from the other instances of a cluster, so that
+ * only one of them calls the remote API.
+ *
+ * <p>
+ * Every instance is given the same ordered list of instances, the first one
+ * being the leader. An instance pulls the rates snapshot of the first instance
+ * ahead of it in the list that serves one, and retrieves the latest rates from
+ * the remote API itself if none of them does, e.g. because they are down or
+ * cannot reach the remote API either. The leader thus always retrieves them
+ * itself, and the next instance takes over when it is silent. A pulled
+ * snapshot keeps the instant its rates were retrieved from the remote API at,
+ * so that it does not get any fresher along the cluster.
+ */
+public class ClusterRatesProvider implements RatesProvider {
+
+    /**
+     * The path the instances serve their current rates snapshot at
+     */
+    public static final String SNAPSHOT_PATH = "/internal/v1/rates-snapshot";
+
+    private static final Logger log = LoggerFactory
+            .getLogger(ClusterRatesProvider.class);
+
+    private final List<URI> instancesAhead;
+    private final RestTemplate restTemplate;
+    private final RatesProvider upstream;
+    private final LongAdder peerPulls = new LongAdder();
+    private final LongAdder upstreamFetches = new LongAdder();
+    private volatile URI leader;
+
+    /**
+     * @param instances
+     *            the base URLs of the instances of the cluster, the first one
+     *            being the leader
+     * @param self
+     *            the base URL of this instance, as listed in the instances; an
+     *            instance that is not listed pulls from all of them, and never
+     *            from itself
+     * @param restTemplate
+     *            the client used to reach the other instances
+     * @param upstream
+     *            the source retrieved from when no instance ahead of this one
+     *            serves a snapshot
+     */
+    public ClusterRatesProvider(List<URI> instances, URI self,
+            RestTemplate restTemplate, RatesProvider upstream) {
+        if (self == null || !StringUtils.hasText(self.toString())) {
+            throw new IllegalArgumentException(
+                    "The URL of this instance must be set, for it not to pull its own rates snapshot");
+        }
+        var ahead = new ArrayList<URI>();
+        for (var instance : instances) {
+            if (normalize(instance).equals(normalize(self))) {
+                break;
+            }
+            ahead.add(instance);
+        }
+        this.instancesAhead = List.copyOf(ahead);
+        this.restTemplate = restTemplate;
+        this.upstream = upstream;
+    }
+
+    @Override
+    public String getName() {
+        return "cluster";
+    }
+
+    /**
+     * @return the instance the last snapshot was pulled from, or {@code null}
+     *         if it was retrieved from the remote API
+     */
+    public URI getLeader() {
+        return leader;
+    }
+
+    /**
+     * @return the number of snapshots pulled from other instances
+     */
+    public long getPeerPulls() {
+        return peerPulls.sum();
+    }
+
+    /**
+     * @return the number of retrievals from the remote API by this instance
+     */
+    public long getUpstreamFetches() {
+        return upstreamFetches.sum();
+    }
+
+    @Override
+    public LatestRates fetchLatestRates() {
+        return fetchRetrievedRates(Instant.now()).getLatestRates();
+    }
+
+    /**
+     * Pull the rates snapshot of the first instance ahead of this one that
+     * serves one, with the instant its rates were retrieved from the remote
+     * API at, or else retrieve the latest rates from the remote API now.
+     */
+    @Override
+    public RetrievedRates fetchRetrievedRates(Instant now) {
+        for (var instance : instancesAhead) {
+            var retrievedRates = pull(instance);
+            if (retrievedRates != null) {
+                if (!instance.equals(leader)) {
+                    log.info("Pulling the latest rates from {}", instance);
+                    leader = instance;
+                }
+                peerPulls.increment();
+                return retrievedRates;
+            }
+        }
+        if (leader != null || upstreamFetches.sum() == 0) {
+            log.info("Retrieving the latest rates from the remote API");
+            leader = null;
+        }
+        upstreamFetches.increment();
+        return new RetrievedRates(upstream.fetchLatestRates(), now);
+    }
+
+    private RetrievedRates pull(URI instance) {
+        try {
+            var body = restTemplate.getForObject(
+                    instance.resolve(SNAPSHOT_PATH), byte[].class);
+            if (body == null) {
+                return null;
+            }
+            return RatesSnapshotFile.readSnapshot(
+                    new DataInputStream(new ByteArrayInputStream(body)));
+        } catch (RestClientException | IOException e) {
+            log.debug("No rates snapshot from {}: {}", instance,
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private static String normalize(URI instance) {
+        var url = instance.toString();
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+}
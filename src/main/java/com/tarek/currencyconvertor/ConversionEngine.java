@@ -0,0 +1,34 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+
+/**
+ * Performs the arithmetic of a conversion between two currencies of a
+ * {@link CrossRateTable}. Implementations may compute the converted amount in
+ * different ways, but all of them yield the same value once it is rounded to
+ * {@link AppConstants#BIGDECIMAL_SCALE} with
+ * {@link AppConstants#ROUNDING_MODE}, as done by the conversion result.
+ *
+ * <p>
+ * The engine is selected by the {@code currencyconvertor.conversion.engine}
+ * property.
+ */
+public interface ConversionEngine {
+
+    /**
+     * Convert an amount from one currency of the table to another.
+     *
+     * @param crossRates
+     *            the rates to convert with
+     * @param from
+     *            the ordinal of the source currency in the table
+     * @param to
+     *            the ordinal of the target currency in the table
+     * @param amount
+     *            the positive amount to convert
+     * @return the converted amount, not necessarily rounded
+     */
+    BigDecimal convert(CrossRateTable crossRates, int from, int to,
+            BigDecimal amount);
+
+}
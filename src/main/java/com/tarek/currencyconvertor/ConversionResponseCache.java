@@ -0,0 +1,297 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import com.tarek.currencyconvertor.ConversionResultJsonWriter.Template;
+import com.tarek.currencyconvertor.model.ConversionResult;
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * Builds the responses of conversions against the latest rates, which are
+ * tagged with the rates snapshot they were computed with and may be cached
+ * by clients until the next scheduled refresh of the rates.
+ *
+ * <p>
+ * The {@code ETag} of a response is derived from the timestamp of the rates,
+ * so that a request whose {@code If-None-Match} carries it is answered with
+ * {@code 304 Not Modified}, without converting the amount again, for as long
+ * as the rates do not change. Its
+ * {@code Cache-Control} max-age is the time left until the next refresh.
+ * A response computed with a snapshot older than the maximum staleness, as
+ * served while the circuit to the remote API is open, is marked stale with a
+ * {@code Warning} and the age of the rates in its {@code Age}, and may not be
+ * cached.
+ *
+ * <p>
+ * The serialized responses can also be cached in memory, keyed on the rates
+ * snapshot and the currencies and amount of the conversion, so that repeated
+ * queries are neither converted nor serialized again; only the
+ * {@code executionTime} of a cached response is written anew, as the time
+ * taken to serve it from the cache. The cache only holds responses computed
+ * with the current rates, and is emptied when rates that differ from them are
+ * loaded. Once full, the least recently served response makes room for the
+ * next one. The cache is disabled when its maximum number of entries is 0.
+ */
+@Component
+public class ConversionResponseCache {
+
+    private final CurrencyService currencyService;
+    private final RatesSnapshotStore ratesSnapshotStore;
+    private final Duration refreshInterval;
+    private final int maxEntries;
+    private final Clock clock;
+    private volatile Entries entries;
+
+    @Autowired
+    public ConversionResponseCache(CurrencyService currencyService,
+            RatesSnapshotStore ratesSnapshotStore,
+            @Value("${currencyconvertor.rates.refresh-interval:PT1H}") Duration refreshInterval,
+            @Value("${currencyconvertor.response-cache.max-entries:0}") int maxEntries) {
+        this(currencyService, ratesSnapshotStore, refreshInterval, maxEntries,
+                Clock.systemUTC());
+    }
+
+    ConversionResponseCache(CurrencyService currencyService,
+            RatesSnapshotStore ratesSnapshotStore, Duration refreshInterval,
+            int maxEntries, Clock clock) {
+        this.currencyService = currencyService;
+        this.ratesSnapshotStore = ratesSnapshotStore;
+        this.refreshInterval = refreshInterval;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Convert an amount from one currency to another with the latest rates,
+     * as in {@link CurrencyService#convert(CurrencyCode, CurrencyCode,
+     * BigDecimal)}, and build the response carrying the result. A conversion
+     * that does not depend on the rates, i.e. of a zero amount or between
+     * identical currencies, is neither tagged nor cached.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the conversion is invalid, as in
+     *             {@link CurrencyService#convert(CurrencyCode, CurrencyCode,
+     *             BigDecimal)}.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if the rates snapshot cannot be obtained, as in
+     *             {@link CurrencyService#convert(CurrencyCode, CurrencyCode,
+     *             BigDecimal)}.
+     *
+     * @param from
+     *            The currency code of the currency you would like to convert
+     *            from
+     * @param to
+     *            The currency code of the currency you would like to convert
+     *            to
+     * @param amount
+     *            The amount to be converted
+     * @return the response carrying the serialized conversion result
+     */
+    public ResponseEntity<byte[]> getResponse(CurrencyCode from,
+            CurrencyCode to, BigDecimal amount) {
+        return getResponse(from, to, amount, null);
+    }
+
+    /**
+     * Build the response of a conversion as in
+     * {@link #getResponse(CurrencyCode, CurrencyCode, BigDecimal)}, unless the
+     * {@code If-None-Match} of the request matches the current rates, in which
+     * case the amount is not converted and a {@code 304 Not Modified} without
+     * a body is returned.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the conversion is invalid, as in
+     *             {@link CurrencyService#convert(CurrencyCode, CurrencyCode,
+     *             BigDecimal)}.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if the rates snapshot cannot be obtained, as in
+     *             {@link CurrencyService#convert(CurrencyCode, CurrencyCode,
+     *             BigDecimal)}.
+     *
+     * @param from
+     *            The currency code of the currency you would like to convert
+     *            from
+     * @param to
+     *            The currency code of the currency you would like to convert
+     *            to
+     * @param amount
+     *            The amount to be converted
+     * @param request
+     *            The request of the conversion, or {@code null} to always
+     *            convert the amount
+     * @return the response carrying the serialized conversion result, or the
+     *         {@code 304 Not Modified} response
+     */
+    public ResponseEntity<byte[]> getResponse(CurrencyCode from,
+            CurrencyCode to, BigDecimal amount, WebRequest request) {
+        if (amount == null || amount.signum() == 0 || from == to) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(serialize(currencyService.convert(from, to, amount)));
+        }
+        var snapshot = ratesSnapshotStore.getSnapshot();
+        var eTag = getETag(snapshot);
+        // the conversion is checked first so that an invalid one is rejected
+        // in the same way whether or not the client holds a response
+        currencyService.checkConversion(from, to, amount, snapshot);
+        var notModified = request != null && request.checkNotModified(eTag);
+        var response = ResponseEntity
+                .status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(eTag);
+        if (ratesSnapshotStore.isStale(snapshot)) {
+            response.headers(headers -> StaleResponseHeaders.addTo(headers,
+                    snapshot.getAge(clock.instant())));
+        } else {
+            response.cacheControl(getCacheControl(snapshot));
+        }
+        if (notModified) {
+            return response.build();
+        }
+        return response.contentType(MediaType.APPLICATION_JSON)
+                .body(getBody(from, to, amount, snapshot));
+    }
+
+    private byte[] getBody(CurrencyCode from, CurrencyCode to,
+            BigDecimal amount, RatesSnapshot snapshot) {
+        if (maxEntries <= 0) {
+            return serialize(currencyService.convert(from, to, amount,
+                    snapshot));
+        }
+        var startTime = System.nanoTime();
+        var current = entries;
+        if (current == null
+                || current.latestRates != snapshot.getLatestRates()) {
+            // responses computed with previous rates are never served again,
+            // and are thus dropped all at once, while a snapshot of unchanged
+            // rates keeps them
+            current = new Entries(snapshot.getLatestRates(), maxEntries);
+            entries = current;
+        }
+        var key = new Key(from, to, amount);
+        var template = current.get(key);
+        if (template != null) {
+            return template.toBytes((System.nanoTime() - startTime) / 1000000);
+        }
+        var conversionResult = currencyService.convert(from, to, amount,
+                snapshot);
+        template = ConversionResultJsonWriter.toTemplate(conversionResult);
+        current.put(key, template);
+        return template.toBytes(conversionResult.getExecutionTime());
+    }
+
+    private static byte[] serialize(ConversionResult conversionResult) {
+        return ConversionResultJsonWriter.toBytes(conversionResult);
+    }
+
+    private static String getETag(RatesSnapshot snapshot) {
+        return "\"" + Long.toHexString(snapshot.getLatestRates().getTimestamp())
+                + "\"";
+    }
+
+    private CacheControl getCacheControl(RatesSnapshot snapshot) {
+        var lastRefreshAt = ratesSnapshotStore.getLastRefreshAt();
+        if (lastRefreshAt == null
+                || lastRefreshAt.isBefore(snapshot.getRetrievedAt())) {
+            lastRefreshAt = snapshot.getRetrievedAt();
+        }
+        var maxAge = Duration.between(clock.instant(),
+                lastRefreshAt.plus(refreshInterval));
+        return CacheControl.maxAge(maxAge.isNegative() ? Duration.ZERO : maxAge)
+                .cachePublic();
+    }
+
+    /**
+     * The cached responses computed with some latest rates, the least recently
+     * served of which is evicted once their maximum number is exceeded
+     */
+    private static final class Entries {
+
+        private final LatestRates latestRates;
+        private final Map<Key, Template> responses;
+        // a lock rather than a monitor, as responses are served on virtual
+        // threads when enabled; reads reorder the entries, and thus hold it
+        private final ReentrantLock lock = new ReentrantLock();
+
+        Entries(LatestRates latestRates, int maxEntries) {
+            this.latestRates = latestRates;
+            this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Key, Template> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        Template get(Key key) {
+            lock.lock();
+            try {
+                return responses.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(Key key, Template template) {
+            lock.lock();
+            try {
+                responses.putIfAbsent(key, template);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * The currencies and amount of a conversion. Amounts of different scales
+     * are different keys, as they are echoed as they are in the responses.
+     */
+    private static final class Key {
+
+        private final CurrencyCode from;
+        private final CurrencyCode to;
+        private final BigDecimal amount;
+
+        Key(CurrencyCode from, CurrencyCode to, BigDecimal amount) {
+            this.from = from;
+            this.to = to;
+            this.amount = amount;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            var other = (Key) obj;
+            return from == other.from && to == other.to
+                    && amount.equals(other.amount);
+        }
+
+        @Override
+        public int hashCode() {
+            return (from.hashCode() * 31 + to.hashCode()) * 31
+                    + amount.hashCode();
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.tarek.currencyconvertor;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.tarek.currencyconvertor.model.ConversionResult;
+
+/**
+ * Writes the conversion results returned by the controllers with the
+ * {@link ConversionResultJsonWriter}, ahead of the Jackson converter. Reading
+ * conversion results is left to the Jackson converter.
+ */
+public class ConversionResultHttpMessageConverter
+        extends AbstractHttpMessageConverter<ConversionResult> {
+
+    public ConversionResultHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ConversionResult.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ConversionResult readInternal(
+            Class<? extends ConversionResult> clazz,
+            HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException(
+                "Conversion results are not read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ConversionResult conversionResult,
+            HttpOutputMessage outputMessage) throws IOException {
+        ConversionResultJsonWriter.writeTo(conversionResult,
+                outputMessage.getBody());
+    }
+
+}
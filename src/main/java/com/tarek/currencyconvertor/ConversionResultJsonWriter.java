@@ -0,0 +1,319 @@
+package com.tarek.currencyconvertor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.tarek.currencyconvertor.model.ConversionResult;
+
+/**
+ * Writes a {@link ConversionResult} as JSON, byte for byte as Jackson
+ * serializes it, without going through the bean serializer. The field names
+ * are encoded once, and the numbers are formatted straight into the output
+ * buffer instead of through intermediate strings, so that serializing a
+ * result allocates little more than its bytes.
+ */
+public final class ConversionResultJsonWriter {
+
+    private static final byte[] SUCCESS = ascii("{\"success\":");
+    private static final byte[] TIMESTAMP = ascii(",\"timestamp\":");
+    private static final byte[] EXECUTION_TIME = ascii(",\"executionTime\":");
+    private static final byte[] FROM = ascii(",\"from\":");
+    private static final byte[] TO = ascii(",\"to\":");
+    private static final byte[] AMOUNT = ascii(",\"amount\":");
+    private static final byte[] RATE = ascii(",\"rate\":");
+    private static final byte[] RESULT = ascii(",\"result\":");
+    private static final byte[] ERROR = ascii(",\"error\":");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX_DIGITS = ascii("0123456789ABCDEF");
+
+    /**
+     * The size of the buffer, which fits a successful conversion result
+     */
+    private static final int INITIAL_CAPACITY = 160;
+
+    /**
+     * The largest precision of a decimal whose unscaled value fits a long
+     */
+    private static final int MAX_LONG_PRECISION = 18;
+
+    /**
+     * A conversion result serialized once, whose execution time is written
+     * anew into each copy of its bytes, as for a result served again without
+     * being converted again
+     */
+    public static final class Template {
+
+        private final byte[] bytes;
+        private final int executionTimeStart;
+        private final int executionTimeEnd;
+
+        private Template(byte[] bytes, int executionTimeStart,
+                int executionTimeEnd) {
+            this.bytes = bytes;
+            this.executionTimeStart = executionTimeStart;
+            this.executionTimeEnd = executionTimeEnd;
+        }
+
+        /**
+         * @param executionTime
+         *            the execution time to report, in milliseconds
+         * @return the conversion result as UTF-8 encoded JSON, with the given
+         *         execution time
+         */
+        public byte[] toBytes(long executionTime) {
+            var writer = new ConversionResultJsonWriter();
+            writer.append(bytes, 0, executionTimeStart);
+            writer.appendLong(executionTime);
+            writer.append(bytes, executionTimeEnd,
+                    bytes.length - executionTimeEnd);
+            return Arrays.copyOf(writer.bytes, writer.size);
+        }
+    }
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+    private int executionTimeStart;
+    private int executionTimeEnd;
+
+    private ConversionResultJsonWriter() {
+    }
+
+    /**
+     * @param conversionResult
+     *            the conversion result to be serialized
+     * @return the conversion result as UTF-8 encoded JSON
+     */
+    public static byte[] toBytes(ConversionResult conversionResult) {
+        var writer = new ConversionResultJsonWriter();
+        writer.write(conversionResult);
+        return Arrays.copyOf(writer.bytes, writer.size);
+    }
+
+    /**
+     * @param conversionResult
+     *            the conversion result to be serialized
+     * @return the conversion result as a template of UTF-8 encoded JSON, whose
+     *         execution time can be replaced
+     */
+    public static Template toTemplate(ConversionResult conversionResult) {
+        var writer = new ConversionResultJsonWriter();
+        writer.write(conversionResult);
+        return new Template(Arrays.copyOf(writer.bytes, writer.size),
+                writer.executionTimeStart, writer.executionTimeEnd);
+    }
+
+    /**
+     * @throws IOException
+     *             thrown if writing to the output stream fails
+     *
+     * @param conversionResult
+     *            the conversion result to be serialized
+     * @param out
+     *            the stream the conversion result is written to as UTF-8
+     *            encoded JSON
+     */
+    public static void writeTo(ConversionResult conversionResult,
+            OutputStream out) throws IOException {
+        var writer = new ConversionResultJsonWriter();
+        writer.write(conversionResult);
+        out.write(writer.bytes, 0, writer.size);
+    }
+
+    private void write(ConversionResult conversionResult) {
+        append(SUCCESS);
+        append(conversionResult.isSuccess() ? TRUE : FALSE);
+        append(TIMESTAMP);
+        appendLong(conversionResult.getTimestamp());
+        append(EXECUTION_TIME);
+        executionTimeStart = size;
+        appendLong(conversionResult.getExecutionTime());
+        executionTimeEnd = size;
+        append(FROM);
+        appendString(conversionResult.getFrom());
+        append(TO);
+        appendString(conversionResult.getTo());
+        append(AMOUNT);
+        appendDecimal(conversionResult.getAmount());
+        append(RATE);
+        appendDecimal(conversionResult.getRate());
+        append(RESULT);
+        appendDecimal(conversionResult.getResult());
+        if (conversionResult.getError() != null) {
+            append(ERROR);
+            appendString(conversionResult.getError());
+        }
+        ensureCapacity(1);
+        bytes[size++] = '}';
+    }
+
+    /**
+     * Append a string as Jackson's UTF-8 generator quotes it: the control
+     * characters, quotes and backslashes are escaped, and so are the
+     * surrogates, which are not combined into four-byte sequences.
+     */
+    private void appendString(String value) {
+        if (value == null) {
+            append(NULL);
+            return;
+        }
+        var length = value.length();
+        // at most six bytes per character, for an escaped surrogate
+        ensureCapacity(length * 6 + 2);
+        bytes[size++] = '"';
+        for (var i = 0; i < length; i++) {
+            var c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                bytes[size++] = (byte) c;
+            } else if (c == '"' || c == '\\') {
+                bytes[size++] = '\\';
+                bytes[size++] = (byte) c;
+            } else if (c < 0x20) {
+                appendEscapedControl(c);
+            } else if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                appendUnicodeEscape(c);
+            } else {
+                bytes[size++] = (byte) (0xE0 | (c >> 12));
+                bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        bytes[size++] = '"';
+    }
+
+    private void appendEscapedControl(char c) {
+        char escape;
+        switch (c) {
+        case '\b':
+            escape = 'b';
+            break;
+        case '\t':
+            escape = 't';
+            break;
+        case '\n':
+            escape = 'n';
+            break;
+        case '\f':
+            escape = 'f';
+            break;
+        case '\r':
+            escape = 'r';
+            break;
+        default:
+            appendUnicodeEscape(c);
+            return;
+        }
+        bytes[size++] = '\\';
+        bytes[size++] = (byte) escape;
+    }
+
+    private void appendUnicodeEscape(char c) {
+        bytes[size++] = '\\';
+        bytes[size++] = 'u';
+        for (var shift = 12; shift >= 0; shift -= 4) {
+            bytes[size++] = HEX_DIGITS[(c >> shift) & 0xF];
+        }
+    }
+
+    /**
+     * Append a decimal as {@link BigDecimal#toString()} formats it, which is
+     * how Jackson writes it. The decimals formatted in plain notation whose
+     * unscaled value fits a long, which include the scaled rate and result,
+     * are formatted from their digits.
+     */
+    private void appendDecimal(BigDecimal value) {
+        if (value == null) {
+            append(NULL);
+            return;
+        }
+        var scale = value.scale();
+        var precision = value.precision();
+        if (scale < 0 || precision > MAX_LONG_PRECISION
+                || precision - 1 - scale < -6) {
+            append(ascii(value.toString()));
+            return;
+        }
+        var unscaled = value.unscaledValue().longValue();
+        if (unscaled < 0) {
+            ensureCapacity(1);
+            bytes[size++] = '-';
+            unscaled = -unscaled;
+        }
+        if (scale == 0) {
+            appendLong(unscaled);
+            return;
+        }
+        var digits = digitCount(unscaled);
+        var integerDigits = Math.max(digits - scale, 1);
+        var end = size + integerDigits + 1 + scale;
+        ensureCapacity(end - size);
+        var position = end;
+        for (var i = 0; i < scale; i++) {
+            bytes[--position] = (byte) ('0' + unscaled % 10);
+            unscaled /= 10;
+        }
+        bytes[--position] = '.';
+        do {
+            bytes[--position] = (byte) ('0' + unscaled % 10);
+            unscaled /= 10;
+        } while (position > size);
+        size = end;
+    }
+
+    private void appendLong(long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                append(ascii(Long.toString(value)));
+                return;
+            }
+            ensureCapacity(1);
+            bytes[size++] = '-';
+            value = -value;
+        }
+        var end = size + digitCount(value);
+        ensureCapacity(end - size);
+        var position = end;
+        do {
+            bytes[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (position > size);
+        size = end;
+    }
+
+    private static int digitCount(long value) {
+        var digits = 1;
+        for (var limit = 10L; digits < 19 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private void append(byte[] value) {
+        append(value, 0, value.length);
+    }
+
+    private void append(byte[] value, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(value, offset, bytes, size, length);
+        size += length;
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes,
+                    Math.max(bytes.length * 2, size + length));
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,301 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * An immutable table of the conversion rates between every pair of currencies
+ * of a given {@link LatestRates} object. The table is computed once when the
+ * rates are loaded, so that a conversion only needs to look up its rate
+ * rather than derive it through the base currency.
+ *
+ * <p>
+ * Currencies are addressed by their ordinal in the table, as returned by
+ * {@link #indexOf(CurrencyCode)}, and the rates are held in a flat array in
+ * row-major order. Ordinals are looked up by the packed value of the currency
+ * code.
+ *
+ * <p>
+ * A conversion engine may also keep its own form of the rates with the table,
+ * computed on first use, through {@link #getEngineRates(Function)}.
+ */
+public final class CrossRateTable {
+
+    private final CurrencyCode[] codes;
+    private final short[] ordinals;
+    private final BigDecimal[] rates;
+    private final int baseIndex;
+    private volatile Object engineRates;
+
+    private CrossRateTable(CurrencyCode[] codes, short[] ordinals,
+            BigDecimal[] rates, int baseIndex) {
+        this.codes = codes;
+        this.ordinals = ordinals;
+        this.rates = rates;
+        this.baseIndex = baseIndex;
+    }
+
+    /**
+     * Compute the rates between every pair of currencies of the given latest
+     * rates. Each rate is derived in the same way, and thus with the same
+     * precision, as a rate derived on demand through the base currency.
+     * Currencies with a missing or non-positive rate, or whose code is not
+     * made of three upper-case letters, are left out.
+     *
+     * @param latestRates
+     *            the rates relative to the base currency
+     * @return the cross-rate table
+     */
+    public static CrossRateTable of(LatestRates latestRates) {
+        var baseRates = new BaseRates(latestRates);
+        var size = baseRates.codes.length;
+        var ordinals = new short[CurrencyCode.CAPACITY];
+        Arrays.fill(ordinals, (short) -1);
+        var symbolToBaseRates = new BigDecimal[size];
+        for (var i = 0; i < size; i++) {
+            ordinals[baseRates.codes[i].getPacked()] = (short) i;
+            symbolToBaseRates[i] = BigDecimal.ONE.divide(
+                    baseRates.baseToSymbolRates[i], AppConstants.MATH_CONTEXT);
+        }
+        var baseIndex = ordinals[baseRates.baseCode.getPacked()];
+
+        var rates = new BigDecimal[size * size];
+        for (var from = 0; from < size; from++) {
+            for (var to = 0; to < size; to++) {
+                rates[from * size + to] = computeRate(from, to, baseIndex,
+                        baseRates.baseToSymbolRates, symbolToBaseRates);
+            }
+        }
+        return new CrossRateTable(baseRates.codes, ordinals, rates,
+                baseIndex);
+    }
+
+    /**
+     * Compute the table of the given latest rates from this one, which holds
+     * previous rates. When both have the same base currency and hold the same
+     * currencies, in the same order, only the rates from and to the
+     * currencies whose rate relative to the base currency has changed are
+     * computed, the other ones being carried over. The resulting table is
+     * identical to the one computed by {@link #of(LatestRates)}.
+     *
+     * @param latestRates
+     *            the rates relative to the base currency
+     * @return this table if no rate has changed, or the updated table
+     */
+    public CrossRateTable update(LatestRates latestRates) {
+        var baseRates = new BaseRates(latestRates);
+        var size = codes.length;
+        if (baseIndex < 0 || baseRates.codes.length != size
+                || baseRates.baseCode != codes[baseIndex]
+                || !Arrays.equals(baseRates.codes, codes)) {
+            return of(latestRates);
+        }
+
+        // the rate of the base currency relative to itself is never used
+        var changed = new boolean[size];
+        var changedCount = 0;
+        for (var i = 0; i < size; i++) {
+            if (i != baseIndex && !baseRates.baseToSymbolRates[i]
+                    .equals(getRate(baseIndex, i))) {
+                changed[i] = true;
+                changedCount++;
+            }
+        }
+        if (changedCount == 0) {
+            return this;
+        }
+
+        var symbolToBaseRates = new BigDecimal[size];
+        for (var i = 0; i < size; i++) {
+            symbolToBaseRates[i] = changed[i]
+                    ? BigDecimal.ONE.divide(baseRates.baseToSymbolRates[i],
+                            AppConstants.MATH_CONTEXT)
+                    : getRate(i, baseIndex);
+        }
+        var updatedRates = rates.clone();
+        for (var i = 0; i < size; i++) {
+            if (!changed[i]) {
+                continue;
+            }
+            for (var j = 0; j < size; j++) {
+                updatedRates[i * size + j] = computeRate(i, j, baseIndex,
+                        baseRates.baseToSymbolRates, symbolToBaseRates);
+                updatedRates[j * size + i] = computeRate(j, i, baseIndex,
+                        baseRates.baseToSymbolRates, symbolToBaseRates);
+            }
+        }
+        return new CrossRateTable(codes, ordinals, updatedRates, baseIndex);
+    }
+
+    private static BigDecimal computeRate(int from, int to, int baseIndex,
+            BigDecimal[] baseToSymbolRates, BigDecimal[] symbolToBaseRates) {
+        if (from == to) {
+            return BigDecimal.ONE;
+        } else if (from == baseIndex) {
+            return baseToSymbolRates[to];
+        } else if (to == baseIndex) {
+            return symbolToBaseRates[from];
+        }
+        return symbolToBaseRates[from].divide(symbolToBaseRates[to],
+                AppConstants.MATH_CONTEXT);
+    }
+
+    /**
+     * Derive the rate between two currencies from their rates relative to
+     * the base currency, in the same way as the rates of a table computed by
+     * {@link #of(LatestRates)}, so that both yield identical results.
+     *
+     * @param baseToFrom
+     *            the base-to-source rate
+     * @param fromIsBase
+     *            whether the source currency is the base currency
+     * @param baseToTo
+     *            the base-to-target rate
+     * @param toIsBase
+     *            whether the target currency is the base currency
+     * @return the source-to-target conversion rate
+     */
+    public static BigDecimal deriveRate(BigDecimal baseToFrom,
+            boolean fromIsBase, BigDecimal baseToTo, boolean toIsBase) {
+        if (fromIsBase) {
+            return toIsBase ? BigDecimal.ONE : baseToTo;
+        }
+        var fromToBase = BigDecimal.ONE.divide(baseToFrom,
+                AppConstants.MATH_CONTEXT);
+        if (toIsBase) {
+            return fromToBase;
+        }
+        return fromToBase.divide(
+                BigDecimal.ONE.divide(baseToTo, AppConstants.MATH_CONTEXT),
+                AppConstants.MATH_CONTEXT);
+    }
+
+    /**
+     * @param code
+     *            a currency code
+     * @return the ordinal of the currency in this table, or {@code -1} if the
+     *         currency is not part of it
+     */
+    public int indexOf(CurrencyCode code) {
+        return ordinals[code.getPacked()];
+    }
+
+    /**
+     * @return the ordinal of the base currency in this table
+     */
+    public int getBaseIndex() {
+        return baseIndex;
+    }
+
+    /**
+     * @param ordinal
+     *            the ordinal of a currency in this table
+     * @return the code of the currency
+     */
+    public CurrencyCode getCode(int ordinal) {
+        return codes[ordinal];
+    }
+
+    /**
+     * @param from
+     *            the ordinal of the source currency
+     * @param to
+     *            the ordinal of the target currency
+     * @return the source-to-target conversion rate
+     */
+    public BigDecimal getRate(int from, int to) {
+        return rates[from * codes.length + to];
+    }
+
+    /**
+     * @return the number of currencies in this table
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Get the rates of this table in the form a conversion engine converts
+     * with, which are computed once, on the first call, and then kept with the
+     * table. A single engine is in use at a time, and thus a single form.
+     *
+     * @param <T>
+     *            the type of the rates of the engine
+     * @param factory
+     *            computes the rates of the engine from this table
+     * @return the rates of the engine
+     */
+    @SuppressWarnings("unchecked")
+    <T> T getEngineRates(Function<CrossRateTable, T> factory) {
+        var rates = engineRates;
+        if (rates == null) {
+            synchronized (this) {
+                rates = engineRates;
+                if (rates == null) {
+                    rates = factory.apply(this);
+                    engineRates = rates;
+                }
+            }
+        }
+        return (T) rates;
+    }
+
+    /**
+     * @return a rough estimate of the heap space, in bytes, taken by the
+     *         ordinals and rates of this table
+     */
+    public long estimateRatesMemoryBytes() {
+        // The ordinal lookup array, the rates array itself, then each rate:
+        // the BigDecimal object and, for unscaled values that do not fit in a
+        // long, its BigInteger and the backing int array
+        long bytes = 16 + 2L * ordinals.length + 16 + 4L * rates.length;
+        for (var rate : rates) {
+            bytes += 40;
+            var bitLength = rate.unscaledValue().bitLength();
+            if (bitLength > 63) {
+                bytes += 40 + 16 + 4L * ((bitLength + 31) / 32);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * The currencies of some latest rates that can be converted, with their
+     * rates relative to the base currency
+     */
+    private static final class BaseRates {
+
+        private final CurrencyCode baseCode;
+        private final CurrencyCode[] codes;
+        private final BigDecimal[] baseToSymbolRates;
+
+        BaseRates(LatestRates latestRates) {
+            var base = latestRates.getBase();
+            var rates = latestRates.getRates();
+
+            var codeList = new ArrayList<CurrencyCode>(rates.size() + 1);
+            var rateList = new ArrayList<BigDecimal>(rates.size() + 1);
+            for (var entry : rates.entrySet()) {
+                var rate = entry.getValue();
+                if (rate != null && rate.signum() > 0
+                        && CurrencyCode.pack(entry.getKey()) >= 0) {
+                    codeList.add(CurrencyCode.of(entry.getKey()));
+                    rateList.add(rate);
+                }
+            }
+            if (!rates.containsKey(base)) {
+                codeList.add(CurrencyCode.of(base));
+                rateList.add(BigDecimal.ONE);
+            }
+            baseCode = CurrencyCode.of(base);
+            codes = codeList.toArray(new CurrencyCode[0]);
+            baseToSymbolRates = rateList.toArray(new BigDecimal[0]);
+        }
+    }
+
+}
@@ -1,30 +1,84 @@
 package com.tarek.currencyconvertor;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tarek.currencyconvertor.model.ConversionRequest;
 import com.tarek.currencyconvertor.model.ConversionResult;
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.MultiConversionResult;
 
+/**
+ * The conversion endpoints of the blocking Spring MVC stack, which is replaced
+ * by the {@code ReactiveCurrencyController} under the {@code reactive}
+ * profile.
+ */
 @Validated
 @RestController
+@Profile("!reactive")
 public class CurrencyController {
 
+    private static final String ALL_CURRENCIES = "all";
+
     private final CurrencyService currencyService;
+    private final ConversionResponseCache conversionResponseCache;
+    private final BulkConverter bulkConverter;
+    private final RatesSnapshotStore ratesSnapshotStore;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter conversionResultWriter;
 
-    CurrencyController(CurrencyService currencyService) {
+    CurrencyController(CurrencyService currencyService,
+            ConversionResponseCache conversionResponseCache,
+            BulkConverter bulkConverter, RatesSnapshotStore ratesSnapshotStore,
+            ObjectMapper objectMapper) {
         this.currencyService = currencyService;
+        this.conversionResponseCache = conversionResponseCache;
+        this.bulkConverter = bulkConverter;
+        this.ratesSnapshotStore = ratesSnapshotStore;
+        this.objectMapper = objectMapper;
+        this.conversionResultWriter = objectMapper
+                .writerFor(ConversionResult.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     /**
-     * Convert an amount from one currency to another
+     * Convert an amount from one currency to another. A conversion with the
+     * latest rates carries an {@code ETag} tied to the rates and may be cached
+     * until their next refresh, and is answered with
+     * {@code 304 Not Modified} when the {@code If-None-Match} of the request
+     * matches the current rates. Currency codes that the rates do not hold
+     * are rejected before any rates are retrieved, as in
+     * {@link CurrencyService#toCurrencyCode(String)}.
      *
      * @param from
      *            The three-letter currency code of the currency you would like
@@ -34,14 +88,153 @@ public class CurrencyController {
      *            to convert to
      * @param amount
      *            The amount to be converted
+     * @param date
+     *            The optional ISO date ({@code yyyy-MM-dd}) as of which to
+     *            convert the amount, instead of with the latest rates
+     * @param request
+     *            The request, whose {@code If-None-Match} is checked
      * @return the conversion result
      */
     @GetMapping({ "/v1/converter", "/" })
-    public ConversionResult converter(
+    public ResponseEntity<?> converter(
             @RequestParam @Size(min = 3, max = 3) @NotBlank String from,
             @RequestParam @Size(min = 3, max = 3) @NotBlank String to,
+            @RequestParam @DecimalMin("0") BigDecimal amount,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            WebRequest request) {
+        if (date != null) {
+            return ResponseEntity.ok(currencyService.convert(
+                    currencyService.toCurrencyCode(from, date),
+                    currencyService.toCurrencyCode(to, date), amount, date));
+        }
+        return conversionResponseCache.getResponse(
+                currencyService.toCurrencyCode(from),
+                currencyService.toCurrencyCode(to), amount, request);
+    }
+
+    /**
+     * Convert an amount from one currency into several others, against the
+     * same latest rates. A conversion with rates older than the maximum
+     * staleness, as served while the remote API is unavailable, carries their
+     * age in its {@code Age} and a {@code Warning}.
+     *
+     * @param from
+     *            The three-letter currency code of the currency you would like
+     *            to convert from
+     * @param to
+     *            The three-letter currency codes of the currencies you would
+     *            like to convert to, or {@code all} for all of the supported
+     *            currencies
+     * @param amount
+     *            The amount to be converted
+     * @return the converted amounts by target currency
+     */
+    @GetMapping("/v1/converter/multi")
+    public ResponseEntity<MultiConversionResult> multiConverter(
+            @RequestParam @Size(min = 3, max = 3) @NotBlank String from,
+            @RequestParam(defaultValue = ALL_CURRENCIES) List<String> to,
             @RequestParam @DecimalMin("0") BigDecimal amount) {
-        return currencyService.convert(from, to, amount);
+        List<CurrencyCode> toCodes = null;
+        if (!(to.size() == 1 && ALL_CURRENCIES.equalsIgnoreCase(to.get(0)))) {
+            toCodes = new ArrayList<>(to.size());
+            for (var symbol : to) {
+                toCodes.add(currencyService.toCurrencyCode(symbol));
+            }
+        }
+        var fromCode = currencyService.toCurrencyCode(from);
+        var snapshot = ratesSnapshotStore.getSnapshot();
+        return withStaleHeaders(ResponseEntity.ok(), snapshot).body(
+                currencyService.convertToMany(fromCode, toCodes, amount,
+                        snapshot));
+    }
+
+    /**
+     * Convert a batch of amounts, each from one currency to another. All of
+     * the conversions are done against the same rates, and the results are
+     * streamed back as a JSON array in the order of the requests. A request
+     * that cannot be converted yields a result whose {@code success} field is
+     * {@code false} and whose {@code error} field gives the reason. Stale rates
+     * are marked as in {@link #multiConverter(String, List, BigDecimal)}.
+     *
+     * @param requests
+     *            The conversions to be performed
+     * @return the conversion results
+     */
+    @PostMapping("/v1/converter/batch")
+    public ResponseEntity<StreamingResponseBody> batchConverter(
+            @RequestBody List<ConversionRequest> requests) {
+        var batchConversion = currencyService.convertBatch(requests);
+        return withStaleHeaders(ResponseEntity.ok(),
+                batchConversion.getSnapshot())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(out -> writeResults(batchConversion, out));
+    }
+
+    /**
+     * Convert a stream of rows in NDJSON ({@code application/x-ndjson}) or CSV
+     * ({@code text/csv}), as given by the {@code Content-Type} of the request.
+     * The results are written back in the same format while the rows are
+     * still being read, so that inputs of any size can be converted. Stale
+     * rates are marked as in
+     * {@link #multiConverter(String, List, BigDecimal)}.
+     *
+     * @param contentType
+     *            The format of the rows
+     * @param in
+     *            The rows to be converted
+     * @param response
+     *            The response the results are written to
+     * @throws IOException
+     *             thrown if reading the rows or writing the results fails
+     */
+    @PostMapping(value = "/v1/converter/bulk", consumes = {
+            "application/x-ndjson", "text/csv" })
+    public void bulkConverter(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream in, HttpServletResponse response) throws IOException {
+        var format = BulkConverter.Format.of(contentType);
+        var snapshot = ratesSnapshotStore.getSnapshot();
+        response.setContentType(format.getMediaType().toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        var headers = new HttpHeaders();
+        addStaleHeaders(headers, snapshot);
+        headers.forEach((name, values) -> values
+                .forEach(value -> response.addHeader(name, value)));
+        bulkConverter.convert(in, response.getOutputStream(), format,
+                snapshot);
+    }
+
+    private ResponseEntity.BodyBuilder withStaleHeaders(
+            ResponseEntity.BodyBuilder response, RatesSnapshot snapshot) {
+        return response.headers(headers -> addStaleHeaders(headers, snapshot));
+    }
+
+    private void addStaleHeaders(HttpHeaders headers,
+            RatesSnapshot snapshot) {
+        if (snapshot != null && ratesSnapshotStore.isStale(snapshot)) {
+            StaleResponseHeaders.addTo(headers,
+                    ratesSnapshotStore.getAge(snapshot));
+        }
+    }
+
+    private void writeResults(BatchConversion batchConversion,
+            OutputStream out) throws IOException {
+        try (var generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            try {
+                batchConversion.forEachResult(conversionResult -> {
+                    try {
+                        conversionResultWriter.writeValue(generator,
+                                conversionResult);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+        }
     }
 
 }
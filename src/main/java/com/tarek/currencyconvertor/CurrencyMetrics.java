@@ -0,0 +1,161 @@
+package com.tarek.currencyconvertor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Aggregates the timings and counters of the conversions, the retrievals
+ * from the remote API, the updates of the rates and the rejected requests.
+ * Every metric is pre-registered, one per value of its tag, so that recording
+ * one is a lock-free array lookup and counter increment.
+ */
+@Component
+public class CurrencyMetrics {
+
+    /**
+     * The paths a conversion can take
+     */
+    public enum ConversionPath {
+        /** a zero amount, converted without any rate */
+        ZERO_AMOUNT,
+        /** identical source and target currencies */
+        SAME_CURRENCY,
+        /** a conversion from or to the base currency */
+        BASE,
+        /** a conversion between two non-base currencies */
+        CROSS,
+        /** a conversion from one currency into several others */
+        MULTI
+    }
+
+    /**
+     * The outcomes of a retrieval from the remote API
+     */
+    public enum FetchOutcome {
+        /** rates were retrieved */
+        SUCCESS,
+        /** the remote API answered, but reported a failure */
+        UNSUCCESSFUL,
+        /** a connect, read or connection pool timeout */
+        TIMEOUT,
+        /** a response beyond the maximum response size */
+        TOO_LARGE,
+        /** any other error */
+        ERROR
+    }
+
+    /**
+     * The reasons a conversion can be rejected for
+     */
+    public enum RejectionReason {
+        MISSING_ARGUMENT, INVALID_CURRENCY_CODE, UNKNOWN_CURRENCY_CODE,
+        NEGATIVE_AMOUNT, UNSUPPORTED_SOURCE, UNSUPPORTED_TARGET,
+        NO_RATES_FOR_DATE, BATCH_TOO_LARGE
+    }
+
+    private final LatencyHistogram[] conversions = createHistograms(
+            ConversionPath.values().length);
+    private final LatencyHistogram[] upstreamFetches = createHistograms(
+            FetchOutcome.values().length);
+    private final LongAdder[] rejections = new LongAdder[RejectionReason
+            .values().length];
+    private final LongAdder ratesUpdates = new LongAdder();
+    private final LongAdder unchangedRatesUpdates = new LongAdder();
+    private final LongAdder changedCurrencies = new LongAdder();
+    private volatile int lastChangedCurrencies;
+
+    public CurrencyMetrics() {
+        for (var i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    void recordConversion(ConversionPath path, long nanos) {
+        conversions[path.ordinal()].record(nanos);
+    }
+
+    void recordUpstreamFetch(FetchOutcome outcome, long nanos) {
+        upstreamFetches[outcome.ordinal()].record(nanos);
+    }
+
+    void recordRejection(RejectionReason reason) {
+        rejections[reason.ordinal()].increment();
+    }
+
+    void recordRatesUpdate(int changedCurrencies) {
+        ratesUpdates.increment();
+        if (changedCurrencies == 0) {
+            unchangedRatesUpdates.increment();
+        }
+        this.changedCurrencies.add(changedCurrencies);
+        lastChangedCurrencies = changedCurrencies;
+    }
+
+    /**
+     * @param path
+     *            a conversion path
+     * @return the latencies of the conversions that took the path
+     */
+    public LatencyHistogram getConversions(ConversionPath path) {
+        return conversions[path.ordinal()];
+    }
+
+    /**
+     * @param outcome
+     *            a retrieval outcome
+     * @return the latencies of the retrievals with the outcome
+     */
+    public LatencyHistogram getUpstreamFetches(FetchOutcome outcome) {
+        return upstreamFetches[outcome.ordinal()];
+    }
+
+    /**
+     * @param reason
+     *            a rejection reason
+     * @return the number of conversions rejected for the reason
+     */
+    public long getRejections(RejectionReason reason) {
+        return rejections[reason.ordinal()].sum();
+    }
+
+    /**
+     * @return the number of latest rates swapped in as the rates snapshot
+     */
+    public long getRatesUpdates() {
+        return ratesUpdates.sum();
+    }
+
+    /**
+     * @return the number of latest rates identical to the previous ones, for
+     *         which nothing was rebuilt
+     */
+    public long getUnchangedRatesUpdates() {
+        return unchangedRatesUpdates.sum();
+    }
+
+    /**
+     * @return the total number of currencies whose rate was added, removed
+     *         or changed by the latest rates
+     */
+    public long getChangedCurrencies() {
+        return changedCurrencies.sum();
+    }
+
+    /**
+     * @return the number of currencies whose rate was added, removed or
+     *         changed by the last latest rates
+     */
+    public int getLastChangedCurrencies() {
+        return lastChangedCurrencies;
+    }
+
+    private static LatencyHistogram[] createHistograms(int size) {
+        var histograms = new LatencyHistogram[size];
+        for (var i = 0; i < size; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+}
@@ -2,32 +2,48 @@ package com.tarek.currencyconvertor;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.HashSet;
+import java.time.LocalDate;
+import java.util.List;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientResponseException;
-import org.springframework.web.client.RestTemplate;
 
+import com.tarek.currencyconvertor.CurrencyMetrics.ConversionPath;
+import com.tarek.currencyconvertor.CurrencyMetrics.RejectionReason;
+import com.tarek.currencyconvertor.model.ConversionRequest;
 import com.tarek.currencyconvertor.model.ConversionResult;
-import com.tarek.currencyconvertor.model.LatestRates;
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.MultiConversionResult;
 
 @Service
 public class CurrencyService {
 
-    @Autowired
-    private RestTemplate restTemplate;
+    private final RatesSnapshotStore ratesSnapshotStore;
+    private final HistoricalRatesStore historicalRatesStore;
+    private final CurrencyMetrics metrics;
+    private final ConversionEngine conversionEngine;
+    private final int batchMaxSize;
+    private final int batchParallelThreshold;
 
-    private static final Logger log = LoggerFactory
-            .getLogger(CurrencyService.class);
+    CurrencyService(RatesSnapshotStore ratesSnapshotStore,
+            HistoricalRatesStore historicalRatesStore, CurrencyMetrics metrics,
+            ConversionEngine conversionEngine,
+            @Value("${currencyconvertor.batch.max-size:100000}") int batchMaxSize,
+            @Value("${currencyconvertor.batch.parallel-threshold:10000}") int batchParallelThreshold) {
+        this.ratesSnapshotStore = ratesSnapshotStore;
+        this.historicalRatesStore = historicalRatesStore;
+        this.metrics = metrics;
+        this.conversionEngine = conversionEngine;
+        this.batchMaxSize = batchMaxSize;
+        this.batchParallelThreshold = batchParallelThreshold;
+    }
 
     /**
      * Convert an amount from one currency to another. The conversion is done
      * based on the latest data obtained from the Latest Rates Endpoint (v1) of
-     * https://exchangeratesapi.io/.
+     * https://exchangeratesapi.io/, as held by the {@link RatesSnapshotStore}.
      *
      * <p>
      * Note that for most currency-pairs, the conversion results might be
@@ -53,147 +69,575 @@ public class CurrencyService {
      *             object is {@code null}, (2) the retrieval's success field is
      *             set to {@code false}, (3) the retrieval operation throws a
      *             {@link RestClientResponseException}, or (4) the retrieval
-     *             operation throws a {@link ResourceAccessException}.
+     *             operation throws a {@link ResourceAccessException}, or if
+     *             the held rates are older than the configured maximum
+     *             staleness.
+     *
+     * @param from
+     *            The currency code of the currency you would like to convert
+     *            from
+     * @param to
+     *            The currency code of the currency you would like to convert
+     *            to
+     * @param amount
+     *            The amount to be converted
+     *
+     * @return the conversion result
+     */
+    public ConversionResult convert(CurrencyCode from, CurrencyCode to,
+            BigDecimal amount) {
+        return convert(from, to, amount, (RatesSnapshot) null);
+    }
+
+    /**
+     * Convert an amount from one currency to another as of a past date. The
+     * conversion is done based on the rates held by the
+     * {@link HistoricalRatesStore} for that date, or for the closest earlier
+     * date it holds rates for, in the same way as in
+     * {@link #convert(CurrencyCode, CurrencyCode, BigDecimal)}.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if (1) any of the currencies or the amount is
+     *             {@code null}, (2) no rates are held for the given date, (3)
+     *             the {@code from} or {@code to} currencies are not supported
+     *             on that date, or (4) the provided {@code amount} has a value
+     *             less than 0.
      *
      * @param from
-     *            The three-letter currency code of the currency you would like
-     *            to convert from
+     *            The currency code of the currency you would like to convert
+     *            from
      * @param to
-     *            The three-letter currency code of the currency you would like
-     *            to convert to
+     *            The currency code of the currency you would like to convert
+     *            to
      * @param amount
      *            The amount to be converted
+     * @param date
+     *            The date of the rates to convert with, or {@code null} to
+     *            convert with the latest rates
      *
      * @return the conversion result
      */
-    public ConversionResult convert(String from, String to, BigDecimal amount) {
+    public ConversionResult convert(CurrencyCode from, CurrencyCode to,
+            BigDecimal amount, LocalDate date) {
+        if (date == null) {
+            return convert(from, to, amount);
+        }
         var startTime = System.nanoTime();
         checkArgsSyntaticValidity(from, to, amount);
+        var dailyRates = historicalRatesStore.getRates(date).orElse(null);
+        if (dailyRates == null) {
+            metrics.recordRejection(RejectionReason.NO_RATES_FOR_DATE);
+            throw new IllegalArgumentException(
+                    "No rates are available for the requested date");
+        }
         if (amount.compareTo(BigDecimal.ZERO) == 0) {
             return createConversionResult(from, to, amount,
-                    Instant.now().getEpochSecond(), BigDecimal.ONE,
-                    BigDecimal.ZERO, startTime);
+                    dailyRates.getTimestamp(), BigDecimal.ONE,
+                    BigDecimal.ZERO, ConversionPath.ZERO_AMOUNT, startTime);
         }
-        if (from.equals(to)) {
+        if (from == to) {
             return createConversionResult(from, to, amount,
-                    Instant.now().getEpochSecond(), BigDecimal.ONE, amount,
-                    startTime);
+                    dailyRates.getTimestamp(), BigDecimal.ONE, amount,
+                    ConversionPath.SAME_CURRENCY, startTime);
+        }
+
+        var baseToFrom = dailyRates.getRate(from);
+        var baseToTo = dailyRates.getRate(to);
+        checkSymbolsValidity(baseToFrom != null, baseToTo != null);
+
+        var base = dailyRates.getBase();
+        var sourceToTagretRate = CrossRateTable.deriveRate(baseToFrom,
+                from == base, baseToTo, to == base);
+        var result = amount.multiply(sourceToTagretRate,
+                AppConstants.MATH_CONTEXT);
+        return createConversionResult(from, to, amount,
+                dailyRates.getTimestamp(), sourceToTagretRate, result,
+                from == base || to == base ? ConversionPath.BASE
+                        : ConversionPath.CROSS,
+                startTime);
+    }
+
+    /**
+     * Prepare a batch of conversions. The rates snapshot that all of the
+     * conversions of the batch are resolved against is obtained right away,
+     * whereas the conversions themselves are only performed once the results
+     * are consumed through {@link BatchConversion#forEachResult}.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the list of requests is {@code null} or has more
+     *             than the configured maximum number of requests.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if the rates snapshot cannot be obtained, as in
+     *             {@link #convert(CurrencyCode, CurrencyCode, BigDecimal)}.
+     *
+     * @param requests
+     *            The conversions to be performed
+     *
+     * @return the batch of conversions
+     */
+    public BatchConversion convertBatch(List<ConversionRequest> requests) {
+        checkBatchValidity(requests);
+        return createBatch(requests, requests.isEmpty() ? null
+                : ratesSnapshotStore.getSnapshot());
+    }
+
+    /**
+     * Prepare a batch of conversions against the given rates snapshot, in the
+     * same way as in {@link #convertBatch(List)}.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the list of requests is {@code null} or has more
+     *             than the configured maximum number of requests.
+     *
+     * @param requests
+     *            The conversions to be performed
+     * @param snapshot
+     *            The rates snapshot to convert with, which may only be
+     *            {@code null} if there are no requests
+     *
+     * @return the batch of conversions
+     */
+    public BatchConversion convertBatch(List<ConversionRequest> requests,
+            RatesSnapshot snapshot) {
+        checkBatchValidity(requests);
+        return createBatch(requests, snapshot);
+    }
+
+    /**
+     * Check that a list of requests can be converted as a batch, before
+     * obtaining the rates snapshot to convert it with.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the list of requests is {@code null} or has more
+     *             than the configured maximum number of requests.
+     *
+     * @param requests
+     *            The conversions to be performed
+     */
+    public void checkBatchValidity(List<ConversionRequest> requests) {
+        if (requests == null) {
+            metrics.recordRejection(RejectionReason.MISSING_ARGUMENT);
+            throw new IllegalArgumentException(
+                    "The conversion requests cannot be null");
         }
+        if (requests.size() > batchMaxSize) {
+            metrics.recordRejection(RejectionReason.BATCH_TOO_LARGE);
+            throw new IllegalArgumentException(
+                    "The number of conversion requests must not exceed "
+                            + batchMaxSize);
+        }
+    }
 
-        LatestRates latestRates;
+    private BatchConversion createBatch(List<ConversionRequest> requests,
+            RatesSnapshot snapshot) {
+        var parallel = batchParallelThreshold > 0
+                && requests.size() >= batchParallelThreshold;
+        return new BatchConversion(this, requests, snapshot, parallel);
+    }
+
+    ConversionResult convert(ConversionRequest request,
+            RatesSnapshot snapshot) {
+        if (request == null) {
+            metrics.recordRejection(RejectionReason.MISSING_ARGUMENT);
+            return createFailedConversionResult(null,
+                    "The conversion request cannot be null");
+        }
         try {
-            latestRates = getLatestRates();
-        } catch (RestClientResponseException | ResourceAccessException e) {
-            log.error(e.getMessage(), e);
-            throw new LatestRatesRetrievalException(
-                    "An error occured during retreival of latest rates data from remote API");
+            return convert(toCurrencyCode(request.getFrom(), snapshot),
+                    toCurrencyCode(request.getTo(), snapshot),
+                    request.getAmount(), snapshot);
+        } catch (IllegalArgumentException e) {
+            return createFailedConversionResult(request, e.getMessage());
         }
+    }
 
-        checkRatesRetrievalValidity(latestRates);
-        checkSymbolsValidity(latestRates, from, to);
+    /**
+     * Convert an amount from one currency to another against the given rates
+     * snapshot, in the same way as in
+     * {@link #convert(CurrencyCode, CurrencyCode, BigDecimal)}.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if (1) any of the currencies or the amount is
+     *             {@code null}, (2) the {@code from} or {@code to} currencies
+     *             are not supported, or (3) the provided {@code amount} has a
+     *             value less than 0.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if no snapshot is given and the rates snapshot cannot
+     *             be obtained, as in
+     *             {@link #convert(CurrencyCode, CurrencyCode, BigDecimal)}.
+     *
+     * @param from
+     *            The currency code of the currency you would like to convert
+     *            from
+     * @param to
+     *            The currency code of the currency you would like to convert
+     *            to
+     * @param amount
+     *            The amount to be converted
+     * @param snapshot
+     *            The rates snapshot to convert with, or {@code null} to
+     *            obtain the current one from the {@link RatesSnapshotStore}
+     *
+     * @return the conversion result
+     */
+    public ConversionResult convert(CurrencyCode from, CurrencyCode to,
+            BigDecimal amount, RatesSnapshot snapshot) {
+        var startTime = System.nanoTime();
+        checkArgsSyntaticValidity(from, to, amount);
+        if (amount.compareTo(BigDecimal.ZERO) == 0) {
+            return createConversionResult(from, to, amount,
+                    Instant.now().getEpochSecond(), BigDecimal.ONE,
+                    BigDecimal.ZERO, ConversionPath.ZERO_AMOUNT, startTime);
+        }
+        if (from == to) {
+            return createConversionResult(from, to, amount,
+                    Instant.now().getEpochSecond(), BigDecimal.ONE, amount,
+                    ConversionPath.SAME_CURRENCY, startTime);
+        }
 
-        var sourceToTagretRate = getSourceToTargetRate(from, to, latestRates);
-        var result = amount.multiply(sourceToTagretRate,
-                AppConstants.MATH_CONTEXT);
+        if (snapshot == null) {
+            snapshot = ratesSnapshotStore.getSnapshot();
+        }
+        var crossRates = snapshot.getCrossRates();
+        var fromIndex = crossRates.indexOf(from);
+        var toIndex = crossRates.indexOf(to);
+        checkSymbolsValidity(fromIndex >= 0, toIndex >= 0);
+
+        var sourceToTagretRate = crossRates.getRate(fromIndex, toIndex);
+        var result = conversionEngine.convert(crossRates, fromIndex, toIndex,
+                amount);
+        var baseIndex = crossRates.getBaseIndex();
         return createConversionResult(from, to, amount,
-                latestRates.getTimestamp(), sourceToTagretRate, result,
+                snapshot.getLatestRates().getTimestamp(), sourceToTagretRate,
+                result,
+                fromIndex == baseIndex || toIndex == baseIndex
+                        ? ConversionPath.BASE
+                        : ConversionPath.CROSS,
                 startTime);
     }
 
-    private ConversionResult createConversionResult(String from, String to,
-            BigDecimal amount, long timestamp, BigDecimal sourceToTagretRate,
-            BigDecimal result, long startTime) {
-        var conversionResult = new ConversionResult();
+    /**
+     * Check that an amount can be converted from one currency to another
+     * against the given rates snapshot, as in
+     * {@link #convert(CurrencyCode, CurrencyCode, BigDecimal, RatesSnapshot)},
+     * without converting it.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if (1) any of the currencies or the amount is
+     *             {@code null}, (2) the {@code from} or {@code to} currencies
+     *             are not supported, or (3) the provided {@code amount} has a
+     *             value less than 0.
+     *
+     * @param from
+     *            The currency code of the currency you would like to convert
+     *            from
+     * @param to
+     *            The currency code of the currency you would like to convert
+     *            to
+     * @param amount
+     *            The amount to be converted
+     * @param snapshot
+     *            The rates snapshot to convert with
+     */
+    public void checkConversion(CurrencyCode from, CurrencyCode to,
+            BigDecimal amount, RatesSnapshot snapshot) {
+        checkArgsSyntaticValidity(from, to, amount);
+        var crossRates = snapshot.getCrossRates();
+        checkSymbolsValidity(crossRates.indexOf(from) >= 0,
+                crossRates.indexOf(to) >= 0);
+    }
+
+    /**
+     * Convert an amount from one currency into several others, in the same
+     * way as in {@link #convert(CurrencyCode, CurrencyCode, BigDecimal)}. All
+     * of the conversions are done in one pass against the same rates
+     * snapshot, in which the source currency is resolved only once.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if (1) the {@code from} currency or the amount is
+     *             {@code null}, (2) the {@code from} currency or any of the
+     *             {@code to} currencies are not supported, or (3) the provided
+     *             {@code amount} has a value less than 0.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if the rates snapshot cannot be obtained, as in
+     *             {@link #convert(CurrencyCode, CurrencyCode, BigDecimal)}.
+     *
+     * @param from
+     *            The currency code of the currency you would like to convert
+     *            from
+     * @param to
+     *            The currency codes of the currencies you would like to
+     *            convert to, or {@code null} to convert to all of the
+     *            supported currencies
+     * @param amount
+     *            The amount to be converted
+     *
+     * @return the conversion result, holding the converted amounts in the
+     *         order of the target currencies
+     */
+    public MultiConversionResult convertToMany(CurrencyCode from,
+            List<CurrencyCode> to, BigDecimal amount) {
+        return convertToMany(from, to, amount, null);
+    }
+
+    /**
+     * Convert an amount from one currency into several others against the
+     * given rates snapshot, in the same way as in
+     * {@link #convertToMany(CurrencyCode, List, BigDecimal)}.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if (1) the {@code from} currency or the amount is
+     *             {@code null}, (2) the {@code from} currency or any of the
+     *             {@code to} currencies are not supported, or (3) the provided
+     *             {@code amount} has a value less than 0.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if no snapshot is given and the rates snapshot cannot
+     *             be obtained, as in
+     *             {@link #convert(CurrencyCode, CurrencyCode, BigDecimal)}.
+     *
+     * @param from
+     *            The currency code of the currency you would like to convert
+     *            from
+     * @param to
+     *            The currency codes of the currencies you would like to
+     *            convert to, or {@code null} to convert to all of the
+     *            supported currencies
+     * @param amount
+     *            The amount to be converted
+     * @param snapshot
+     *            The rates snapshot to convert with, or {@code null} to
+     *            obtain the current one from the {@link RatesSnapshotStore}
+     *
+     * @return the conversion result, holding the converted amounts in the
+     *         order of the target currencies
+     */
+    public MultiConversionResult convertToMany(CurrencyCode from,
+            List<CurrencyCode> to, BigDecimal amount,
+            RatesSnapshot snapshot) {
+        var startTime = System.nanoTime();
+        if (from == null) {
+            metrics.recordRejection(RejectionReason.MISSING_ARGUMENT);
+            throw new IllegalArgumentException(
+                    "The source currecny cannot be null");
+        }
+        checkAmountValidity(amount);
+
+        if (snapshot == null) {
+            snapshot = ratesSnapshotStore.getSnapshot();
+        }
+        var crossRates = snapshot.getCrossRates();
+        var fromIndex = crossRates.indexOf(from);
+        checkSymbolsValidity(fromIndex >= 0, true);
+        var targets = to == null ? crossRates.size() : to.size();
+        var toIndexes = new int[targets];
+        for (var i = 0; i < targets; i++) {
+            toIndexes[i] = to == null ? i : crossRates.indexOf(to.get(i));
+            checkSymbolsValidity(true, toIndexes[i] >= 0);
+        }
+
+        var conversionResult = new MultiConversionResult();
         conversionResult.setSuccess(true);
-        conversionResult.setFrom(from);
-        conversionResult.setTo(to);
+        conversionResult.setFrom(from.getSymbol());
         conversionResult.setAmount(amount);
-        conversionResult.setRate(sourceToTagretRate);
-        conversionResult.setResult(result);
-        conversionResult.setTimestamp(timestamp);
-        conversionResult
-                .setExecutionTime((System.nanoTime() - startTime) / 1000000);
+        conversionResult.setTimestamp(
+                snapshot.getLatestRates().getTimestamp());
+        var zeroAmount = amount.compareTo(BigDecimal.ZERO) == 0;
+        for (var toIndex : toIndexes) {
+            BigDecimal result;
+            if (zeroAmount) {
+                result = BigDecimal.ZERO;
+            } else if (toIndex == fromIndex) {
+                result = amount;
+            } else {
+                result = conversionEngine.convert(crossRates, fromIndex,
+                        toIndex, amount);
+            }
+            conversionResult.putResult(crossRates.getCode(toIndex).getSymbol(),
+                    result);
+        }
+        var elapsedNanos = System.nanoTime() - startTime;
+        conversionResult.setExecutionTime(elapsedNanos / 1000000);
+        metrics.recordConversion(ConversionPath.MULTI, elapsedNanos);
         return conversionResult;
     }
 
-    private LatestRates getLatestRates() {
-        return restTemplate.getForObject(
-                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
-                LatestRates.class);
+    /**
+     * Resolve a three-letter currency code against the symbols of the current
+     * rates snapshot, counting invalid and unknown codes as rejected
+     * conversions. The held snapshot is used whatever its age, so that an
+     * unknown code is rejected without retrieving the latest rates, which are
+     * only retrieved if no snapshot has been loaded yet.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the given symbol is not a valid three-letter
+     *             currency code, or is not one of the currencies of the
+     *             current rates snapshot
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if no snapshot has been loaded yet and the rates
+     *             snapshot cannot be obtained, as in
+     *             {@link #convert(CurrencyCode, CurrencyCode, BigDecimal)}.
+     *
+     * @param symbol
+     *            the three-letter currency code
+     * @return the interned currency code
+     */
+    public CurrencyCode toCurrencyCode(String symbol) {
+        var code = lookupCurrencyCode(symbol);
+        var snapshot = ratesSnapshotStore.getLoadedSnapshot();
+        if (snapshot == null) {
+            snapshot = ratesSnapshotStore.getSnapshot();
+        }
+        return checkCurrencyCode(symbol, code,
+                code != null && snapshot.getCrossRates().indexOf(code) >= 0);
     }
 
-    private BigDecimal getSourceToTargetRate(String from, String to,
-            LatestRates latestRates) {
-        if (from.equals(latestRates.getBase())) {
-            return latestRates.getRates().get(to);
-        }
-        if (to.equals(latestRates.getBase())) {
-            return BigDecimal.ONE.divide(latestRates.getRates().get(from),
-                    AppConstants.MATH_CONTEXT);
+    /**
+     * Resolve a three-letter currency code against the symbols of the given
+     * rates snapshot, in the same way as in {@link #toCurrencyCode(String)}.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the given symbol is not a valid three-letter
+     *             currency code, or is not one of the currencies of the
+     *             snapshot
+     *
+     * @param symbol
+     *            the three-letter currency code
+     * @param snapshot
+     *            the rates snapshot to resolve the code against
+     * @return the interned currency code
+     */
+    public CurrencyCode toCurrencyCode(String symbol, RatesSnapshot snapshot) {
+        var code = lookupCurrencyCode(symbol);
+        return checkCurrencyCode(symbol, code,
+                code != null && snapshot.getCrossRates().indexOf(code) >= 0);
+    }
+
+    /**
+     * Resolve a three-letter currency code against the symbols of the rates
+     * held for a past date, in the same way as in
+     * {@link #toCurrencyCode(String)}.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if (1) the given symbol is not a valid three-letter
+     *             currency code, (2) no rates are held for the given date, or
+     *             (3) the code is not one of the currencies of the rates of
+     *             that date
+     *
+     * @param symbol
+     *            the three-letter currency code
+     * @param date
+     *            the date of the rates to resolve the code against
+     * @return the interned currency code
+     */
+    public CurrencyCode toCurrencyCode(String symbol, LocalDate date) {
+        lookupCurrencyCode(symbol);
+        var dailyRates = historicalRatesStore.getRates(date).orElse(null);
+        if (dailyRates == null) {
+            metrics.recordRejection(RejectionReason.NO_RATES_FOR_DATE);
+            throw new IllegalArgumentException(
+                    "No rates are available for the requested date");
         }
+        var packed = CurrencyCode.pack(symbol);
+        var supported = dailyRates.hasRate(packed)
+                || dailyRates.getBase().getPacked() == packed;
+        // the rates of the date may hold currencies that the current ones
+        // do not, and that are thus interned only now
+        return checkCurrencyCode(symbol,
+                supported ? CurrencyCode.of(symbol) : null, supported);
+    }
 
-        // At this point, neither of the two previous conditions is met. This
-        // means that the base currency is neither the source nor the target of
-        // the conversion.
+    private CurrencyCode lookupCurrencyCode(String symbol) {
+        try {
+            return CurrencyCode.lookup(symbol);
+        } catch (IllegalArgumentException e) {
+            metrics.recordRejection(RejectionReason.INVALID_CURRENCY_CODE);
+            throw e;
+        }
+    }
 
-        // To proceed, get the source-to-base conversion rate
-        var sourceToBaseRate = BigDecimal.ONE.divide(
-                latestRates.getRates().get(from), AppConstants.MATH_CONTEXT);
+    private CurrencyCode checkCurrencyCode(String symbol, CurrencyCode code,
+            boolean supported) {
+        if (!supported) {
+            metrics.recordRejection(RejectionReason.UNKNOWN_CURRENCY_CODE);
+            throw new IllegalArgumentException(
+                    "The currecny " + symbol + " is not supported");
+        }
+        return code;
+    }
 
-        // And the target-to-base conversion rate
-        var targetToBaseRate = BigDecimal.ONE.divide(
-                latestRates.getRates().get(to), AppConstants.MATH_CONTEXT);
+    private ConversionResult createConversionResult(CurrencyCode from,
+            CurrencyCode to, BigDecimal amount, long timestamp,
+            BigDecimal sourceToTagretRate, BigDecimal result,
+            ConversionPath path, long startTime) {
+        var conversionResult = new ConversionResult();
+        conversionResult.setSuccess(true);
+        conversionResult.setFrom(from.getSymbol());
+        conversionResult.setTo(to.getSymbol());
+        conversionResult.setAmount(amount);
+        conversionResult.setRate(sourceToTagretRate);
+        conversionResult.setResult(result);
+        conversionResult.setTimestamp(timestamp);
+        var elapsedNanos = System.nanoTime() - startTime;
+        conversionResult.setExecutionTime(elapsedNanos / 1000000);
+        metrics.recordConversion(path, elapsedNanos);
+        return conversionResult;
+    }
 
-        // The latter two variables are thus used to calculate the
-        // source-to-target rate
-        return sourceToBaseRate.divide(targetToBaseRate,
-                AppConstants.MATH_CONTEXT);
+    static ConversionResult createFailedConversionResult(
+            ConversionRequest request, String error) {
+        var conversionResult = new ConversionResult();
+        conversionResult.setSuccess(false);
+        if (request != null) {
+            conversionResult.setFrom(request.getFrom());
+            conversionResult.setTo(request.getTo());
+            conversionResult.setAmount(request.getAmount());
+        }
+        conversionResult.setError(error);
+        return conversionResult;
     }
 
-    private void checkArgsSyntaticValidity(String from, String to,
+    private void checkArgsSyntaticValidity(CurrencyCode from, CurrencyCode to,
             BigDecimal amount) {
         if (from == null) {
+            metrics.recordRejection(RejectionReason.MISSING_ARGUMENT);
             throw new IllegalArgumentException(
                     "The source currecny cannot be null");
         }
         if (to == null) {
+            metrics.recordRejection(RejectionReason.MISSING_ARGUMENT);
             throw new IllegalArgumentException(
                     "The target currecny cannot be null");
         }
+        checkAmountValidity(amount);
+    }
+
+    private void checkAmountValidity(BigDecimal amount) {
         if (amount == null) {
+            metrics.recordRejection(RejectionReason.MISSING_ARGUMENT);
             throw new IllegalArgumentException(
                     "The conversion amount cannot be null");
         }
         if (amount.compareTo(BigDecimal.ZERO) < 0) {
+            metrics.recordRejection(RejectionReason.NEGATIVE_AMOUNT);
             throw new IllegalArgumentException(
                     "The conversion amount must be greater than or equal zero");
         }
     }
 
-    private void checkRatesRetrievalValidity(LatestRates latestRates) {
-        if (latestRates == null) {
-            var errorMsg = "The retrieved latest rates object from remote API was null";
-            log.error(errorMsg);
-            throw new LatestRatesRetrievalException(errorMsg);
-        }
-        if (!latestRates.isSuccess()) {
-            var errorMsg = "Remote API reports that the latest rates retrieval was unsuccessful";
-            log.error(errorMsg);
-            throw new LatestRatesRetrievalException(errorMsg);
-        }
-
-    }
-
-    private void checkSymbolsValidity(LatestRates latestRates, String from,
-            String to) {
-        var supportedSymbols = new HashSet<>(latestRates.getRates().keySet());
-        supportedSymbols.add(latestRates.getBase());
-
-        if (!supportedSymbols.contains(from)) {
+    private void checkSymbolsValidity(boolean fromSupported,
+            boolean toSupported) {
+        if (!fromSupported) {
+            metrics.recordRejection(RejectionReason.UNSUPPORTED_SOURCE);
             throw new IllegalArgumentException(
                     "The source currecny is not supported");
         }
-        if (!supportedSymbols.contains(to)) {
+        if (!toSupported) {
+            metrics.recordRejection(RejectionReason.UNSUPPORTED_TARGET);
             throw new IllegalArgumentException(
                     "The target currecny is not supported");
         }
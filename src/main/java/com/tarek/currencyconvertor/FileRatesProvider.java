@@ -0,0 +1,50 @@
+package com.tarek.currencyconvertor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * Reads the latest rates from a local JSON file in the format of the Latest
+ * Rates Endpoint (v1) of https://exchangeratesapi.io/, e.g. one kept up to
+ * date by another process, or a fixed fallback
+ */
+public class FileRatesProvider implements RatesProvider {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(FileRatesProvider.class);
+
+    private final String name;
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileRatesProvider(String name, Path path,
+            ObjectMapper objectMapper) {
+        this.name = name;
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public LatestRates fetchLatestRates() {
+        try {
+            return objectMapper.readValue(path.toFile(), LatestRates.class);
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            throw new LatestRatesRetrievalException(
+                    "An error occured during retreival of latest rates data from file "
+                            + path);
+        }
+    }
+
+}
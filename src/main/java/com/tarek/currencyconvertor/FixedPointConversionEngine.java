@@ -0,0 +1,181 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts amounts with scaled {@code long} arithmetic instead of
+ * {@link BigDecimal} arithmetic, and produces the exact same results as the
+ * {@link BigDecimalConversionEngine} once rounded.
+ *
+ * <p>
+ * Each rate of a table is truncated to an 18-digit mantissa, held as two
+ * 9-digit limbs so that multiplying them with an amount of up to 9 digits
+ * cannot overflow. The product is then rounded to
+ * {@link AppConstants#BIGDECIMAL_SCALE} with {@link RoundingMode#HALF_UP}.
+ * As the mantissa can be short of the actual rate by less than one unit of
+ * its last digit, the product can be short of the exact one by less than the
+ * amount, in the same units. When that error could change the rounded
+ * result, i.e. the product is that close to a rounding boundary, or when the
+ * amount or scales are too large for the limbs, the conversion falls back to
+ * the {@link BigDecimalConversionEngine}. In practice, results of up to 16
+ * significant digits seldom fall back, while longer ones mostly do.
+ *
+ * <p>
+ * The mantissas of a table are computed on the first conversion against it,
+ * and kept with the table for as long as it is in use, so that they are
+ * computed once per rates snapshot. A conversion then only allocates the
+ * {@code BigInteger} of the unscaled amount, and the result itself.
+ */
+@Component
+@ConditionalOnProperty(name = "currencyconvertor.conversion.engine", havingValue = "fixed-point")
+public class FixedPointConversionEngine implements ConversionEngine {
+
+    private static final int MANTISSA_DIGITS = 18;
+    private static final int LIMB_DIGITS = 9;
+    private static final long LIMB = 1000000000L;
+    private static final long MAX_AMOUNT = Long.MAX_VALUE / LIMB;
+    private static final MathContext MANTISSA_CONTEXT = new MathContext(
+            MANTISSA_DIGITS, RoundingMode.DOWN);
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (var i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final BigDecimalConversionEngine fallback = new BigDecimalConversionEngine();
+    private final LongAdder fallbacks = new LongAdder();
+
+    @Override
+    public BigDecimal convert(CrossRateTable crossRates, int from, int to,
+            BigDecimal amount) {
+        var rates = crossRates.getEngineRates(FixedRates::new);
+        var cell = from * crossRates.size() + to;
+        var result = convert(rates.high[cell], rates.low[cell],
+                rates.scales[cell], rates.exact[cell], amount);
+        if (result == Long.MIN_VALUE) {
+            fallbacks.increment();
+            return fallback.convert(crossRates, from, to, amount);
+        }
+        return BigDecimal.valueOf(result, AppConstants.BIGDECIMAL_SCALE);
+    }
+
+    /**
+     * @return the number of conversions that fell back to {@link BigDecimal}
+     *         arithmetic
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * @return the unscaled value of the rounded result, or
+     *         {@link Long#MIN_VALUE} if it cannot be computed exactly
+     */
+    private static long convert(int high, int low, int rateScale,
+            boolean exact, BigDecimal amount) {
+        if (amount.precision() > MANTISSA_DIGITS) {
+            return Long.MIN_VALUE;
+        }
+        var unscaledAmount = amount.unscaledValue().longValue();
+        // the number of digits of the product below the result's scale
+        var dropped = amount.scale() + rateScale
+                - AppConstants.BIGDECIMAL_SCALE;
+        if (unscaledAmount > MAX_AMOUNT || dropped < 1
+                || dropped - LIMB_DIGITS >= POWERS_OF_TEN.length) {
+            return Long.MIN_VALUE;
+        }
+
+        // product = highProduct * LIMB + lowProduct, and the exact product
+        // lies in [product, product + unscaledAmount) unless the rate is
+        // exact; either end of that range must round the same way, with a
+        // margin for the precision the reference engine rounds to
+        var highProduct = unscaledAmount * high;
+        var lowProduct = unscaledAmount * low;
+        if (dropped <= LIMB_DIGITS) {
+            var multiplier = POWERS_OF_TEN[LIMB_DIGITS - dropped];
+            var divisor = POWERS_OF_TEN[dropped];
+            var lowQuotient = lowProduct / divisor;
+            if (highProduct > (Long.MAX_VALUE - lowQuotient) / multiplier) {
+                return Long.MIN_VALUE;
+            }
+            var quotient = highProduct * multiplier + lowQuotient;
+            var remainder = lowProduct % divisor;
+            var half = divisor / 2;
+            if (exact) {
+                return remainder >= half ? quotient + 1 : quotient;
+            }
+            if (remainder + unscaledAmount < half) {
+                return quotient;
+            }
+            if (remainder >= half && remainder + unscaledAmount <= divisor) {
+                return quotient + 1;
+            }
+            return Long.MIN_VALUE;
+        }
+
+        // the remainder does not fit in a long, and is thus kept in two
+        // limbs as well
+        var divisor = POWERS_OF_TEN[dropped - LIMB_DIGITS];
+        var upper = highProduct + lowProduct / LIMB;
+        var quotient = upper / divisor;
+        var upperRemainder = upper % divisor;
+        var halfUpper = divisor / 2;
+        if (exact) {
+            return upperRemainder >= halfUpper ? quotient + 1 : quotient;
+        }
+        var lowEnd = lowProduct % LIMB + unscaledAmount;
+        var upperEnd = upperRemainder + lowEnd / LIMB;
+        if (upperEnd < halfUpper) {
+            return quotient;
+        }
+        if (upperRemainder >= halfUpper && (upperEnd < divisor
+                || upperEnd == divisor && lowEnd % LIMB == 0)) {
+            return quotient + 1;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * The rates of a cross-rate table, each as an 18-digit mantissa split in
+     * two limbs, and a scale
+     */
+    private static final class FixedRates {
+
+        private final int[] high;
+        private final int[] low;
+        private final int[] scales;
+        private final boolean[] exact;
+
+        FixedRates(CrossRateTable crossRates) {
+            var size = crossRates.size();
+            high = new int[size * size];
+            low = new int[size * size];
+            scales = new int[size * size];
+            exact = new boolean[size * size];
+            for (var from = 0; from < size; from++) {
+                for (var to = 0; to < size; to++) {
+                    var cell = from * size + to;
+                    var rate = crossRates.getRate(from, to);
+                    var truncated = rate.round(MANTISSA_CONTEXT);
+                    var padding = MANTISSA_DIGITS - truncated.precision();
+                    var mantissa = truncated.unscaledValue().longValueExact()
+                            * POWERS_OF_TEN[padding];
+                    high[cell] = (int) (mantissa / LIMB);
+                    low[cell] = (int) (mantissa % LIMB);
+                    scales[cell] = truncated.scale() + padding;
+                    exact[cell] = truncated.compareTo(rate) == 0;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,388 @@
+package com.tarek.currencyconvertor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * Retrieves the latest rates from several sources, which are tried in order
+ * of priority, and returns the first valid rates any of them answers with.
+ *
+ * <p>
+ * A retrieval starts with the source of highest priority. The next source is
+ * started as soon as a started one fails or exceeds its own timeout, or,
+ * as a hedge, when none of the started ones has answered within the hedge
+ * delay, in which case the slow source keeps running alongside. The other
+ * retrievals in flight are cancelled once one of them wins.
+ *
+ * <p>
+ * The outcomes and latencies of the retrievals are kept per source, along
+ * with the time taken by the retrievals that a source other than the one of
+ * highest priority won.
+ */
+public class HedgedRatesProvider implements RatesProvider, AutoCloseable {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(HedgedRatesProvider.class);
+
+    /**
+     * A source of the latest rates, with its priority and timeout
+     */
+    public static final class Source {
+
+        private final RatesProvider provider;
+        private final int priority;
+        private final Duration timeout;
+
+        /**
+         * @param provider
+         *            the source
+         * @param priority
+         *            the priority of the source, the lowest value being tried
+         *            first
+         * @param timeout
+         *            the time after which a retrieval from the source is
+         *            abandoned, when other sources can take over
+         */
+        public Source(RatesProvider provider, int priority, Duration timeout) {
+            this.provider = provider;
+            this.priority = priority;
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * The counters and latencies of the retrievals from a source
+     */
+    public static final class SourceStats {
+
+        private final String name;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder wins = new LongAdder();
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        SourceStats(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of retrievals started from the source
+         */
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        /**
+         * @return the number of retrievals that returned valid rates
+         */
+        public long getSuccesses() {
+            return successes.sum();
+        }
+
+        /**
+         * @return the number of retrievals that failed or returned invalid
+         *         rates
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * @return the number of retrievals abandoned after the timeout of the
+         *         source
+         */
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+
+        /**
+         * @return the number of retrievals whose rates were the ones returned
+         */
+        public long getWins() {
+            return wins.sum();
+        }
+
+        /**
+         * @return the share of the completed retrievals that returned valid
+         *         rates, or 0 if none has completed
+         */
+        public double getSuccessRate() {
+            var successes = getSuccesses();
+            var completed = successes + getFailures() + getTimeouts();
+            return completed == 0 ? 0 : (double) successes / completed;
+        }
+
+        /**
+         * @return the latencies of the retrievals that returned valid rates
+         */
+        public LatencyHistogram getLatencies() {
+            return latencies;
+        }
+    }
+
+    private final RatesProvider[] providers;
+    private final long[] timeoutNanos;
+    private final SourceStats[] stats;
+    private final long hedgeDelayNanos;
+    private final LatencyHistogram failovers = new LatencyHistogram();
+    private final ExecutorService executor;
+
+    /**
+     * @param sources
+     *            the sources of the latest rates, in any order
+     * @param hedgeDelay
+     *            the time after which the next source is started if none of
+     *            the started ones has answered
+     */
+    public HedgedRatesProvider(List<Source> sources, Duration hedgeDelay) {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "At least one source of the latest rates is required");
+        }
+        var sorted = new ArrayList<>(sources);
+        sorted.sort(Comparator.comparingInt(source -> source.priority));
+        providers = new RatesProvider[sorted.size()];
+        timeoutNanos = new long[sorted.size()];
+        stats = new SourceStats[sorted.size()];
+        for (var i = 0; i < sorted.size(); i++) {
+            providers[i] = sorted.get(i).provider;
+            timeoutNanos[i] = sorted.get(i).timeout.toNanos();
+            stats[i] = new SourceStats(providers[i].getName());
+        }
+        hedgeDelayNanos = hedgeDelay.toNanos();
+        var threadFactory = new CustomizableThreadFactory("rates-source-");
+        threadFactory.setDaemon(true);
+        // a single source is retrieved from on the calling thread
+        executor = providers.length > 1
+                ? Executors.newCachedThreadPool(threadFactory)
+                : null;
+    }
+
+    @Override
+    public String getName() {
+        return providers.length > 1 ? "hedged" : providers[0].getName();
+    }
+
+    /**
+     * @return the counters and latencies of the retrievals of each source, in
+     *         order of priority
+     */
+    public List<SourceStats> getSourceStats() {
+        return List.of(stats);
+    }
+
+    /**
+     * @return the time taken by the retrievals that a source other than the
+     *         one of highest priority won, from their start
+     */
+    public LatencyHistogram getFailovers() {
+        return failovers;
+    }
+
+    @Override
+    public LatestRates fetchLatestRates() {
+        if (executor == null) {
+            var attempt = new Attempt(0);
+            attempt.run();
+            record(attempt);
+            if (attempt.failure != null) {
+                throw attempt.failure;
+            }
+            if (isValid(attempt.latestRates)) {
+                stats[0].wins.increment();
+            }
+            return attempt.latestRates;
+        }
+
+        var startTime = System.nanoTime();
+        var completionService = new ExecutorCompletionService<Attempt>(
+                executor);
+        var futures = new ArrayList<Future<Attempt>>(providers.length);
+        var deadlines = new long[providers.length];
+        var pending = 0;
+        var nextHedgeAt = 0L;
+        LatestRates invalidRates = null;
+        LatestRatesRetrievalException failure = null;
+        try {
+            while (pending > 0 || futures.size() < providers.length) {
+                var now = System.nanoTime();
+                if (futures.size() < providers.length
+                        && (pending == 0 || now - nextHedgeAt >= 0)) {
+                    var index = futures.size();
+                    var attempt = new Attempt(index);
+                    stats[index].requests.increment();
+                    futures.add(completionService.submit(attempt, attempt));
+                    deadlines[index] = now + timeoutNanos[index];
+                    nextHedgeAt = now + hedgeDelayNanos;
+                    pending++;
+                    if (index > 0) {
+                        log.info("Retrieving the latest rates from {}",
+                                providers[index].getName());
+                    }
+                }
+
+                // wait for an answer until the next hedge or timeout
+                now = System.nanoTime();
+                var wait = futures.size() < providers.length
+                        ? nextHedgeAt - now
+                        : Long.MAX_VALUE;
+                for (var i = 0; i < futures.size(); i++) {
+                    if (!futures.get(i).isDone()) {
+                        wait = Math.min(wait, deadlines[i] - now);
+                    }
+                }
+                var done = completionService.poll(Math.max(0, wait),
+                        TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    var abandoned = abandonTimedOut(futures, deadlines);
+                    if (abandoned > 0) {
+                        pending -= abandoned;
+                        failure = timeoutFailure();
+                        nextHedgeAt = System.nanoTime();
+                    }
+                    continue;
+                }
+                if (done.isCancelled()) {
+                    // already counted as timed out
+                    continue;
+                }
+
+                pending--;
+                var attempt = done.get();
+                recordCompleted(attempt);
+                if (attempt.failure != null) {
+                    failure = attempt.failure;
+                    nextHedgeAt = System.nanoTime();
+                } else if (!isValid(attempt.latestRates)) {
+                    invalidRates = attempt.latestRates;
+                    nextHedgeAt = System.nanoTime();
+                } else {
+                    stats[attempt.index].wins.increment();
+                    if (attempt.index > 0) {
+                        failovers.record(System.nanoTime() - startTime);
+                    }
+                    return attempt.latestRates;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LatestRatesRetrievalException(
+                    "Interrupted during retreival of latest rates data", e);
+        } catch (ExecutionException e) {
+            // an attempt never throws
+            throw new IllegalStateException(e);
+        } finally {
+            for (var future : futures) {
+                future.cancel(true);
+            }
+        }
+        // a source that answered is reported over ones that did not
+        if (invalidRates != null || failure == null) {
+            return invalidRates;
+        }
+        throw failure;
+    }
+
+    private int abandonTimedOut(List<Future<Attempt>> futures,
+            long[] deadlines) {
+        var now = System.nanoTime();
+        var abandoned = 0;
+        for (var i = 0; i < futures.size(); i++) {
+            var future = futures.get(i);
+            if (!future.isDone() && now - deadlines[i] >= 0
+                    && future.cancel(true)) {
+                stats[i].timeouts.increment();
+                log.warn("Abandoned the retrieval of the latest rates from {}"
+                        + " after its timeout", providers[i].getName());
+                abandoned++;
+            }
+        }
+        return abandoned;
+    }
+
+    private static LatestRatesRetrievalException timeoutFailure() {
+        return new LatestRatesRetrievalException(
+                "Timed out during retreival of latest rates data from remote API",
+                new TimeoutException());
+    }
+
+    private void record(Attempt attempt) {
+        stats[attempt.index].requests.increment();
+        recordCompleted(attempt);
+    }
+
+    private void recordCompleted(Attempt attempt) {
+        var sourceStats = stats[attempt.index];
+        if (attempt.failure == null && isValid(attempt.latestRates)) {
+            sourceStats.successes.increment();
+            sourceStats.latencies.record(attempt.elapsedNanos);
+        } else {
+            sourceStats.failures.increment();
+        }
+    }
+
+    private static boolean isValid(LatestRates latestRates) {
+        return latestRates != null && latestRates.isSuccess();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A retrieval from one of the sources, which never throws
+     */
+    private final class Attempt implements Runnable {
+
+        private final int index;
+        private LatestRates latestRates;
+        private LatestRatesRetrievalException failure;
+        private long elapsedNanos;
+
+        Attempt(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            var startTime = System.nanoTime();
+            try {
+                latestRates = providers[index].fetchLatestRates();
+            } catch (LatestRatesRetrievalException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                log.error(e.getMessage(), e);
+                failure = new LatestRatesRetrievalException(
+                        "An error occured during retreival of latest rates data from remote API",
+                        e);
+            }
+            elapsedNanos = System.nanoTime() - startTime;
+        }
+    }
+
+}
@@ -0,0 +1,502 @@
+package com.tarek.currencyconvertor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * An append-only local store of the daily rates, used to convert amounts as
+ * of a past date without calling the remote API.
+ *
+ * <p>
+ * Every snapshot loaded by the {@link RatesSnapshotStore} is appended as a
+ * length-prefixed record to the file of its year, {@code rates-YYYY.bin}, in
+ * the configured directory. A record that was only partly written, e.g.
+ * because of a crash, is ignored and overwritten by the next one. The
+ * snapshots loaded during a day replace its record rather than being appended
+ * after it, so that each file holds a single record per day; should a date
+ * still be recorded more than once, e.g. when an earlier date is recorded
+ * again, its last record wins.
+ *
+ * <p>
+ * Years are loaded lazily, on the first lookup of one of their dates, into a
+ * columnar layout: one column per currency holding the unscaled value and
+ * scale of its rate for each day of the year. Only the most recently used
+ * years are held in memory, so that the memory used stays bounded however
+ * many years the store holds. The store is disabled when no directory is
+ * configured.
+ */
+@Component
+public class HistoricalRatesStore {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(HistoricalRatesStore.class);
+
+    /**
+     * The number of days before a requested date that are searched for rates
+     * when none were recorded on the date itself, e.g. on weekends and bank
+     * holidays
+     */
+    static final int MAX_LOOKBACK_DAYS = 7;
+
+    private static final int DAYS_PER_YEAR = 366;
+
+    private final Path directory;
+    private final Map<Integer, YearRates> years;
+    // a lock rather than a monitor, as files are read and written while
+    // holding it, which would pin a virtual thread to its carrier
+    private final ReentrantLock yearsLock = new ReentrantLock();
+
+    @Autowired
+    public HistoricalRatesStore(
+            @Value("${currencyconvertor.history.directory:}") String directory,
+            @Value("${currencyconvertor.history.max-cached-years:3}") int maxCachedYears) {
+        this(StringUtils.hasText(directory) ? Path.of(directory) : null,
+                maxCachedYears);
+    }
+
+    HistoricalRatesStore(Path directory, int maxCachedYears) {
+        this.directory = directory;
+        this.years = new LinkedHashMap<>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Integer, YearRates> eldest) {
+                return size() > maxCachedYears;
+            }
+        };
+    }
+
+    /**
+     * @return true if a directory is configured to store the daily rates in
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    @EventListener
+    void onSnapshotLoaded(RatesSnapshotLoadedEvent event) {
+        record(event.getSnapshot().getLatestRates());
+    }
+
+    /**
+     * Record the given rates as the rates of their date, which defaults to
+     * the UTC date of their timestamp. Any failure to record them is logged.
+     *
+     * @param latestRates
+     *            the rates to record
+     */
+    public void record(LatestRates latestRates) {
+        if (directory == null) {
+            return;
+        }
+        var date = latestRates.getDate();
+        if (date == null) {
+            date = LocalDate.ofEpochDay(Math.floorDiv(
+                    latestRates.getTimestamp(), 24 * 60 * 60));
+        }
+        var base = CurrencyCode.pack(latestRates.getBase());
+        if (base < 0) {
+            log.warn("Not recording rates of {} with invalid base {}", date,
+                    latestRates.getBase());
+            return;
+        }
+        var rates = new LinkedHashMap<Integer, BigDecimal>();
+        for (var entry : latestRates.getRates().entrySet()) {
+            var packed = CurrencyCode.pack(entry.getKey());
+            var rate = entry.getValue();
+            if (packed >= 0 && rate != null && rate.signum() > 0) {
+                rates.put(packed, rate);
+            }
+        }
+
+        yearsLock.lock();
+        try {
+            var yearRates = getYearRates(date.getYear());
+            var day = date.getDayOfYear() - 1;
+            if (yearRates.getTimestamp(day) == latestRates.getTimestamp()
+                    && yearRates.getBase(day) == base) {
+                return;
+            }
+            appendRecord(yearRates, day, encodeRecord(date,
+                    latestRates.getTimestamp(), base, rates));
+            yearRates.put(day, latestRates.getTimestamp(), base, rates);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not record historical rates of " + date, e);
+        } finally {
+            yearsLock.unlock();
+        }
+    }
+
+    /**
+     * Look up the rates of the given date. If no rates were recorded on that
+     * date, the rates of the closest earlier date within
+     * {@value #MAX_LOOKBACK_DAYS} days are returned instead.
+     *
+     * @param date
+     *            the date to look up
+     * @return the rates of the date, or an empty optional if the store is
+     *         disabled or holds no rates for the date
+     */
+    public Optional<DailyRates> getRates(LocalDate date) {
+        if (directory == null) {
+            return Optional.empty();
+        }
+        for (var i = 0; i <= MAX_LOOKBACK_DAYS; i++) {
+            var day = date.minusDays(i);
+            YearRates yearRates;
+            yearsLock.lock();
+            try {
+                yearRates = getYearRates(day.getYear());
+            } catch (IOException e) {
+                log.warn("Could not read historical rates of " + day.getYear(),
+                        e);
+                return Optional.empty();
+            } finally {
+                yearsLock.unlock();
+            }
+            var dailyRates = yearRates.getDailyRates(day);
+            if (dailyRates != null) {
+                return Optional.of(dailyRates);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private YearRates getYearRates(int year) throws IOException {
+        var yearRates = years.get(year);
+        if (yearRates == null) {
+            yearRates = readYear(year);
+            years.put(year, yearRates);
+        }
+        return yearRates;
+    }
+
+    private Path yearFile(int year) {
+        return directory.resolve("rates-" + year + ".bin");
+    }
+
+    private YearRates readYear(int year) throws IOException {
+        var yearRates = new YearRates(year);
+        var file = yearFile(year);
+        if (!Files.isRegularFile(file)) {
+            return yearRates;
+        }
+        var bytes = Files.readAllBytes(file);
+        var buffer = ByteBuffer.wrap(bytes);
+        var records = 0;
+        while (buffer.remaining() >= Integer.BYTES) {
+            var offset = buffer.position();
+            var length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            var in = new DataInputStream(new ByteArrayInputStream(
+                    bytes, buffer.position(), length));
+            int day;
+            try {
+                day = decodeRecord(in, yearRates);
+            } catch (EOFException e) {
+                break;
+            }
+            yearRates.lastRecordDay = day;
+            yearRates.lastRecordOffset = offset;
+            buffer.position(buffer.position() + length);
+            yearRates.validLength = buffer.position();
+            records++;
+        }
+        if (yearRates.validLength < bytes.length) {
+            log.warn("Ignoring {} trailing bytes of historical rates file {}",
+                    bytes.length - yearRates.validLength, file);
+        }
+        log.info("Loaded {} records of historical rates for {}", records,
+                year);
+        return yearRates;
+    }
+
+    private void appendRecord(YearRates yearRates, int day, byte[] record)
+            throws IOException {
+        // the last record of the file is replaced when it is of the same day,
+        // as every snapshot loaded during that day would otherwise add one
+        var offset = yearRates.lastRecordDay == day
+                ? yearRates.lastRecordOffset
+                : yearRates.validLength;
+        Files.createDirectories(directory);
+        try (var channel = FileChannel.open(yearFile(yearRates.year),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // also drops any partly written record left behind by a crash
+            channel.truncate(offset);
+            channel.position(offset);
+            var buffer = ByteBuffer.allocate(Integer.BYTES + record.length);
+            buffer.putInt(record.length).put(record).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        yearRates.lastRecordDay = day;
+        yearRates.lastRecordOffset = offset;
+        yearRates.validLength = offset + Integer.BYTES + record.length;
+    }
+
+    private static byte[] encodeRecord(LocalDate date, long timestamp,
+            int base, Map<Integer, BigDecimal> rates) throws IOException {
+        var bytes = new ByteArrayOutputStream(32 + rates.size() * 16);
+        var out = new DataOutputStream(bytes);
+        out.writeLong(date.toEpochDay());
+        out.writeLong(timestamp);
+        out.writeShort(base);
+        out.writeShort(rates.size());
+        for (var entry : rates.entrySet()) {
+            var unscaledValue = entry.getValue().unscaledValue().toByteArray();
+            out.writeShort(entry.getKey());
+            out.writeInt(entry.getValue().scale());
+            out.writeShort(unscaledValue.length);
+            out.write(unscaledValue);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException
+     *             thrown if the record cannot be read
+     * @param in
+     *            the record to decode
+     * @param yearRates
+     *            the rates of the year to put the record in, if of that year
+     * @return the day of the year of the record, or -1 if of another year
+     */
+    private static int decodeRecord(DataInputStream in, YearRates yearRates)
+            throws IOException {
+        var date = LocalDate.ofEpochDay(in.readLong());
+        var timestamp = in.readLong();
+        var base = in.readUnsignedShort();
+        var size = in.readUnsignedShort();
+        var rates = new HashMap<Integer, BigDecimal>(size * 2);
+        for (var i = 0; i < size; i++) {
+            var packed = in.readUnsignedShort();
+            var scale = in.readInt();
+            var unscaledValue = new byte[in.readUnsignedShort()];
+            in.readFully(unscaledValue);
+            rates.put(packed,
+                    new BigDecimal(new BigInteger(unscaledValue), scale));
+        }
+        if (date.getYear() != yearRates.year) {
+            return -1;
+        }
+        yearRates.put(date.getDayOfYear() - 1, timestamp, base, rates);
+        return date.getDayOfYear() - 1;
+    }
+
+    /**
+     * The rates recorded for a single date, copied from their year as they
+     * were when looked up, so that a record of the same date written
+     * meanwhile does not mix into them
+     */
+    public static final class DailyRates {
+
+        private final LocalDate date;
+        private final long timestamp;
+        private final int base;
+        private final Map<Integer, BigDecimal> rates;
+
+        DailyRates(LocalDate date, long timestamp, int base,
+                Map<Integer, BigDecimal> rates) {
+            this.date = date;
+            this.timestamp = timestamp;
+            this.base = base;
+            this.rates = rates;
+        }
+
+        /**
+         * @return the date the rates were recorded for, which may be earlier
+         *         than the requested date
+         */
+        public LocalDate getDate() {
+            return date;
+        }
+
+        /**
+         * @return the timestamp of the rates, in seconds since the epoch
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the base currency of the rates
+         */
+        public CurrencyCode getBase() {
+            return CurrencyCode.of(unpack(base));
+        }
+
+        /**
+         * @param code
+         *            a currency code
+         * @return the base-to-currency rate, or {@code null} if there is no
+         *         rate for the currency on this date
+         */
+        public BigDecimal getRate(CurrencyCode code) {
+            return getRate(code.getPacked());
+        }
+
+        /**
+         * @param packed
+         *            the packed value of a currency code
+         * @return true if there is a rate for the currency on this date
+         */
+        public boolean hasRate(int packed) {
+            return getRate(packed) != null;
+        }
+
+        private BigDecimal getRate(int packed) {
+            var rate = rates.get(packed);
+            return rate == null && packed == base ? BigDecimal.ONE : rate;
+        }
+
+        private static String unpack(int packed) {
+            var letters = new char[3];
+            for (var i = 2; i >= 0; i--) {
+                letters[i] = (char) ('A' + packed % 26);
+                packed /= 26;
+            }
+            return new String(letters);
+        }
+    }
+
+    /**
+     * The rates of one year, in one column per currency indexed by the day of
+     * the year. A rate whose unscaled value fits in a long and whose scale
+     * fits in a byte is held inline, and any other rate in an overflow map.
+     */
+    static final class YearRates {
+
+        private static final long ABSENT = Long.MIN_VALUE;
+
+        private final int year;
+        private final short[] columns = new short[CurrencyCode.CAPACITY];
+        private final long[] timestamps = new long[DAYS_PER_YEAR];
+        private final short[] bases = new short[DAYS_PER_YEAR];
+        private final Map<Integer, BigDecimal> overflow = new HashMap<>();
+        private long[][] unscaledValues = new long[16][];
+        private byte[][] scales = new byte[16][];
+        private int[] columnCodes = new int[16];
+        private int columnCount;
+        private long validLength;
+        private int lastRecordDay = -1;
+        private long lastRecordOffset;
+
+        YearRates(int year) {
+            this.year = year;
+            Arrays.fill(columns, (short) -1);
+            Arrays.fill(bases, (short) -1);
+        }
+
+        synchronized long getTimestamp(int day) {
+            return timestamps[day];
+        }
+
+        synchronized int getBase(int day) {
+            return bases[day];
+        }
+
+        /**
+         * @param date
+         *            a date of this year
+         * @return a copy of the rates of the date, or {@code null} if none
+         *         were recorded on it
+         */
+        synchronized DailyRates getDailyRates(LocalDate date) {
+            var day = date.getDayOfYear() - 1;
+            if (bases[day] < 0) {
+                return null;
+            }
+            var rates = new HashMap<Integer, BigDecimal>(columnCount * 2);
+            for (var column = 0; column < columnCount; column++) {
+                var unscaledValue = unscaledValues[column][day];
+                var rate = unscaledValue != ABSENT
+                        ? BigDecimal.valueOf(unscaledValue,
+                                scales[column][day])
+                        : overflow.get(column * DAYS_PER_YEAR + day);
+                if (rate != null) {
+                    rates.put(columnCodes[column], rate);
+                }
+            }
+            return new DailyRates(date, timestamps[day], bases[day], rates);
+        }
+
+        synchronized void put(int day, long timestamp, int base,
+                Map<Integer, BigDecimal> rates) {
+            for (var column = 0; column < columnCount; column++) {
+                unscaledValues[column][day] = ABSENT;
+                overflow.remove(column * DAYS_PER_YEAR + day);
+            }
+            for (var entry : rates.entrySet()) {
+                var column = columnOf(entry.getKey());
+                var rate = entry.getValue();
+                if (rate.unscaledValue().bitLength() < Long.SIZE - 1
+                        && rate.scale() == (byte) rate.scale()) {
+                    unscaledValues[column][day] = rate.unscaledValue()
+                            .longValue();
+                    scales[column][day] = (byte) rate.scale();
+                } else {
+                    overflow.put(column * DAYS_PER_YEAR + day, rate);
+                }
+            }
+            timestamps[day] = timestamp;
+            bases[day] = (short) base;
+        }
+
+        private int columnOf(int packed) {
+            var column = columns[packed];
+            if (column >= 0) {
+                return column;
+            }
+            if (columnCount == unscaledValues.length) {
+                unscaledValues = Arrays.copyOf(unscaledValues,
+                        columnCount * 2);
+                scales = Arrays.copyOf(scales, columnCount * 2);
+                columnCodes = Arrays.copyOf(columnCodes, columnCount * 2);
+            }
+            var unscaledColumn = new long[DAYS_PER_YEAR];
+            Arrays.fill(unscaledColumn, ABSENT);
+            unscaledValues[columnCount] = unscaledColumn;
+            scales[columnCount] = new byte[DAYS_PER_YEAR];
+            columnCodes[columnCount] = packed;
+            columns[packed] = (short) columnCount;
+            return columnCount++;
+        }
+    }
+
+}
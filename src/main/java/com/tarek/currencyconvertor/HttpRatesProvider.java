@@ -0,0 +1,85 @@
+package com.tarek.currencyconvertor;
+
+import java.io.InterruptedIOException;
+import java.net.URI;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.tarek.currencyconvertor.ResponseSizeLimitInterceptor.ResponseTooLargeException;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * Retrieves the latest rates from an HTTP endpoint answering in the format of
+ * the Latest Rates Endpoint (v1) of https://exchangeratesapi.io/
+ *
+ * <p>
+ * Any failure of the client is reported as a
+ * {@link LatestRatesRetrievalException}. The ones caused by a timeout or by a
+ * body beyond the maximum response size, whether raised while the request is
+ * executed or while the body is extracted, carry that cause, i.e. an
+ * {@code InterruptedIOException} or a {@link ResponseTooLargeException}.
+ */
+public class HttpRatesProvider implements RatesProvider {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(HttpRatesProvider.class);
+
+    private final String name;
+    private final RestTemplate restTemplate;
+    private final URI latestRatesUrl;
+
+    public HttpRatesProvider(String name, RestTemplate restTemplate,
+            URI latestRatesUrl) {
+        this.name = name;
+        this.restTemplate = restTemplate;
+        this.latestRatesUrl = latestRatesUrl;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public LatestRates fetchLatestRates() {
+        try {
+            return restTemplate.getForObject(latestRatesUrl,
+                    LatestRates.class);
+        } catch (RestClientException e) {
+            log.error(e.getMessage(), e);
+            // connect, read and connection pool timeouts, which surface as a
+            // ResourceAccessException while the request is executed, but as
+            // a bare RestClientException while the body is extracted
+            var timeout = findCause(e, InterruptedIOException.class);
+            if (timeout != null) {
+                throw new LatestRatesRetrievalException(
+                        "Timed out during retreival of latest rates data from remote API",
+                        timeout);
+            }
+            var tooLarge = findCause(e, ResponseTooLargeException.class);
+            if (tooLarge != null) {
+                throw new LatestRatesRetrievalException(
+                        "The latest rates data from remote API exceeds the maximum size",
+                        tooLarge);
+            }
+            throw new LatestRatesRetrievalException(
+                    "An error occured during retreival of latest rates data from remote API",
+                    e);
+        }
+    }
+
+    private static <T extends Throwable> T findCause(Throwable e,
+            Class<T> type) {
+        for (var cause = e.getCause(); cause != null; cause = cause
+                .getCause()) {
+            if (type.isInstance(cause)) {
+                return type.cast(cause);
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.tarek.currencyconvertor;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tarek.currencyconvertor.CurrencyMetrics.ConversionPath;
+import com.tarek.currencyconvertor.CurrencyMetrics.FetchOutcome;
+import com.tarek.currencyconvertor.CurrencyMetrics.RejectionReason;
+
+/**
+ * Serves the metrics of the service, when the actuator {@code metrics}
+ * endpoint is exposed over HTTP
+ */
+@RestController
+@Conditional(MetricsExposureCondition.class)
+public class MetricsController {
+
+    private final CurrencyMetrics metrics;
+    private final RatesSnapshotStore ratesSnapshotStore;
+    private final HedgedRatesProvider ratesProvider;
+    private final ObjectProvider<ClusterRatesProvider> clusterRatesProvider;
+    private final AdmissionControl admissionControl;
+
+    MetricsController(CurrencyMetrics metrics,
+            RatesSnapshotStore ratesSnapshotStore,
+            HedgedRatesProvider ratesProvider,
+            ObjectProvider<ClusterRatesProvider> clusterRatesProvider,
+            AdmissionControl admissionControl) {
+        this.metrics = metrics;
+        this.ratesSnapshotStore = ratesSnapshotStore;
+        this.ratesProvider = ratesProvider;
+        this.clusterRatesProvider = clusterRatesProvider;
+        this.admissionControl = admissionControl;
+    }
+
+    /**
+     * Report the aggregated metrics of the service: the latencies of the
+     * conversions by path and of the retrievals from the remote API by
+     * outcome, in microseconds, the outcomes and latencies of the retrievals
+     * by source and of the ones won by a source other than the primary one,
+     * the snapshots pulled from the other instances of the cluster, if any,
+     * the state of the circuit to the remote API, the updates of the rates
+     * and the currencies they changed, the age of the rates snapshot, the
+     * coalesced retrievals, the rejected conversions by reason, and the
+     * requests admitted and rejected by the admission control, if enabled.
+     *
+     * @return the metrics
+     */
+    @GetMapping("/v1/metrics")
+    public Map<String, Object> metrics() {
+        var conversions = new LinkedHashMap<String, Object>();
+        for (var path : ConversionPath.values()) {
+            conversions.put(key(path), summarize(metrics.getConversions(path)));
+        }
+        var upstreamFetches = new LinkedHashMap<String, Object>();
+        for (var outcome : FetchOutcome.values()) {
+            upstreamFetches.put(key(outcome),
+                    summarize(metrics.getUpstreamFetches(outcome)));
+        }
+        var sources = new LinkedHashMap<String, Object>();
+        for (var sourceStats : ratesProvider.getSourceStats()) {
+            var source = summarize(sourceStats.getLatencies());
+            source.put("requests", sourceStats.getRequests());
+            source.put("successes", sourceStats.getSuccesses());
+            source.put("failures", sourceStats.getFailures());
+            source.put("timeouts", sourceStats.getTimeouts());
+            source.put("wins", sourceStats.getWins());
+            source.put("successRate", sourceStats.getSuccessRate());
+            sources.put(sourceStats.getName(), source);
+        }
+        var rejections = new LinkedHashMap<String, Object>();
+        for (var reason : RejectionReason.values()) {
+            rejections.put(key(reason), metrics.getRejections(reason));
+        }
+        var circuitBreaker = ratesSnapshotStore.getCircuitBreaker();
+        var circuit = new LinkedHashMap<String, Object>();
+        circuit.put("open", circuitBreaker.isOpen());
+        circuit.put("consecutiveFailures",
+                circuitBreaker.getConsecutiveFailures());
+        circuit.put("staleServes", circuitBreaker.getStaleServes());
+        var ratesUpdates = new LinkedHashMap<String, Object>();
+        ratesUpdates.put("updates", metrics.getRatesUpdates());
+        ratesUpdates.put("unchanged", metrics.getUnchangedRatesUpdates());
+        ratesUpdates.put("changedCurrencies", metrics.getChangedCurrencies());
+        ratesUpdates.put("lastChangedCurrencies",
+                metrics.getLastChangedCurrencies());
+        var snapshotAge = ratesSnapshotStore.getSnapshotAge();
+
+        var result = new LinkedHashMap<String, Object>();
+        result.put("conversions", conversions);
+        result.put("upstreamFetches", upstreamFetches);
+        result.put("sources", sources);
+        result.put("failovers", summarize(ratesProvider.getFailovers()));
+        var cluster = clusterRatesProvider.getIfAvailable();
+        if (cluster != null) {
+            var clusterMetrics = new LinkedHashMap<String, Object>();
+            clusterMetrics.put("leader", cluster.getLeader());
+            clusterMetrics.put("peerPulls", cluster.getPeerPulls());
+            clusterMetrics.put("upstreamFetches",
+                    cluster.getUpstreamFetches());
+            result.put("cluster", clusterMetrics);
+        }
+        result.put("circuitBreaker", circuit);
+        result.put("ratesUpdates", ratesUpdates);
+        result.put("snapshotAgeSeconds",
+                snapshotAge == null ? null : snapshotAge.getSeconds());
+        result.put("coalescedCallers",
+                ratesSnapshotStore.getCoalescedCallers());
+        result.put("rejections", rejections);
+        if (admissionControl.isEnabled()) {
+            var admission = new LinkedHashMap<String, Object>();
+            admission.put("inFlight", admissionControl.getInFlight());
+            admission.put("clients", admissionControl.getClients());
+            admission.put("rateRejections",
+                    admissionControl.getRateRejections());
+            admission.put("concurrencyRejections",
+                    admissionControl.getConcurrencyRejections());
+            result.put("admission", admission);
+        }
+        return result;
+    }
+
+    private static Map<String, Object> summarize(
+            LatencyHistogram histogram) {
+        var count = histogram.getCount();
+        var summary = new LinkedHashMap<String, Object>();
+        summary.put("count", count);
+        summary.put("meanMicros",
+                count == 0 ? 0 : histogram.getTotalNanos() / count / 1000);
+        summary.put("p50Micros", histogram.getValueAtPercentile(50) / 1000);
+        summary.put("p99Micros", histogram.getValueAtPercentile(99) / 1000);
+        summary.put("p999Micros",
+                histogram.getValueAtPercentile(99.9) / 1000);
+        summary.put("maxMicros", histogram.getMaxNanos() / 1000);
+        return summary;
+    }
+
+    private static String key(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+}
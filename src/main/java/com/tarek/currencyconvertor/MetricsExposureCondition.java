@@ -0,0 +1,43 @@
+package com.tarek.currencyconvertor;
+
+import java.util.Set;
+
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Matches when the {@code metrics} endpoint is exposed over HTTP by the
+ * actuator exposure settings, {@code management.endpoints.web.exposure.include}
+ * and {@code management.endpoints.web.exposure.exclude}, whose defaults are
+ * those of the actuator: only {@code health} is exposed. This way
+ * {@code /v1/metrics} is exposed with the actuator metrics endpoint, whether
+ * or not the service is built with the {@code actuator} profile.
+ */
+class MetricsExposureCondition extends SpringBootCondition {
+
+    private static final String INCLUDE = "management.endpoints.web.exposure.include";
+    private static final String EXCLUDE = "management.endpoints.web.exposure.exclude";
+
+    @Override
+    public ConditionOutcome getMatchOutcome(ConditionContext context,
+            AnnotatedTypeMetadata metadata) {
+        var binder = Binder.get(context.getEnvironment());
+        var include = binder.bind(INCLUDE, Bindable.setOf(String.class))
+                .orElse(Set.of("health"));
+        var exclude = binder.bind(EXCLUDE, Bindable.setOf(String.class))
+                .orElse(Set.of());
+        if (matches(include) && !matches(exclude)) {
+            return ConditionOutcome.match("metrics is exposed");
+        }
+        return ConditionOutcome.noMatch("metrics is not exposed");
+    }
+
+    private static boolean matches(Set<String> endpoints) {
+        return endpoints.contains("metrics") || endpoints.contains("*");
+    }
+
+}
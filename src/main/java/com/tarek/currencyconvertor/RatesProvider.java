@@ -0,0 +1,70 @@
+package com.tarek.currencyconvertor;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * A source of the latest rates, such as the remote API or a local file
+ */
+public interface RatesProvider {
+
+    /**
+     * @return the name of the source, as reported in the metrics
+     */
+    String getName();
+
+    /**
+     * Retrieve the latest rates from the source.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if the retrieval fails or times out
+     *
+     * @return the latest rates, which may be {@code null} or report that the
+     *         retrieval was unsuccessful
+     */
+    LatestRates fetchLatestRates();
+
+    /**
+     * Retrieve the latest rates from the source, with the instant they were
+     * retrieved from the remote API at. A source serving rates retrieved
+     * earlier, such as another instance of a cluster, reports the instant of
+     * that retrieval instead of the current one.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if the retrieval fails or times out
+     *
+     * @param now
+     *            the current instant
+     * @return the latest rates, which may be {@code null} or report that the
+     *         retrieval was unsuccessful, and the instant they were retrieved
+     *         at
+     */
+    default RetrievedRates fetchRetrievedRates(Instant now) {
+        return new RetrievedRates(fetchLatestRates(), now);
+    }
+
+    /**
+     * Retrieve the latest rates from the source, as in
+     * {@link #fetchRetrievedRates(Instant)}, without blocking the calling
+     * thread. The default implementation retrieves them on the calling thread,
+     * and is only meant for sources that never block.
+     *
+     * @param now
+     *            the current instant
+     * @return a future of the latest rates and of the instant they were
+     *         retrieved at, which fails with a
+     *         {@link LatestRatesRetrievalException} if the retrieval fails or
+     *         times out
+     */
+    default CompletableFuture<RetrievedRates> fetchRetrievedRatesAsync(
+            Instant now) {
+        try {
+            return CompletableFuture.completedFuture(fetchRetrievedRates(now));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.tarek.currencyconvertor;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * An immutable snapshot of the latest rates, together with the cross rates
+ * derived from them and the instant at which they were retrieved from the
+ * remote API.
+ */
+public final class RatesSnapshot {
+
+    private final LatestRates latestRates;
+    private final CrossRateTable crossRates;
+    private final Instant retrievedAt;
+
+    RatesSnapshot(LatestRates latestRates, CrossRateTable crossRates,
+            Instant retrievedAt) {
+        this.latestRates = latestRates;
+        this.crossRates = crossRates;
+        this.retrievedAt = retrievedAt;
+    }
+
+    /**
+     * @return the latest rates held by this snapshot
+     */
+    public LatestRates getLatestRates() {
+        return latestRates;
+    }
+
+    /**
+     * @return the rates between every pair of currencies of the latest rates
+     */
+    public CrossRateTable getCrossRates() {
+        return crossRates;
+    }
+
+    /**
+     * @return the instant at which the rates were retrieved from the remote
+     *         API
+     */
+    public Instant getRetrievedAt() {
+        return retrievedAt;
+    }
+
+    /**
+     * @param now
+     *            the instant against which the age is measured
+     * @return the time elapsed since the rates were retrieved
+     */
+    public Duration getAge(Instant now) {
+        return Duration.between(retrievedAt, now);
+    }
+
+    @Override
+    public String toString() {
+        return "RatesSnapshot [retrievedAt=" + retrievedAt + ", latestRates="
+                + latestRates + "]";
+    }
+
+}
@@ -0,0 +1,292 @@
+package com.tarek.currencyconvertor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * Persists the latest accepted rates snapshot to a local file in a compact
+ * binary format, so that a restarted instance can serve conversions before
+ * reaching the remote API.
+ *
+ * <p>
+ * The file is replaced atomically: each snapshot is first written and synced
+ * to a temporary file next to it, which is then renamed over the previous
+ * one. A crash thus leaves either the previous or the new snapshot in place,
+ * never a partial one. Persistence is disabled when no file is configured.
+ */
+@Component
+public class RatesSnapshotFile {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(RatesSnapshotFile.class);
+
+    private static final int MAGIC = 0x43435253; // "CCRS"
+    private static final int VERSION = 1;
+    private static final int RETRIEVED_AT_OFFSET = 2 * Integer.BYTES;
+    private static final int HEADER_SIZE = RETRIEVED_AT_OFFSET + Long.BYTES;
+
+    private final Path path;
+
+    @Autowired
+    public RatesSnapshotFile(
+            @Value("${currencyconvertor.rates.snapshot-file:}") String path) {
+        this(StringUtils.hasText(path) ? Path.of(path) : null);
+    }
+
+    RatesSnapshotFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @return true if a file is configured to persist the snapshots to
+     */
+    public boolean isEnabled() {
+        return path != null;
+    }
+
+    /**
+     * Read the persisted snapshot. Any failure to read it is logged and
+     * treated as if there was no persisted snapshot.
+     *
+     * @return the persisted latest rates and the instant they were retrieved
+     *         at, or an empty optional if persistence is disabled or there is
+     *         no readable snapshot
+     */
+    public Optional<RetrievedRates> read() {
+        if (path == null || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (var in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            var retrievedRates = readSnapshot(in);
+            if (retrievedRates == null) {
+                log.warn("Ignoring rates snapshot file {} of unknown format",
+                        path);
+            }
+            return Optional.ofNullable(retrievedRates);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read rates snapshot file " + path, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Persist the given snapshot, replacing the previous one. Any failure to
+     * write it is logged, and leaves the previous snapshot in place.
+     *
+     * @param snapshot
+     *            the snapshot to persist
+     */
+    public void write(RatesSnapshot snapshot) {
+        if (path == null) {
+            return;
+        }
+        replace(tempFile -> writeSnapshot(tempFile, snapshot));
+    }
+
+    /**
+     * Persist the retrieval instant of the given snapshot, whose rates are
+     * those already persisted, by copying the file with only the retrieval
+     * instant rewritten in its header, instead of serializing the rates
+     * again. The copy replaces the file as atomically as a whole snapshot
+     * does. The whole snapshot is written if the file holds no snapshot of
+     * the expected format. Any failure to write it is logged, and leaves the
+     * previous snapshot in place.
+     *
+     * @param snapshot
+     *            the snapshot whose rates are already persisted
+     */
+    public void writeRetrievedAt(RatesSnapshot snapshot) {
+        if (path == null) {
+            return;
+        }
+        replace(tempFile -> {
+            if (Files.isRegularFile(path)) {
+                Files.copy(path, tempFile,
+                        StandardCopyOption.REPLACE_EXISTING);
+                try (var channel = FileChannel.open(tempFile,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    if (hasExpectedHeader(channel)) {
+                        var retrievedAt = ByteBuffer.allocate(Long.BYTES);
+                        retrievedAt.putLong(
+                                snapshot.getRetrievedAt().toEpochMilli());
+                        retrievedAt.flip();
+                        channel.write(retrievedAt, RETRIEVED_AT_OFFSET);
+                        channel.force(false);
+                        return;
+                    }
+                }
+            }
+            writeSnapshot(tempFile, snapshot);
+        });
+    }
+
+    /**
+     * Replace the file with a temporary file next to it, once written and
+     * synced by the given writer.
+     */
+    private void replace(TempFileWriter writer) {
+        Path tempFile = null;
+        try {
+            var directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            tempFile = Files.createTempFile(directory,
+                    path.getFileName().toString(), ".tmp");
+            writer.write(tempFile);
+            Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write rates snapshot file " + path, e);
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException deleteException) {
+                    log.warn("Could not delete temporary file " + tempFile,
+                            deleteException);
+                }
+            }
+        }
+    }
+
+    private static void writeSnapshot(Path file, RatesSnapshot snapshot)
+            throws IOException {
+        try (var fileOut = new FileOutputStream(file.toFile());
+                var out = new DataOutputStream(
+                        new BufferedOutputStream(fileOut))) {
+            writeSnapshot(out, snapshot);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+    }
+
+    private static boolean hasExpectedHeader(FileChannel channel)
+            throws IOException {
+        var header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // read the whole header, unless the file is shorter
+        }
+        header.flip();
+        return header.remaining() == HEADER_SIZE && header.getInt() == MAGIC
+                && header.getInt() == VERSION;
+    }
+
+    /**
+     * Writes the content of a temporary file
+     */
+    @FunctionalInterface
+    private interface TempFileWriter {
+
+        void write(Path tempFile) throws IOException;
+    }
+
+    /**
+     * Read a snapshot in the format of the snapshot file, as also exchanged
+     * between the instances of a cluster.
+     *
+     * @throws IOException
+     *             thrown if (1) reading the stream fails, or (2) the number
+     *             of rates it announces is negative or exceeds the number of
+     *             possible currency codes, as it may from a corrupt file or a
+     *             misbehaving instance
+     *
+     * @param in
+     *            the stream to read the snapshot from
+     * @return the latest rates and the instant they were retrieved at, or
+     *         {@code null} if the stream is not in the expected format
+     */
+    static RetrievedRates readSnapshot(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return null;
+        }
+        var retrievedAt = Instant.ofEpochMilli(in.readLong());
+        var success = in.readBoolean();
+        var timestamp = in.readLong();
+        var base = in.readUTF();
+        var date = in.readBoolean() ? LocalDate.ofEpochDay(in.readLong())
+                : null;
+        var size = in.readInt();
+        if (size < 0 || size > CurrencyCode.CAPACITY) {
+            throw new IOException("Invalid number of rates: " + size);
+        }
+        var rates = new LinkedHashMap<String, BigDecimal>(size * 2);
+        for (var i = 0; i < size; i++) {
+            var symbol = in.readUTF();
+            var scale = in.readInt();
+            var unscaledValue = new byte[in.readUnsignedShort()];
+            in.readFully(unscaledValue);
+            rates.put(symbol,
+                    new BigDecimal(new BigInteger(unscaledValue), scale));
+        }
+        return new RetrievedRates(
+                new LatestRates(success, timestamp, base, date, rates),
+                retrievedAt);
+    }
+
+    /**
+     * Write a snapshot in the format of the snapshot file, as also exchanged
+     * between the instances of a cluster.
+     *
+     * @throws IOException
+     *             thrown if writing to the stream fails
+     *
+     * @param out
+     *            the stream to write the snapshot to
+     * @param snapshot
+     *            the snapshot to write
+     */
+    static void writeSnapshot(DataOutputStream out, RatesSnapshot snapshot)
+            throws IOException {
+        var latestRates = snapshot.getLatestRates();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(snapshot.getRetrievedAt().toEpochMilli());
+        out.writeBoolean(latestRates.isSuccess());
+        out.writeLong(latestRates.getTimestamp());
+        out.writeUTF(latestRates.getBase());
+        out.writeBoolean(latestRates.getDate() != null);
+        if (latestRates.getDate() != null) {
+            out.writeLong(latestRates.getDate().toEpochDay());
+        }
+        var rates = latestRates.getRates();
+        out.writeInt((int) rates.values().stream().filter(Objects::nonNull)
+                .count());
+        for (var entry : rates.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            var unscaledValue = entry.getValue().unscaledValue().toByteArray();
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().scale());
+            out.writeShort(unscaledValue.length);
+            out.write(unscaledValue);
+        }
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.tarek.currencyconvertor;
+
+/**
+ * Published by the {@link RatesSnapshotStore} whenever a snapshot retrieved
+ * from the remote API has been swapped in as the current one.
+ */
+public class RatesSnapshotLoadedEvent {
+
+    private final RatesSnapshot snapshot;
+
+    public RatesSnapshotLoadedEvent(RatesSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @return the snapshot that was loaded
+     */
+    public RatesSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+}
@@ -0,0 +1,632 @@
+package com.tarek.currencyconvertor;
+
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tarek.currencyconvertor.CurrencyMetrics.FetchOutcome;
+import com.tarek.currencyconvertor.ResponseSizeLimitInterceptor.ResponseTooLargeException;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * Holds the last good snapshot of the latest rates and refreshes it in the
+ * background, so that conversions can read the rates without making a call
+ * to the remote API. The latest rates are retrieved from the configured
+ * {@link RatesProvider}.
+ *
+ * <p>
+ * At most one retrieval from the remote API is in flight at any time. Callers
+ * that need the latest rates while a retrieval is in flight wait for, and
+ * share, its outcome instead of starting their own.
+ *
+ * <p>
+ * After a number of consecutive failed retrievals, the {@link CircuitBreaker}
+ * opens: callers are then handed the last good snapshot right away, even
+ * beyond the maximum staleness, and the remote API is only called by probes
+ * at a fixed interval until one of them succeeds.
+ */
+@Component
+public class RatesSnapshotStore {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(RatesSnapshotStore.class);
+
+    private final RatesProvider ratesProvider;
+    private final RatesSnapshotFile snapshotFile;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CurrencyMetrics metrics;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration maxStaleness;
+    private final Clock clock;
+    private final AtomicReference<RatesSnapshot> currentSnapshot = new AtomicReference<>();
+    private final AtomicReference<InFlightLoad> inFlightLoad = new AtomicReference<>();
+    // updates are serialized so that each one is compared with, and builds
+    // on, the snapshot it replaces, and persisted in that order; a lock
+    // rather than a monitor, as the file is written while holding it
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private final AtomicLong coalescedCallers = new AtomicLong();
+    private volatile int lastLoadCoalescedCallers;
+    private volatile Instant lastRefreshAt;
+
+    @Autowired
+    public RatesSnapshotStore(RatesProvider ratesProvider,
+            RatesSnapshotFile snapshotFile,
+            ApplicationEventPublisher eventPublisher, CurrencyMetrics metrics,
+            @Value("${currencyconvertor.upstream.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${currencyconvertor.rates.max-staleness:PT3H}") Duration maxStaleness) {
+        this(ratesProvider, snapshotFile, eventPublisher, metrics,
+                new CircuitBreaker(failureThreshold), maxStaleness,
+                Clock.systemUTC());
+    }
+
+    RatesSnapshotStore(RatesProvider ratesProvider,
+            RatesSnapshotFile snapshotFile,
+            ApplicationEventPublisher eventPublisher, CurrencyMetrics metrics,
+            CircuitBreaker circuitBreaker, Duration maxStaleness,
+            Clock clock) {
+        this.ratesProvider = ratesProvider;
+        this.snapshotFile = snapshotFile;
+        this.eventPublisher = eventPublisher;
+        this.metrics = metrics;
+        this.circuitBreaker = circuitBreaker;
+        this.maxStaleness = maxStaleness;
+        this.clock = clock;
+    }
+
+    /**
+     * Restore the snapshot persisted by a previous run, if any, so that
+     * conversions can be served right away. The snapshot is then kept up to
+     * date by the background refresh, as usual. A persisted snapshot whose
+     * rates cannot be built into a cross-rate table, e.g. with a malformed
+     * base currency, is logged and ignored, as an unreadable file is, and the
+     * latest rates are then retrieved on first use.
+     */
+    @PostConstruct
+    public void restore() {
+        snapshotFile.read().ifPresent(retrievedRates -> {
+            var latestRates = retrievedRates.getLatestRates();
+            CrossRateTable crossRates;
+            try {
+                crossRates = buildCrossRates(null, latestRates);
+            } catch (RuntimeException e) {
+                log.warn("Ignoring inconsistent rates snapshot file", e);
+                return;
+            }
+            var snapshot = new RatesSnapshot(latestRates, crossRates,
+                    retrievedRates.getRetrievedAt());
+            // a snapshot retrieved in the meantime takes precedence
+            if (currentSnapshot.compareAndSet(null, snapshot)) {
+                log.info("Restored rates snapshot retrieved at {}",
+                        snapshot.getRetrievedAt());
+            }
+        });
+    }
+
+    /**
+     * Get the current rates snapshot. If no snapshot has been loaded yet, or
+     * the current one is older than the configured maximum staleness, the
+     * latest rates are retrieved from the remote API before returning, unless
+     * the circuit is open, in which case the stale snapshot is returned as it
+     * is.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if no snapshot within the configured maximum
+     *             staleness is available and (1) the retrieval of the latest
+     *             rates fails, or (2) the circuit is open and no snapshot has
+     *             been loaded yet.
+     *
+     * @return the current rates snapshot
+     */
+    public RatesSnapshot getSnapshot() {
+        var snapshot = getAvailableSnapshot();
+        return snapshot != null ? snapshot : loadCoalesced(true);
+    }
+
+    /**
+     * Get the current rates snapshot if it can be handed out without
+     * retrieving the latest rates, that is if it is within the configured
+     * maximum staleness, or if the circuit is open, in which case the stale
+     * snapshot is returned as it is. This never blocks.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if the circuit is open and no snapshot has been
+     *             loaded yet.
+     *
+     * @return the current rates snapshot, or {@code null} if the latest rates
+     *         must be retrieved with {@link #retrieveSnapshot()} first
+     */
+    public RatesSnapshot getAvailableSnapshot() {
+        var snapshot = currentSnapshot.get();
+        if (snapshot != null && !isStale(snapshot)) {
+            return snapshot;
+        }
+        if (circuitBreaker.isOpen()) {
+            if (snapshot == null) {
+                throw new LatestRatesRetrievalException(
+                        "Retrieval of latest rates data from remote API is suspended after repeated failures");
+            }
+            circuitBreaker.recordStaleServe();
+            return snapshot;
+        }
+        if (snapshot != null) {
+            log.warn(
+                    "The latest rates data is older than the maximum allowed staleness");
+        }
+        return null;
+    }
+
+    /**
+     * Retrieve the latest rates from the configured {@link RatesProvider} and
+     * swap them in as the current snapshot, or wait for, and share, the
+     * outcome of the retrieval in flight. This blocks until the retrieval
+     * completes, and is recorded by the circuit breaker. A snapshot within the
+     * configured maximum staleness, as swapped in by a retrieval completed
+     * since the caller found the previous one stale, is returned as it is.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if the retrieval of the latest rates fails
+     *
+     * @return the new current rates snapshot
+     */
+    public RatesSnapshot retrieveSnapshot() {
+        return loadCoalesced(true);
+    }
+
+    /**
+     * Retrieve the latest rates from the given non-blocking
+     * {@link RatesProvider}, instead of the configured one, and swap them in
+     * as the current snapshot, as in {@link #retrieveSnapshot()}, but without
+     * blocking the calling thread. The retrieval is coalesced with any other
+     * one in flight, whichever provider started it, and is recorded by the
+     * circuit breaker.
+     *
+     * @param provider
+     *            the source of the latest rates, whose future completes on a
+     *            thread that may block, as the new snapshot is persisted to
+     *            disk on completion
+     * @return a future of the new current rates snapshot, which fails with a
+     *         {@link LatestRatesRetrievalException} if the retrieval of the
+     *         latest rates fails
+     */
+    public CompletableFuture<RatesSnapshot> retrieveSnapshotAsync(
+            RatesProvider provider) {
+        var ownLoad = new InFlightLoad();
+        var load = inFlightLoad.compareAndExchange(null, ownLoad);
+        if (load != null) {
+            load.waiters.incrementAndGet();
+            coalescedCallers.incrementAndGet();
+            // a copy, so that a caller cancelling it does not cancel the
+            // retrieval for the others
+            return load.result.copy();
+        }
+        var fresh = getFreshSnapshot();
+        if (fresh != null) {
+            ownLoad.result.complete(fresh);
+            inFlightLoad.set(null);
+            return CompletableFuture.completedFuture(fresh);
+        }
+
+        var startTime = System.nanoTime();
+        CompletableFuture<RetrievedRates> fetch;
+        try {
+            fetch = provider.fetchRetrievedRatesAsync(clock.instant());
+        } catch (RuntimeException e) {
+            fetch = CompletableFuture.failedFuture(e);
+        }
+        fetch.whenComplete((retrievedRates, e) -> {
+            var failure = e instanceof CompletionException ? e.getCause() : e;
+            recordFetch(retrievedRates, failure, startTime);
+            try {
+                runLoad(ownLoad, () -> {
+                    if (failure instanceof RuntimeException) {
+                        throw (RuntimeException) failure;
+                    }
+                    if (failure != null) {
+                        throw new LatestRatesRetrievalException(
+                                "An error occured during retreival of latest rates data from remote API",
+                                failure);
+                    }
+                    return update(retrievedRates.getLatestRates(),
+                            retrievedRates.getRetrievedAt());
+                });
+            } catch (LatestRatesRetrievalException ignored) {
+                // the failure is handed out through the result of the load
+            }
+        });
+        return ownLoad.result.copy();
+    }
+
+    /**
+     * @return the current rates snapshot if it is within the configured
+     *         maximum staleness, without retrieving one, or {@code null}
+     *         otherwise
+     */
+    public RatesSnapshot getFreshSnapshot() {
+        var snapshot = currentSnapshot.get();
+        return snapshot != null && !isStale(snapshot) ? snapshot : null;
+    }
+
+    /**
+     * @return the current rates snapshot whatever its age, without retrieving
+     *         one, or {@code null} if no snapshot has been loaded yet
+     */
+    public RatesSnapshot getLoadedSnapshot() {
+        return currentSnapshot.get();
+    }
+
+    /**
+     * Swap in the given latest rates, retrieved from the remote API now by
+     * other means than this store, as the current snapshot.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if (1) the given latest rates are {@code null}, or
+     *             (2) their success field is set to {@code false}.
+     *
+     * @param latestRates
+     *            the retrieved latest rates
+     * @return the new current rates snapshot
+     * @see #update(LatestRates, Instant)
+     */
+    public RatesSnapshot update(LatestRates latestRates) {
+        return update(latestRates, clock.instant());
+    }
+
+    /**
+     * Swap in the given latest rates, retrieved from the remote API at the
+     * given instant, as the current snapshot, unless they were retrieved
+     * before the rates of the current snapshot, which is then kept. If they
+     * are identical to the rates of the current snapshot, the latter is only
+     * marked as retrieved at the given instant, without rebuilding or
+     * recording anything, and only its retrieval instant is persisted.
+     * Otherwise, only the cross rates of the currencies whose rate has
+     * changed are computed again. Concurrent updates, such as a pull from
+     * another instance of a cluster and the background refresh, are applied
+     * one at a time, so that the retrieval instant never moves backwards.
+     *
+     * @throws LatestRatesRetrievalException
+     *             thrown if (1) the given latest rates are {@code null}, or
+     *             (2) their success field is set to {@code false}.
+     *
+     * @param latestRates
+     *            the retrieved latest rates
+     * @param retrievedAt
+     *            the instant the latest rates were retrieved from the remote
+     *            API at, which is earlier than now for rates pulled from
+     *            another instance of a cluster
+     * @return the new current rates snapshot
+     */
+    public RatesSnapshot update(LatestRates latestRates, Instant retrievedAt) {
+        checkRatesRetrievalValidity(latestRates);
+
+        updateLock.lock();
+        try {
+            return swapIn(latestRates, retrievedAt);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private RatesSnapshot swapIn(LatestRates latestRates, Instant retrievedAt) {
+        var previous = currentSnapshot.get();
+        if (previous != null
+                && retrievedAt.isBefore(previous.getRetrievedAt())) {
+            log.info(
+                    "Keeping the rates snapshot retrieved at {} over the older one retrieved at {}",
+                    previous.getRetrievedAt(), retrievedAt);
+            return previous;
+        }
+        var changedCurrencies = previous == null
+                ? latestRates.getRates().size()
+                : countChangedCurrencies(previous.getLatestRates(),
+                        latestRates);
+        metrics.recordRatesUpdate(changedCurrencies);
+        if (previous != null && changedCurrencies == 0
+                && isUnchanged(previous.getLatestRates(), latestRates)) {
+            log.info("The latest rates are unchanged since {}",
+                    previous.getRetrievedAt());
+            var snapshot = new RatesSnapshot(previous.getLatestRates(),
+                    previous.getCrossRates(), retrievedAt);
+            currentSnapshot.set(snapshot);
+            snapshotFile.writeRetrievedAt(snapshot);
+            return snapshot;
+        }
+
+        log.info("The latest rates changed for {} currencies",
+                changedCurrencies);
+        var snapshot = new RatesSnapshot(latestRates,
+                buildCrossRates(previous, latestRates), retrievedAt);
+        currentSnapshot.set(snapshot);
+        snapshotFile.write(snapshot);
+        eventPublisher.publishEvent(new RatesSnapshotLoadedEvent(snapshot));
+        return snapshot;
+    }
+
+    /**
+     * @param snapshot
+     *            a rates snapshot
+     * @return true if the snapshot is older than the configured maximum
+     *         staleness, as it may be when handed out while the circuit is
+     *         open
+     */
+    public boolean isStale(RatesSnapshot snapshot) {
+        return getAge(snapshot).compareTo(maxStaleness) > 0;
+    }
+
+    /**
+     * @param snapshot
+     *            a rates snapshot
+     * @return the time elapsed since the rates of the snapshot were retrieved
+     */
+    public Duration getAge(RatesSnapshot snapshot) {
+        return snapshot.getAge(clock.instant());
+    }
+
+    /**
+     * @return the circuit breaker of the retrievals from the remote API
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @return the age of the current rates snapshot, without retrieving one,
+     *         or {@code null} if no snapshot has been loaded yet
+     */
+    public Duration getSnapshotAge() {
+        var snapshot = currentSnapshot.get();
+        return snapshot == null ? null : snapshot.getAge(clock.instant());
+    }
+
+    /**
+     * @return the total number of callers that waited for a retrieval started
+     *         by another caller instead of starting their own
+     */
+    public long getCoalescedCallers() {
+        return coalescedCallers.get();
+    }
+
+    /**
+     * @return the number of callers that waited for the last completed
+     *         retrieval, in addition to the caller that started it
+     */
+    public int getLastLoadCoalescedCallers() {
+        return lastLoadCoalescedCallers;
+    }
+
+    /**
+     * @return the instant the last background refresh completed at, from
+     *         which the next one is scheduled, or {@code null} if none has
+     *         completed yet
+     */
+    public Instant getLastRefreshAt() {
+        return lastRefreshAt;
+    }
+
+    /**
+     * Retrieve the latest rates from the remote API and swap them in as the
+     * current snapshot. On failure, the previous snapshot is kept.
+     */
+    @Scheduled(fixedDelayString = "${currencyconvertor.rates.refresh-interval:PT1H}")
+    public void refresh() {
+        try {
+            loadCoalesced(false);
+        } catch (LatestRatesRetrievalException e) {
+            log.warn("Keeping the previous rates snapshot: {}",
+                    e.getMessage());
+        } finally {
+            lastRefreshAt = clock.instant();
+        }
+    }
+
+    /**
+     * Probe the remote API while the circuit is open, by retrieving the
+     * latest rates and swapping them in as the current snapshot. A successful
+     * probe closes the circuit.
+     */
+    @Scheduled(fixedDelayString = "${currencyconvertor.upstream.circuit-breaker.probe-interval:PT30S}")
+    public void probe() {
+        if (!circuitBreaker.isOpen()) {
+            return;
+        }
+        try {
+            loadCoalesced(false);
+        } catch (LatestRatesRetrievalException e) {
+            log.warn("The remote API is still failing: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param unlessFresh
+     *            true to skip the retrieval if the current snapshot is within
+     *            the configured maximum staleness, as for the callers that
+     *            found it stale, unlike the refresh and the probes
+     */
+    private RatesSnapshot loadCoalesced(boolean unlessFresh) {
+        var ownLoad = new InFlightLoad();
+        var load = inFlightLoad.compareAndExchange(null, ownLoad);
+        if (load != null) {
+            load.waiters.incrementAndGet();
+            coalescedCallers.incrementAndGet();
+            return load.await();
+        }
+        // the retrieval that made the caller find the snapshot stale may have
+        // completed since, in which case it is not repeated right away
+        var fresh = unlessFresh ? getFreshSnapshot() : null;
+        if (fresh != null) {
+            ownLoad.result.complete(fresh);
+            inFlightLoad.set(null);
+            return fresh;
+        }
+        return runLoad(ownLoad, this::load);
+    }
+
+    /**
+     * Run the given load on behalf of the callers waiting for it, record it
+     * by the circuit breaker and hand out its outcome to them.
+     */
+    private RatesSnapshot runLoad(InFlightLoad ownLoad,
+            Supplier<RatesSnapshot> load) {
+        try {
+            var snapshot = load.get();
+            circuitBreaker.recordSuccess();
+            ownLoad.result.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure();
+            var failure = e instanceof LatestRatesRetrievalException
+                    ? (LatestRatesRetrievalException) e
+                    : new LatestRatesRetrievalException(
+                            "An error occured during retreival of latest rates data from remote API",
+                            e);
+            ownLoad.result.completeExceptionally(failure);
+            throw failure;
+        } finally {
+            inFlightLoad.set(null);
+            lastLoadCoalescedCallers = ownLoad.waiters.get();
+            if (lastLoadCoalescedCallers > 0) {
+                log.info("Coalesced {} callers onto one rates retrieval",
+                        lastLoadCoalescedCallers);
+            }
+        }
+    }
+
+    private RatesSnapshot load() {
+        var retrievedRates = fetch();
+        return update(retrievedRates.getLatestRates(),
+                retrievedRates.getRetrievedAt());
+    }
+
+    private RetrievedRates fetch() {
+        var startTime = System.nanoTime();
+        try {
+            var retrievedRates = ratesProvider
+                    .fetchRetrievedRates(clock.instant());
+            recordFetch(retrievedRates, null, startTime);
+            return retrievedRates;
+        } catch (RuntimeException e) {
+            recordFetch(null, e, startTime);
+            throw e;
+        }
+    }
+
+    private void recordFetch(RetrievedRates retrievedRates, Throwable failure,
+            long startTime) {
+        var outcome = FetchOutcome.ERROR;
+        if (failure == null) {
+            var latestRates = retrievedRates.getLatestRates();
+            outcome = latestRates != null && latestRates.isSuccess()
+                    ? FetchOutcome.SUCCESS
+                    : FetchOutcome.UNSUCCESSFUL;
+        } else if (failure instanceof LatestRatesRetrievalException) {
+            // timeouts of the HTTP client, or of the sources
+            var cause = failure.getCause();
+            if (cause instanceof InterruptedIOException
+                    || cause instanceof TimeoutException) {
+                outcome = FetchOutcome.TIMEOUT;
+            } else if (cause instanceof ResponseTooLargeException) {
+                outcome = FetchOutcome.TOO_LARGE;
+            }
+        }
+        metrics.recordUpstreamFetch(outcome, System.nanoTime() - startTime);
+    }
+
+    private CrossRateTable buildCrossRates(RatesSnapshot previous,
+            LatestRates latestRates) {
+        var startTime = System.nanoTime();
+        var crossRates = previous == null ? CrossRateTable.of(latestRates)
+                : previous.getCrossRates().update(latestRates);
+        if (log.isInfoEnabled()) {
+            log.info(
+                    "Built cross-rate table for {} currencies in {} ms, taking about {} KB",
+                    crossRates.size(),
+                    (System.nanoTime() - startTime) / 1000000,
+                    crossRates.estimateRatesMemoryBytes() / 1024);
+        }
+        return crossRates;
+    }
+
+    /**
+     * @return the number of currencies whose rate was added, removed or
+     *         changed, all of them if the base currency changed
+     */
+    private static int countChangedCurrencies(LatestRates previous,
+            LatestRates latestRates) {
+        var previousRates = previous.getRates();
+        var rates = latestRates.getRates();
+        if (!Objects.equals(previous.getBase(), latestRates.getBase())) {
+            return Math.max(previousRates.size(), rates.size());
+        }
+        var changed = 0;
+        for (var entry : rates.entrySet()) {
+            if (!Objects.equals(entry.getValue(),
+                    previousRates.get(entry.getKey()))) {
+                changed++;
+            }
+        }
+        for (var code : previousRates.keySet()) {
+            if (!rates.containsKey(code)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean isUnchanged(LatestRates previous,
+            LatestRates latestRates) {
+        return previous.getTimestamp() == latestRates.getTimestamp()
+                && Objects.equals(previous.getBase(), latestRates.getBase())
+                && Objects.equals(previous.getDate(), latestRates.getDate());
+    }
+
+    private void checkRatesRetrievalValidity(LatestRates latestRates) {
+        if (latestRates == null) {
+            var errorMsg = "The retrieved latest rates object from remote API was null";
+            log.error(errorMsg);
+            throw new LatestRatesRetrievalException(errorMsg);
+        }
+        if (!latestRates.isSuccess()) {
+            var errorMsg = "Remote API reports that the latest rates retrieval was unsuccessful";
+            log.error(errorMsg);
+            throw new LatestRatesRetrievalException(errorMsg);
+        }
+    }
+
+    /**
+     * A retrieval in flight, which the callers that did not start it wait on
+     */
+    private static final class InFlightLoad {
+
+        private final CompletableFuture<RatesSnapshot> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        private RatesSnapshot await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                // the failure is always a LatestRatesRetrievalException
+                throw (LatestRatesRetrievalException) e.getCause();
+            }
+        }
+    }
+
+}
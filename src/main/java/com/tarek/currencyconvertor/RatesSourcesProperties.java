@@ -0,0 +1,99 @@
+package com.tarek.currencyconvertor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * The sources the latest rates are retrieved from, configured under
+ * {@code currencyconvertor.upstream}. When no source is configured, the
+ * latest rates are retrieved from the single endpoint set by
+ * {@code currencyconvertor.upstream.latest-rates-url}.
+ */
+@ConfigurationProperties("currencyconvertor.upstream")
+public class RatesSourcesProperties {
+
+    private List<Source> sources = new ArrayList<>();
+    private Duration hedgeDelay = Duration.ofMillis(500);
+
+    public List<Source> getSources() {
+        return sources;
+    }
+
+    public void setSources(List<Source> sources) {
+        this.sources = sources;
+    }
+
+    /**
+     * @return the time after which the next source is started if none of the
+     *         started ones has answered
+     */
+    public Duration getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    public void setHedgeDelay(Duration hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    /**
+     * A source of the latest rates
+     */
+    public static class Source {
+
+        private String name;
+        private String url;
+        private int priority;
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * @return the name of the source, as reported in the metrics
+         */
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the URL of the latest rates endpoint of the source, or a
+         *         {@code file:} URL of a local file holding the latest rates
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        /**
+         * @return the priority of the source, the lowest value being tried
+         *         first
+         */
+        public int getPriority() {
+            return priority;
+        }
+
+        public void setPriority(int priority) {
+            this.priority = priority;
+        }
+
+        /**
+         * @return the time after which a retrieval from the source is
+         *         abandoned
+         */
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+}
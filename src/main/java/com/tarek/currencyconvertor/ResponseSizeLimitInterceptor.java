@@ -0,0 +1,141 @@
+package com.tarek.currencyconvertor;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A {@code ClientHttpRequestInterceptor} that fails the reading of any
+ * response body larger than a given size, with a
+ * {@link ResponseTooLargeException}. The limit applies to the body as read,
+ * that is after any decompression.
+ */
+public class ResponseSizeLimitInterceptor
+        implements ClientHttpRequestInterceptor {
+
+    private final long maxResponseSize;
+
+    public ResponseSizeLimitInterceptor(long maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+            ClientHttpRequestExecution execution) throws IOException {
+        var response = execution.execute(request, body);
+        if (response.getHeaders().getContentLength() > maxResponseSize) {
+            response.close();
+            throw new ResponseTooLargeException(maxResponseSize);
+        }
+        return new SizeLimitedResponse(response, maxResponseSize);
+    }
+
+    private static final class SizeLimitedResponse
+            implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final long maxResponseSize;
+
+        private SizeLimitedResponse(ClientHttpResponse response,
+                long maxResponseSize) {
+            this.response = response;
+            this.maxResponseSize = maxResponseSize;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return new SizeLimitedInputStream(response.getBody(),
+                    maxResponseSize);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+
+    private static final class SizeLimitedInputStream
+            extends FilterInputStream {
+
+        private final long maxSize;
+        private long size;
+
+        private SizeLimitedInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            var n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            var skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws IOException {
+            size += n;
+            if (size > maxSize) {
+                throw new ResponseTooLargeException(maxSize);
+            }
+        }
+    }
+
+    /**
+     * Signals that a response body exceeds the maximum size
+     */
+    public static class ResponseTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        ResponseTooLargeException(long maxSize) {
+            super("The response exceeds the maximum size of " + maxSize
+                    + " bytes");
+        }
+    }
+
+}
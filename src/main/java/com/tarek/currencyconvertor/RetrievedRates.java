@@ -0,0 +1,30 @@
+package com.tarek.currencyconvertor;
+
+import java.time.Instant;
+
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * The latest rates with the instant they were originally retrieved from the
+ * remote API at, which is earlier than now for rates read from the snapshot
+ * file or pulled from another instance of a cluster
+ */
+public final class RetrievedRates {
+
+    private final LatestRates latestRates;
+    private final Instant retrievedAt;
+
+    RetrievedRates(LatestRates latestRates, Instant retrievedAt) {
+        this.latestRates = latestRates;
+        this.retrievedAt = retrievedAt;
+    }
+
+    public LatestRates getLatestRates() {
+        return latestRates;
+    }
+
+    public Instant getRetrievedAt() {
+        return retrievedAt;
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.tarek.currencyconvertor;
+
+import java.time.Duration;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Marks a response computed with a rates snapshot older than the maximum
+ * staleness, as served while the circuit to the remote API is open, as stale:
+ * with a {@code Warning}, the age of the rates in its {@code Age}, and a
+ * {@code Cache-Control} that does not let it be cached.
+ */
+final class StaleResponseHeaders {
+
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    private StaleResponseHeaders() {
+    }
+
+    /**
+     * @param headers
+     *            the headers of the response to mark as stale
+     * @param age
+     *            the age of the rates snapshot the response was computed with
+     */
+    static void addTo(HttpHeaders headers, Duration age) {
+        headers.setCacheControl(CacheControl.maxAge(Duration.ZERO));
+        headers.set(HttpHeaders.AGE, Long.toString(age.getSeconds()));
+        headers.set(HttpHeaders.WARNING, STALE_WARNING);
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.tarek.currencyconvertor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serves a few requests once the application has started, and then stops
+ * it. The classes loaded by such a run are the ones dumped to the
+ * class-data-sharing archive built by the {@code production} Maven profile,
+ * so that both the startup and the first requests of the next runs load them
+ * from the archive. The currency codes of a conversion are resolved against
+ * the latest rates, so that without the remote API it is answered with an
+ * error, which is accepted as well.
+ */
+@Component
+@ConditionalOnProperty(name = "currencyconvertor.startup.training-run", havingValue = "true")
+public class StartupTrainingRun
+        implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(StartupTrainingRun.class);
+
+    private static final String CONVERTER_PATH = "/v1/converter?from=EUR&to=EUR&amount=1";
+    private static final String METRICS_PATH = "/v1/metrics";
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        var context = event.getApplicationContext();
+        if (context instanceof WebServerApplicationContext) {
+            var port = ((WebServerApplicationContext) context).getWebServer()
+                    .getPort();
+            request("http://localhost:" + port + CONVERTER_PATH);
+            // only served while the metrics are exposed
+            if (context.getBeanNamesForType(
+                    MetricsController.class).length > 0) {
+                request("http://localhost:" + port + METRICS_PATH);
+            }
+        }
+        log.info("Training run completed, stopping");
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private static void request(String url) {
+        try {
+            var connection = (HttpURLConnection) new URL(url).openConnection();
+            try (InputStream in = connection.getResponseCode() < 400
+                    ? connection.getInputStream()
+                    : connection.getErrorStream()) {
+                if (in != null) {
+                    in.readAllBytes();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                    "Training request to " + url + " failed", e);
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.tarek.currencyconvertor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when the running JVM provides them, i.e. on Java 21
+ * and later. They are looked up reflectively, as the service is still
+ * compiled for Java 11: the version of Spring it is built on cannot read the
+ * class files of later Java versions.
+ */
+final class VirtualThreads {
+
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle NAME;
+    private static final MethodHandle FACTORY;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        try {
+            var lookup = MethodHandles.publicLookup();
+            var builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual",
+                    MethodType.methodType(Class
+                            .forName("java.lang.Thread$Builder$OfVirtual")));
+            name = lookup.findVirtual(builderClass, "name", MethodType
+                    .methodType(builderClass, String.class, long.class));
+            factory = lookup.findVirtual(builderClass, "factory",
+                    MethodType.methodType(ThreadFactory.class));
+        } catch (ReflectiveOperationException e) {
+            // not provided by the running JVM
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if the running JVM provides virtual threads
+     */
+    static boolean isSupported() {
+        return FACTORY != null;
+    }
+
+    /**
+     * @throws IllegalStateException
+     *             thrown if the running JVM does not provide virtual threads
+     *
+     * @param namePrefix
+     *            the prefix of the names of the threads, which are numbered
+     *            from 0
+     * @return a factory of virtual threads
+     */
+    static ThreadFactory newThreadFactory(String namePrefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException(
+                    "Virtual threads require Java 21 or later, but running on Java "
+                            + Runtime.version().feature());
+        }
+        try {
+            var builder = OF_VIRTUAL.invoke();
+            builder = NAME.invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (Throwable e) {
+            // e.g. virtual threads being a disabled preview feature
+            throw new IllegalStateException("Virtual threads are not available",
+                    e);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.tarek.currencyconvertor;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Runs the blocking request handling and the background refresh of the rates
+ * on virtual threads instead of pooled platform threads, so that a request
+ * waiting on the remote API holds no more than a small heap-allocated stack.
+ * The retrievals from the remote API run on the thread of the request or the
+ * refresh that needs them, and thus on virtual threads too. Requires running
+ * on Java 21 or later.
+ */
+@Configuration
+@ConditionalOnProperty(name = "currencyconvertor.threads.virtual", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    /**
+     * Hands each request accepted by Tomcat to a new virtual thread, in place
+     * of the bounded pool of request threads
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandlerCustomizer() {
+        var threadFactory = VirtualThreads.newThreadFactory("http-virtual-");
+        return protocolHandler -> protocolHandler
+                .setExecutor(command -> threadFactory.newThread(command).start());
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        var taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setThreadFactory(
+                VirtualThreads.newThreadFactory("scheduling-virtual-"));
+        return taskScheduler;
+    }
+}
@@ -0,0 +1,39 @@
+package com.tarek.currencyconvertor;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the admission control of the conversion endpoints of the
+ * blocking Spring MVC stack, if any of its limits is enabled
+ */
+@Configuration
+@Profile("!reactive")
+public class WebConfig implements WebMvcConfigurer {
+
+    private final AdmissionControl admissionControl;
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+
+    WebConfig(AdmissionControl admissionControl,
+            @Value("${currencyconvertor.admission.api-key-header:X-API-Key}") String apiKeyHeader,
+            @Value("${currencyconvertor.admission.api-keys:}") Set<String> apiKeys) {
+        this.admissionControl = admissionControl;
+        this.apiKeyHeader = apiKeyHeader;
+        this.apiKeys = apiKeys;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (admissionControl.isEnabled()) {
+            registry.addInterceptor(new AdmissionControlInterceptor(
+                    admissionControl, apiKeyHeader, apiKeys));
+        }
+    }
+
+}
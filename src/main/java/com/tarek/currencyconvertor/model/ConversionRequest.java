@@ -0,0 +1,78 @@
+package com.tarek.currencyconvertor.model;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * A single conversion requested as part of a batch
+ */
+public class ConversionRequest {
+
+    private String from;
+    private String to;
+    private BigDecimal amount;
+
+    public ConversionRequest() {
+        super();
+    }
+
+    public ConversionRequest(String from, String to, BigDecimal amount) {
+        super();
+        this.from = from;
+        this.to = to;
+        this.amount = amount;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(amount, from, to);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (ConversionRequest) obj;
+        return Objects.equals(amount, other.amount)
+                && Objects.equals(from, other.from)
+                && Objects.equals(to, other.to);
+    }
+
+    @Override
+    public String toString() {
+        return "ConversionRequest [from=" + from + ", to=" + to + ", amount="
+                + amount + "]";
+    }
+
+}
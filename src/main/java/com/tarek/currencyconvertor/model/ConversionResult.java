@@ -3,6 +3,7 @@ package com.tarek.currencyconvertor.model;
 import java.math.BigDecimal;
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.tarek.currencyconvertor.AppConstants;
 
 /**
@@ -18,6 +19,8 @@ public class ConversionResult {
     private BigDecimal amount;
     private BigDecimal rate;
     private BigDecimal result;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
 
     public boolean isSuccess() {
         return success;
@@ -77,18 +80,31 @@ public class ConversionResult {
     }
 
     public BigDecimal getResult() {
-        return result.setScale(AppConstants.BIGDECIMAL_SCALE,
-                AppConstants.ROUNDING_MODE);
+        return result;
     }
 
     public void setResult(BigDecimal result) {
-        this.result = result;
+        this.result = result == null ? null
+                : result.setScale(AppConstants.BIGDECIMAL_SCALE,
+                        AppConstants.ROUNDING_MODE);
+    }
+
+    /**
+     * @return the reason why the conversion failed, or {@code null} if it
+     *         succeeded
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(amount, executionTime, from, rate, result, success,
-                timestamp, to);
+        return Objects.hash(amount, error, executionTime, from, rate, result,
+                success, timestamp, to);
     }
 
     @Override
@@ -104,6 +120,7 @@ public class ConversionResult {
         }
         var other = (ConversionResult) obj;
         return Objects.equals(amount, other.amount)
+                && Objects.equals(error, other.error)
                 && (executionTime == other.executionTime)
                 && Objects.equals(from, other.from)
                 && Objects.equals(rate, other.rate)
@@ -117,7 +134,8 @@ public class ConversionResult {
         return "ConversionResult [success=" + success + ", timestamp="
                 + timestamp + ", from=" + from + ", to=" + to + ", amount="
                 + amount + ", rate=" + rate + ", result=" + result
-                + ", executionTime=" + executionTime + "]";
+                + ", error=" + error + ", executionTime=" + executionTime
+                + "]";
     }
 
 }
@@ -0,0 +1,146 @@
+package com.tarek.currencyconvertor.model;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An interned three-letter currency code. Each code is packed into a small
+ * integer in the range {@code [0, CAPACITY)}, so that codes can be compared
+ * and used as array indices without any String hashing.
+ *
+ * <p>
+ * There is at most one instance per code, which is created with
+ * {@link #of(String)} the first time the code is found in loaded rates. The
+ * codes of requests are resolved with {@link #lookup(String)}, which never
+ * creates one, so that the registry only holds the codes of actual rates.
+ */
+public final class CurrencyCode {
+
+    private static final int LETTERS = 26;
+
+    /**
+     * The number of distinct three-letter currency codes, and thus the upper
+     * bound (exclusive) of {@link #getPacked()}
+     */
+    public static final int CAPACITY = LETTERS * LETTERS * LETTERS;
+
+    private static final AtomicReferenceArray<CurrencyCode> REGISTRY = new AtomicReferenceArray<>(
+            CAPACITY);
+
+    private final int packed;
+    private final String symbol;
+
+    private CurrencyCode(int packed, String symbol) {
+        this.packed = packed;
+        this.symbol = symbol;
+    }
+
+    /**
+     * Resolve a three-letter currency code to its interned instance.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the given symbol is not made of exactly three
+     *             upper-case letters from A to Z
+     *
+     * @param symbol
+     *            the three-letter currency code
+     * @return the interned currency code
+     */
+    public static CurrencyCode of(String symbol) {
+        var packed = pack(symbol);
+        if (packed < 0) {
+            throw new IllegalArgumentException(
+                    "Invalid three-letter currency code: " + symbol);
+        }
+        var code = REGISTRY.get(packed);
+        if (code == null) {
+            REGISTRY.compareAndSet(packed, null,
+                    new CurrencyCode(packed, symbol));
+            code = REGISTRY.get(packed);
+        }
+        return code;
+    }
+
+    /**
+     * Look up the interned instance of a three-letter currency code, without
+     * creating it if it does not exist yet.
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the given symbol is not made of exactly three
+     *             upper-case letters from A to Z
+     *
+     * @param symbol
+     *            the three-letter currency code
+     * @return the interned currency code, or {@code null} if the code was
+     *         never resolved with {@link #of(String)}
+     */
+    public static CurrencyCode lookup(String symbol) {
+        var packed = pack(symbol);
+        if (packed < 0) {
+            throw new IllegalArgumentException(
+                    "Invalid three-letter currency code: " + symbol);
+        }
+        return REGISTRY.get(packed);
+    }
+
+    /**
+     * @param symbol
+     *            a three-letter currency code
+     * @return the packed value of the given code, or {@code -1} if it is not
+     *         made of exactly three upper-case letters from A to Z
+     */
+    public static int pack(String symbol) {
+        if (symbol == null || symbol.length() != 3) {
+            return -1;
+        }
+        var packed = 0;
+        for (var i = 0; i < 3; i++) {
+            var letter = symbol.charAt(i) - 'A';
+            if (letter < 0 || letter >= LETTERS) {
+                return -1;
+            }
+            packed = packed * LETTERS + letter;
+        }
+        return packed;
+    }
+
+    /**
+     * @return the packed value of this code, in the range
+     *         {@code [0, CAPACITY)}
+     */
+    public int getPacked() {
+        return packed;
+    }
+
+    /**
+     * @return the three-letter currency code
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public int hashCode() {
+        return packed;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (CurrencyCode) obj;
+        return packed == other.packed;
+    }
+
+    @Override
+    public String toString() {
+        return symbol;
+    }
+
+}
@@ -2,6 +2,7 @@ package com.tarek.currencyconvertor.model;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -28,7 +29,9 @@ public final class LatestRates {
         this.timestamp = timestamp;
         this.base = base;
         this.date = date;
-        this.rates = rates;
+        // keep a defensive copy, so that the rates can be shared read-only
+        this.rates = rates == null ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(rates));
     }
 
     /**
@@ -63,13 +66,33 @@ public final class LatestRates {
     }
 
     /**
-     * @return a copy of the conversion rates, which is a map of the
-     *         three-letter currency codes and their rates relative to the
+     * @return an unmodifiable view of the conversion rates, which is a map of
+     *         the three-letter currency codes and their rates relative to the
      *         {@code base} currency
      */
     public Map<String, BigDecimal> getRates() {
-        // return a defensive copy
-        return new LinkedHashMap<>(rates);
+        return rates;
+    }
+
+    /**
+     * @param symbol
+     *            a three-letter currency code
+     * @return the rate of the given currency relative to the {@code base}
+     *         currency, or {@code null} if there is no rate for it
+     */
+    public BigDecimal getRate(String symbol) {
+        return rates.get(symbol);
+    }
+
+    /**
+     * @param symbol
+     *            a three-letter currency code
+     * @return true if the given currency is either the {@code base} currency
+     *         or one of the currencies for which a rate is provided
+     */
+    public boolean containsSymbol(String symbol) {
+        return symbol != null
+                && (symbol.equals(base) || rates.containsKey(symbol));
     }
 
     @Override
@@ -0,0 +1,115 @@
+package com.tarek.currencyconvertor.model;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.tarek.currencyconvertor.AppConstants;
+
+/**
+ * The result of the conversion of an amount from one currency into several
+ * others, holding the converted amount by target currency
+ */
+public class MultiConversionResult {
+
+    private boolean success;
+    private long timestamp;
+    private long executionTime;
+    private String from;
+    private BigDecimal amount;
+    private final Map<String, BigDecimal> results = new LinkedHashMap<>();
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    public void setExecutionTime(long milliseconds) {
+        executionTime = milliseconds;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    /**
+     * @return the converted amounts by target currency, in the order the
+     *         target currencies were given
+     */
+    public Map<String, BigDecimal> getResults() {
+        return results;
+    }
+
+    /**
+     * @param to
+     *            the target currency
+     * @param result
+     *            the amount converted into the target currency
+     */
+    public void putResult(String to, BigDecimal result) {
+        results.put(to, result.setScale(AppConstants.BIGDECIMAL_SCALE,
+                AppConstants.ROUNDING_MODE));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(amount, executionTime, from, results, success,
+                timestamp);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (MultiConversionResult) obj;
+        return Objects.equals(amount, other.amount)
+                && (executionTime == other.executionTime)
+                && Objects.equals(from, other.from)
+                && Objects.equals(results, other.results)
+                && (success == other.success) && (timestamp == other.timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return "MultiConversionResult [success=" + success + ", timestamp="
+                + timestamp + ", from=" + from + ", amount=" + amount
+                + ", results=" + results + ", executionTime=" + executionTime
+                + "]";
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.tarek.currencyconvertor;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    /**
+     * The non-blocking HTTP client used to reach the remote rates API, with
+     * the same connection pool, timeouts and limits as the blocking one.
+     * Connections are pooled and kept alive between retrievals, every phase
+     * of a request is bounded by a timeout, and gzip-compressed responses are
+     * accepted and decompressed transparently.
+     */
+    @Bean
+    public WebClient upstreamWebClient(WebClient.Builder builder,
+            @Value("${currencyconvertor.upstream.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${currencyconvertor.upstream.read-timeout:PT5S}") Duration readTimeout,
+            @Value("${currencyconvertor.upstream.connection-request-timeout:PT1S}") Duration connectionRequestTimeout,
+            @Value("${currencyconvertor.upstream.max-connections:20}") int maxConnections,
+            @Value("${currencyconvertor.upstream.keep-alive:PT30S}") Duration keepAlive,
+            @Value("${currencyconvertor.upstream.max-response-size:1MB}") DataSize maxResponseSize) {
+        var connectionProvider = ConnectionProvider.builder("upstream")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(connectionRequestTimeout)
+                .maxIdleTime(keepAlive).build();
+        var httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout).compress(true);
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs()
+                        .maxInMemorySize((int) maxResponseSize.toBytes()))
+                .build();
+    }
+}
@@ -0,0 +1,194 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tarek.currencyconvertor.model.ConversionRequest;
+import com.tarek.currencyconvertor.model.ConversionResult;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The conversion endpoints of the non-blocking WebFlux stack, which replace
+ * the single, batch and bulk conversions of the {@link CurrencyController}
+ * under the {@code reactive} profile. They yield the same results and errors,
+ * the latter being mapped to responses by the same
+ * {@link ControllerExceptionHandler}.
+ *
+ * <p>
+ * A conversion against a fresh rates snapshot is computed right away on the
+ * event loop, while the retrieval of the latest rates, when needed, holds a
+ * single worker thread shared by all of the callers waiting for it.
+ * Historical rates may have to be read from disk, and batches may hold many
+ * conversions, so both are converted on a worker thread, the conversions of a
+ * batch as the client asks for their results. The rows of a bulk
+ * conversion are converted as they are read, and their results written back
+ * without blocking.
+ */
+@Validated
+@RestController
+@Profile("reactive")
+public class ReactiveCurrencyController {
+
+    private final CurrencyService currencyService;
+    private final BulkConverter bulkConverter;
+    private final RatesSnapshotStore ratesSnapshotStore;
+    private final ReactiveRatesSnapshotLoader ratesSnapshotLoader;
+
+    ReactiveCurrencyController(CurrencyService currencyService,
+            BulkConverter bulkConverter, RatesSnapshotStore ratesSnapshotStore,
+            ReactiveRatesSnapshotLoader ratesSnapshotLoader) {
+        this.currencyService = currencyService;
+        this.bulkConverter = bulkConverter;
+        this.ratesSnapshotStore = ratesSnapshotStore;
+        this.ratesSnapshotLoader = ratesSnapshotLoader;
+    }
+
+    /**
+     * Convert an amount from one currency to another. A conversion with rates
+     * older than the maximum staleness, as served while the remote API is
+     * unavailable, carries their age in its {@code Age} and a
+     * {@code Warning}.
+     *
+     * @param from
+     *            The three-letter currency code of the currency you would like
+     *            to convert from
+     * @param to
+     *            The three-letter currency code of the currency you would like
+     *            to convert to
+     * @param amount
+     *            The amount to be converted
+     * @param date
+     *            The optional ISO date ({@code yyyy-MM-dd}) as of which to
+     *            convert the amount, instead of with the latest rates
+     * @return the conversion result
+     */
+    @GetMapping({ "/v1/converter", "/" })
+    public Mono<ResponseEntity<ConversionResult>> converter(
+            @RequestParam @Size(min = 3, max = 3) @NotBlank String from,
+            @RequestParam @Size(min = 3, max = 3) @NotBlank String to,
+            @RequestParam @DecimalMin("0") BigDecimal amount,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        if (date != null) {
+            return Mono.fromCallable(() -> ResponseEntity.ok(currencyService
+                    .convert(currencyService.toCurrencyCode(from, date),
+                            currencyService.toCurrencyCode(to, date), amount,
+                            date)))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        // unknown codes are rejected against the held snapshot before any
+        // retrieval, and only resolved against the retrieved one if none is
+        // held yet
+        var loaded = ratesSnapshotStore.getLoadedSnapshot();
+        if (loaded != null) {
+            currencyService.toCurrencyCode(from, loaded);
+            currencyService.toCurrencyCode(to, loaded);
+        }
+        return ratesSnapshotLoader.getSnapshot()
+                .map(snapshot -> withStaleHeaders(ResponseEntity.ok(),
+                        snapshot).body(currencyService.convert(
+                                currencyService.toCurrencyCode(from, snapshot),
+                                currencyService.toCurrencyCode(to, snapshot),
+                                amount, snapshot)));
+    }
+
+    /**
+     * Convert a batch of amounts, each from one currency to another, as in
+     * {@link CurrencyController#batchConverter(List)}.
+     *
+     * @param requests
+     *            The conversions to be performed
+     * @return the conversion results
+     */
+    @PostMapping("/v1/converter/batch")
+    public Mono<ResponseEntity<Flux<ConversionResult>>> batchConverter(
+            @RequestBody List<ConversionRequest> requests) {
+        currencyService.checkBatchValidity(requests);
+        if (requests.isEmpty()) {
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Flux.empty()));
+        }
+        return ratesSnapshotLoader.getSnapshot().map(snapshot -> {
+            // the results are converted as the client asks for them, so that
+            // a slow client does not make the whole batch pile up in memory
+            var results = Flux.fromIterable(
+                    currencyService.convertBatch(requests, snapshot));
+            return withStaleHeaders(ResponseEntity.ok(), snapshot)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(results.subscribeOn(Schedulers.boundedElastic()));
+        });
+    }
+
+    /**
+     * Convert a stream of rows in NDJSON ({@code application/x-ndjson}) or CSV
+     * ({@code text/csv}), as in
+     * {@link CurrencyController#bulkConverter(MediaType, java.io.InputStream, javax.servlet.http.HttpServletResponse)}.
+     *
+     * @param contentType
+     *            The format of the rows
+     * @param lines
+     *            The rows to be converted, one per line
+     * @return the conversion results, in the format of the rows
+     */
+    @PostMapping(value = "/v1/converter/bulk", consumes = {
+            "application/x-ndjson", "text/csv" })
+    public Mono<ResponseEntity<Flux<DataBuffer>>> bulkConverter(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestBody Flux<String> lines) {
+        var format = BulkConverter.Format.of(contentType);
+        return ratesSnapshotLoader.getSnapshot().map(snapshot -> {
+            var rowConverter = bulkConverter.createRowConverter(format,
+                    snapshot);
+            // the results are written as bytes, so that the NDJSON rows are
+            // not encoded again as JSON strings
+            var results = Flux.just(rowConverter.getHeader())
+                    .concatWith(lines.map(rowConverter::convert))
+                    .filter(text -> !text.isEmpty())
+                    .map(ReactiveCurrencyController::toDataBuffer)
+                    .doOnComplete(rowConverter::complete);
+            return withStaleHeaders(ResponseEntity.ok(), snapshot)
+                    .contentType(new MediaType(format.getMediaType(),
+                            StandardCharsets.UTF_8))
+                    .body(results);
+        });
+    }
+
+    private static DataBuffer toDataBuffer(String text) {
+        return DefaultDataBufferFactory.sharedInstance
+                .wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ResponseEntity.BodyBuilder withStaleHeaders(
+            ResponseEntity.BodyBuilder response, RatesSnapshot snapshot) {
+        if (ratesSnapshotStore.isStale(snapshot)) {
+            response.headers(headers -> StaleResponseHeaders.addTo(headers,
+                    ratesSnapshotStore.getAge(snapshot)));
+        }
+        return response;
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.tarek.currencyconvertor;
+
+import java.net.URI;
+import java.util.Comparator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Provides the rates snapshot of the {@link RatesSnapshotStore} without
+ * blocking: when the held snapshot is missing or stale, and the circuit is
+ * closed, the latest rates are retrieved with a {@link WebClient} and swapped
+ * into the store, through its circuit breaker, metrics and snapshot
+ * publication.
+ *
+ * <p>
+ * The rates are retrieved from the configured HTTP source of highest
+ * priority, or else from the single configured endpoint or exchangeratesapi.io.
+ * The other sources, hedged against it, and the instances of a cluster are
+ * left to the background refresh and probes of the store, which retrieve the
+ * latest rates on their own thread.
+ *
+ * <p>
+ * As in the store, at most one retrieval is in flight at any time, and the
+ * callers that need the latest rates meanwhile share its outcome without
+ * holding a thread.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveRatesSnapshotLoader {
+
+    private final RatesSnapshotStore ratesSnapshotStore;
+    private final WebClientRatesProvider ratesProvider;
+
+    ReactiveRatesSnapshotLoader(RatesSnapshotStore ratesSnapshotStore,
+            WebClient upstreamWebClient, RatesSourcesProperties properties,
+            @Value("${currencyconvertor.upstream.latest-rates-url:}") String latestRatesUrl,
+            @Value("${currencyconvertor.upstream.max-response-size:1MB}") DataSize maxResponseSize) {
+        this.ratesSnapshotStore = ratesSnapshotStore;
+        var source = properties.getSources().stream()
+                .filter(candidate -> !"file".equals(
+                        URI.create(candidate.getUrl()).getScheme()))
+                .min(Comparator.comparingInt(
+                        RatesSourcesProperties.Source::getPriority))
+                .orElse(null);
+        if (source != null) {
+            this.ratesProvider = new WebClientRatesProvider(
+                    StringUtils.hasText(source.getName()) ? source.getName()
+                            : source.getUrl(),
+                    upstreamWebClient, URI.create(source.getUrl()),
+                    maxResponseSize.toBytes());
+        } else {
+            this.ratesProvider = new WebClientRatesProvider("exchangeratesapi",
+                    upstreamWebClient,
+                    StringUtils.hasText(latestRatesUrl)
+                            ? URI.create(latestRatesUrl)
+                            : AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                    maxResponseSize.toBytes());
+        }
+    }
+
+    /**
+     * Get the current rates snapshot, as in
+     * {@link RatesSnapshotStore#getSnapshot()}, but without blocking the
+     * calling thread.
+     *
+     * @return the current rates snapshot, or an error signal carrying a
+     *         {@link LatestRatesRetrievalException} if no snapshot within the
+     *         configured maximum staleness is available and (1) the retrieval
+     *         of the latest rates fails, or (2) the circuit is open and no
+     *         snapshot has been loaded yet
+     */
+    public Mono<RatesSnapshot> getSnapshot() {
+        return Mono.defer(() -> {
+            var snapshot = ratesSnapshotStore.getAvailableSnapshot();
+            return snapshot != null ? Mono.just(snapshot)
+                    : Mono.fromFuture(ratesSnapshotStore
+                            .retrieveSnapshotAsync(ratesProvider));
+        });
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.tarek.currencyconvertor;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.tarek.currencyconvertor.ResponseSizeLimitInterceptor.ResponseTooLargeException;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+import io.netty.channel.ConnectTimeoutException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Retrieves the latest rates from an HTTP endpoint answering in the format of
+ * the Latest Rates Endpoint (v1) of https://exchangeratesapi.io/, with a
+ * non-blocking {@link WebClient}, as in {@link HttpRatesProvider}.
+ *
+ * <p>
+ * Any failure of the client is reported as a
+ * {@link LatestRatesRetrievalException}. The ones caused by a connect,
+ * response or connection pool timeout carry a {@link TimeoutException}, and
+ * the ones caused by a body beyond the maximum response size a
+ * {@link ResponseTooLargeException}, for the {@link RatesSnapshotStore} to
+ * record them as such.
+ */
+public class WebClientRatesProvider implements RatesProvider {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(WebClientRatesProvider.class);
+
+    private final String name;
+    private final WebClient webClient;
+    private final URI latestRatesUrl;
+    private final long maxResponseSize;
+
+    public WebClientRatesProvider(String name, WebClient webClient,
+            URI latestRatesUrl, long maxResponseSize) {
+        this.name = name;
+        this.webClient = webClient;
+        this.latestRatesUrl = latestRatesUrl;
+        this.maxResponseSize = maxResponseSize;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public LatestRates fetchLatestRates() {
+        return fetch().block();
+    }
+
+    /**
+     * Retrieve the latest rates without blocking. The returned future
+     * completes on a worker thread rather than on the event loop, as the
+     * snapshot built from the rates is persisted to disk on completion.
+     */
+    @Override
+    public CompletableFuture<RetrievedRates> fetchRetrievedRatesAsync(
+            Instant now) {
+        return fetch().map(latestRates -> new RetrievedRates(latestRates, now))
+                .defaultIfEmpty(new RetrievedRates(null, now))
+                .publishOn(Schedulers.boundedElastic()).toFuture();
+    }
+
+    private Mono<LatestRates> fetch() {
+        return webClient.get().uri(latestRatesUrl).retrieve()
+                .bodyToMono(LatestRates.class)
+                .onErrorMap(this::toRetrievalException);
+    }
+
+    private LatestRatesRetrievalException toRetrievalException(Throwable e) {
+        log.error(e.getMessage(), e);
+        // connect and response timeouts, and connection pool timeouts
+        if (isCausedBy(e, TimeoutException.class)
+                || isCausedBy(e, ConnectTimeoutException.class)
+                || isCausedBy(e,
+                        io.netty.handler.timeout.TimeoutException.class)) {
+            var timeout = new TimeoutException(e.getMessage());
+            timeout.initCause(e);
+            return new LatestRatesRetrievalException(
+                    "Timed out during retreival of latest rates data from remote API",
+                    timeout);
+        }
+        if (isCausedBy(e, DataBufferLimitException.class)) {
+            var tooLarge = new ResponseTooLargeException(maxResponseSize);
+            tooLarge.initCause(e);
+            return new LatestRatesRetrievalException(
+                    "The latest rates data from remote API exceeds the maximum size",
+                    tooLarge);
+        }
+        return new LatestRatesRetrievalException(
+                "An error occured during retreival of latest rates data from remote API",
+                e);
+    }
+
+    private static boolean isCausedBy(Throwable e,
+            Class<? extends Throwable> type) {
+        for (var cause = e; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.tarek.currencyconvertor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+@ExtendWith(MockitoExtension.class)
+class AdmissionControlTest {
+
+    @Mock
+    private Clock clock;
+
+    @Test
+    void whenClientExceedsBurst_shouldRejectUntilBucketIsRefilled() {
+        Mockito.when(clock.millis()).thenReturn(1000L);
+        var admissionControl = new AdmissionControl(0, 10, 3, clock);
+
+        for (var i = 0; i < 3; i++) {
+            assertEquals(0, admissionControl.admit("client"));
+        }
+        var wait = admissionControl.admit("client");
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait);
+        assertEquals(0, admissionControl.admit("other"));
+        assertEquals(1, admissionControl.getRateRejections());
+
+        Mockito.when(clock.millis()).thenReturn(1100L);
+        assertEquals(0, admissionControl.admit("client"));
+        assertTrue(admissionControl.admit("client") > 0);
+    }
+
+    @Test
+    void whenMaxConcurrentRequestsAreInProgress_shouldRejectUntilReleased() {
+        var admissionControl = new AdmissionControl(2, 0, 0, clock);
+
+        assertEquals(0, admissionControl.admit("client"));
+        assertEquals(0, admissionControl.admit("other"));
+        assertTrue(admissionControl.admit("third") > 0);
+        admissionControl.release();
+        assertEquals(0, admissionControl.admit("third"));
+
+        assertEquals(2, admissionControl.getInFlight());
+        assertEquals(1, admissionControl.getConcurrencyRejections());
+        Mockito.verifyNoInteractions(clock);
+    }
+
+    @Test
+    void whenRejectedByConcurrencyLimit_shouldNotTakeToken() {
+        Mockito.when(clock.millis()).thenReturn(1000L);
+        var admissionControl = new AdmissionControl(1, 1, 2, clock);
+
+        assertEquals(0, admissionControl.admit("other"));
+        assertTrue(admissionControl.admit("client") > 0);
+        assertTrue(admissionControl.admit("client") > 0);
+        admissionControl.release();
+
+        assertEquals(0, admissionControl.admit("client"));
+        admissionControl.release();
+        assertEquals(0, admissionControl.admit("client"));
+        assertEquals(0, admissionControl.getRateRejections());
+        assertEquals(2, admissionControl.getConcurrencyRejections());
+    }
+
+    @Test
+    void whenRejectedByClientRate_shouldReleaseConcurrencySlot() {
+        Mockito.when(clock.millis()).thenReturn(1000L);
+        var admissionControl = new AdmissionControl(5, 1, 1, clock);
+
+        assertEquals(0, admissionControl.admit("client"));
+        assertTrue(admissionControl.admit("client") > 0);
+
+        assertEquals(1, admissionControl.getInFlight());
+    }
+
+    @Test
+    void whenApiKeyIsUnknown_shouldIdentifyClientByAddress() throws Exception {
+        Mockito.when(clock.millis()).thenReturn(1000L);
+        var admissionControl = new AdmissionControl(0, 0.5, 1, clock);
+        var interceptor = new AdmissionControlInterceptor(admissionControl,
+                "X-API-Key", Set.of("key"));
+        var handler = new HandlerMethod(
+                Mockito.mock(CurrencyController.class), getConverterMethod());
+
+        for (var i = 0; i < 3; i++) {
+            var request = new MockHttpServletRequest();
+            request.addHeader("X-API-Key", "random-" + i);
+            var admitted = interceptor.preHandle(request,
+                    new MockHttpServletResponse(), handler);
+            assertEquals(i == 0, admitted);
+        }
+
+        assertEquals(1, admissionControl.getClients());
+    }
+
+    @Test
+    void whenBucketsAreFullAgain_shouldEvictThem() {
+        Mockito.when(clock.millis()).thenReturn(1000L);
+        var admissionControl = new AdmissionControl(0, 1, 5, clock);
+        admissionControl.admit("client");
+        admissionControl.admit("client");
+        admissionControl.admit("other");
+
+        Mockito.when(clock.millis()).thenReturn(2000L);
+        admissionControl.evictIdleClients();
+        assertEquals(1, admissionControl.getClients());
+
+        Mockito.when(clock.millis()).thenReturn(3000L);
+        admissionControl.evictIdleClients();
+        assertEquals(0, admissionControl.getClients());
+    }
+
+    @Test
+    void whenRequestIsRejected_shouldAnswerTooManyRequestsWithRetryAfter()
+            throws Exception {
+        Mockito.when(clock.millis()).thenReturn(1000L);
+        var admissionControl = new AdmissionControl(0, 0.5, 1, clock);
+        var interceptor = new AdmissionControlInterceptor(admissionControl,
+                "X-API-Key", Set.of("key"));
+        var handler = new HandlerMethod(
+                Mockito.mock(CurrencyController.class), getConverterMethod());
+
+        var request = new MockHttpServletRequest();
+        request.addHeader("X-API-Key", "key");
+        assertTrue(interceptor.preHandle(request,
+                new MockHttpServletResponse(), handler));
+        interceptor.afterCompletion(request, new MockHttpServletResponse(),
+                handler, null);
+
+        var response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request, response, handler));
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+
+        var anonymous = new MockHttpServletRequest();
+        assertTrue(interceptor.preHandle(anonymous,
+                new MockHttpServletResponse(), handler));
+    }
+
+    private static Method getConverterMethod() {
+        for (var method : CurrencyController.class.getMethods()) {
+            if (method.getName().equals("converter")) {
+                return method;
+            }
+        }
+        throw new IllegalStateException("No converter method");
+    }
+
+}
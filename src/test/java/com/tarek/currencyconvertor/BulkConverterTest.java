@@ -0,0 +1,111 @@
+package com.tarek.currencyconvertor;
+
+import static com.tarek.currencyconvertor.TestRates.createLatestRates;
+import static com.tarek.currencyconvertor.TestRates.createRatesSnapshotStore;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+@ExtendWith(MockitoExtension.class)
+class BulkConverterTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private RatesSnapshotStore ratesSnapshotStore;
+    private BulkConverter bulkConverter;
+
+    @BeforeEach
+    void setUp() {
+        ratesSnapshotStore = createRatesSnapshotStore(restTemplate,
+                Duration.ofHours(3));
+        var currencyService = new CurrencyService(ratesSnapshotStore,
+                new HistoricalRatesStore((Path) null, 3), new CurrencyMetrics(),
+                new BigDecimalConversionEngine(), 100, 10);
+        bulkConverter = new BulkConverter(currencyService, ratesSnapshotStore,
+                new ObjectMapper());
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class)).thenReturn(createLatestRates());
+    }
+
+    @Test
+    void whenRowsAreCsv_shouldWriteOneCsvResultPerRow() throws IOException {
+        var input = "from,to,amount\nEUR,USD,10\n\nEUR,XYZ,1\nEUR,USD\n";
+
+        var output = new ByteArrayOutputStream();
+        var stats = bulkConverter.convert(toStream(input), output,
+                BulkConverter.Format.CSV);
+
+        var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("success,from,to,amount,rate,result,timestamp,error",
+                lines[0]);
+        assertTrue(lines[1].startsWith("true,EUR,USD,10,1.158074,11.580744,"));
+        assertTrue(lines[2].startsWith("false,EUR,XYZ,1,,,"));
+        assertTrue(lines[3].startsWith("false,,,,,,"));
+        assertEquals(3, stats.getRows());
+        assertEquals(2, stats.getFailedRows());
+    }
+
+    @Test
+    void whenRowsAreNdjson_shouldWriteOneJsonResultPerLine()
+            throws IOException {
+        var input = "{\"from\":\"EUR\",\"to\":\"USD\",\"amount\":10}\n"
+                + "not json\n"
+                + "{\"from\":\"USD\",\"to\":\"EUR\",\"amount\":0}\n";
+
+        var output = new ByteArrayOutputStream();
+        var stats = bulkConverter.convert(toStream(input), output,
+                BulkConverter.Format.NDJSON);
+
+        var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"success\":true,"));
+        assertTrue(lines[0].contains("\"result\":11.580744"));
+        assertTrue(lines[1].startsWith("{\"success\":false,"));
+        assertTrue(lines[2].startsWith("{\"success\":true,"));
+        assertEquals(3, stats.getRows());
+        assertEquals(1, stats.getFailedRows());
+    }
+
+    @Test
+    void whenRowsAreConvertedOneAtATime_shouldYieldTheSameCsvResults() {
+        var rowConverter = bulkConverter.createRowConverter(
+                BulkConverter.Format.CSV, ratesSnapshotStore.getSnapshot());
+
+        assertEquals("success,from,to,amount,rate,result,timestamp,error\n",
+                rowConverter.getHeader());
+        assertEquals("", rowConverter.convert("from,to,amount"));
+        assertTrue(rowConverter.convert("EUR,USD,10")
+                .startsWith("true,EUR,USD,10,1.158074,11.580744,"));
+        assertEquals("", rowConverter.convert(" "));
+        assertTrue(rowConverter.convert("EUR,XYZ,1").endsWith("\n"));
+        var stats = rowConverter.complete();
+        assertEquals(2, stats.getRows());
+        assertEquals(1, stats.getFailedRows());
+    }
+
+    private static ByteArrayInputStream toStream(String input) {
+        return new ByteArrayInputStream(
+                input.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
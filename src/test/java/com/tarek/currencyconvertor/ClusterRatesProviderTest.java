@@ -0,0 +1,164 @@
+package com.tarek.currencyconvertor;
+
+import static com.tarek.currencyconvertor.TestRates.createLatestRates;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.tarek.currencyconvertor.model.LatestRates;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterRatesProviderTest {
+
+    private static final URI LEADER = URI.create("http://localhost:8081");
+    private static final URI SECOND = URI.create("http://localhost:8082");
+    private static final URI SELF = URI.create("http://localhost:8083/");
+
+    @Mock
+    private RatesProvider upstream;
+
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void createServer() {
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.createServer(restTemplate);
+    }
+
+    @Test
+    void whenLeaderServesSnapshot_shouldPullItWithoutRetrieval()
+            throws IOException {
+        var latestRates = createLatestRates();
+        server.expect(requestTo(LEADER.resolve(
+                ClusterRatesProvider.SNAPSHOT_PATH)))
+                .andRespond(withSuccess(toBytes(latestRates),
+                        MediaType.APPLICATION_OCTET_STREAM));
+        var provider = new ClusterRatesProvider(List.of(LEADER, SECOND, SELF),
+                SELF, restTemplate, upstream);
+
+        var pulled = provider.fetchLatestRates();
+
+        assertEquals(latestRates.getRates(), pulled.getRates());
+        assertEquals(latestRates.getTimestamp(), pulled.getTimestamp());
+        assertEquals(LEADER, provider.getLeader());
+        assertEquals(1, provider.getPeerPulls());
+        Mockito.verifyNoInteractions(upstream);
+        server.verify();
+    }
+
+    @Test
+    void whenSnapshotIsPulled_shouldKeepItsRetrievalInstant()
+            throws IOException {
+        var latestRates = createLatestRates();
+        var retrievedAt = Instant.now().minusSeconds(3000)
+                .truncatedTo(ChronoUnit.MILLIS);
+        server.expect(requestTo(LEADER.resolve(
+                ClusterRatesProvider.SNAPSHOT_PATH)))
+                .andRespond(withSuccess(toBytes(latestRates, retrievedAt),
+                        MediaType.APPLICATION_OCTET_STREAM));
+        var provider = new ClusterRatesProvider(List.of(LEADER, SELF), SELF,
+                restTemplate, upstream);
+
+        var pulled = provider.fetchRetrievedRates(Instant.now());
+
+        assertEquals(retrievedAt, pulled.getRetrievedAt());
+        assertEquals(latestRates.getRates(),
+                pulled.getLatestRates().getRates());
+        server.verify();
+    }
+
+    @Test
+    void whenLeaderIsSilent_shouldPullFromNextInstance() throws IOException {
+        var latestRates = createLatestRates();
+        server.expect(requestTo(LEADER.resolve(
+                ClusterRatesProvider.SNAPSHOT_PATH)))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        server.expect(requestTo(SECOND.resolve(
+                ClusterRatesProvider.SNAPSHOT_PATH)))
+                .andRespond(withSuccess(toBytes(latestRates),
+                        MediaType.APPLICATION_OCTET_STREAM));
+        var provider = new ClusterRatesProvider(List.of(LEADER, SECOND, SELF),
+                SELF, restTemplate, upstream);
+
+        provider.fetchLatestRates();
+
+        assertEquals(SECOND, provider.getLeader());
+        Mockito.verifyNoInteractions(upstream);
+        server.verify();
+    }
+
+    @Test
+    void whenNoInstanceAheadServesSnapshot_shouldRetrieveFromUpstream() {
+        var latestRates = createLatestRates();
+        Mockito.when(upstream.fetchLatestRates()).thenReturn(latestRates);
+        server.expect(requestTo(LEADER.resolve(
+                ClusterRatesProvider.SNAPSHOT_PATH)))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        var provider = new ClusterRatesProvider(List.of(LEADER, SELF, SECOND),
+                SELF, restTemplate, upstream);
+
+        assertSame(latestRates, provider.fetchLatestRates());
+        assertNull(provider.getLeader());
+        assertEquals(1, provider.getUpstreamFetches());
+        server.verify();
+    }
+
+    @Test
+    void whenInstanceIsLeader_shouldRetrieveFromUpstreamOnly() {
+        var latestRates = createLatestRates();
+        Mockito.when(upstream.fetchLatestRates()).thenReturn(latestRates);
+        var provider = new ClusterRatesProvider(List.of(LEADER, SECOND),
+                URI.create("http://localhost:8081/"), restTemplate, upstream);
+
+        assertSame(latestRates, provider.fetchLatestRates());
+        assertEquals(0, provider.getPeerPulls());
+        server.verify();
+    }
+
+    @Test
+    void whenSelfIsNotSet_shouldFail() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ClusterRatesProvider(List.of(LEADER, SECOND),
+                        URI.create(""), restTemplate, upstream));
+    }
+
+    private byte[] toBytes(LatestRates latestRates) throws IOException {
+        return toBytes(latestRates, Instant.now());
+    }
+
+    private byte[] toBytes(LatestRates latestRates, Instant retrievedAt)
+            throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            RatesSnapshotFile.writeSnapshot(out,
+                    new RatesSnapshot(latestRates,
+                            CrossRateTable.of(latestRates), retrievedAt));
+        }
+        return bytes.toByteArray();
+    }
+
+}
@@ -0,0 +1,244 @@
+package com.tarek.currencyconvertor;
+
+import static com.tarek.currencyconvertor.TestRates.createLatestRates;
+import static com.tarek.currencyconvertor.TestRates.createRatesSnapshotStore;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+@ExtendWith(MockitoExtension.class)
+class ConversionResponseCacheTest {
+
+    private static final CurrencyCode EUR = CurrencyCode.of("EUR");
+    private static final CurrencyCode USD = CurrencyCode.of("USD");
+    private static final Instant RETRIEVED_AT = Instant
+            .parse("2021-10-01T12:00:00Z");
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private RatesSnapshotStore ratesSnapshotStore;
+
+    @Test
+    void whenConvertingWithLatestRates_shouldTagResponseUntilNextRefresh() {
+        var latestRates = createLatestRates(1633089600L);
+        setupMock(latestRates);
+        var cache = createCache(0);
+
+        var response = cache.getResponse(EUR, USD, new BigDecimal("10"));
+
+        assertEquals("\"" + Long.toHexString(1633089600L) + "\"",
+                response.getHeaders().getETag());
+        // retrieved 10 minutes ago, and refreshed every hour
+        assertEquals("max-age=3000, public",
+                response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void whenCacheIsEnabled_shouldServeRepeatedQueriesFromCache() {
+        setupMock(createLatestRates(1633089600L));
+        var conversionEngine = Mockito.spy(new BigDecimalConversionEngine());
+        var cache = createCache(10, conversionEngine);
+
+        cache.getResponse(EUR, USD, new BigDecimal("10"));
+        cache.getResponse(EUR, USD, new BigDecimal("10"));
+        cache.getResponse(EUR, USD, new BigDecimal("10.0"));
+
+        Mockito.verify(conversionEngine).convert(any(), anyInt(), anyInt(),
+                eq(new BigDecimal("10")));
+        Mockito.verify(conversionEngine).convert(any(), anyInt(), anyInt(),
+                eq(new BigDecimal("10.0")));
+    }
+
+    @Test
+    void whenResponseIsServedFromCache_shouldReportItsOwnExecutionTime()
+            throws IOException {
+        setupMock(createLatestRates(1633089600L));
+        var conversionEngine = Mockito.spy(new BigDecimalConversionEngine());
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(100);
+            return invocation.callRealMethod();
+        }).when(conversionEngine).convert(any(), anyInt(), anyInt(), any());
+        var cache = createCache(10, conversionEngine);
+
+        var first = cache.getResponse(EUR, USD, new BigDecimal("10"));
+        var second = cache.getResponse(EUR, USD, new BigDecimal("10"));
+
+        var objectMapper = new ObjectMapper();
+        var firstResult = objectMapper.readTree(first.getBody());
+        var secondResult = objectMapper.readTree(second.getBody());
+        assertTrue(firstResult.get("executionTime").asLong() >= 100);
+        assertTrue(secondResult.get("executionTime").asLong() < 100);
+        ((ObjectNode) firstResult).remove("executionTime");
+        ((ObjectNode) secondResult).remove("executionTime");
+        assertEquals(firstResult, secondResult);
+    }
+
+    @Test
+    void whenCacheIsFull_shouldEvictLeastRecentlyServedResponse() {
+        setupMock(createLatestRates(1633089600L));
+        var conversionEngine = Mockito.spy(new BigDecimalConversionEngine());
+        var cache = createCache(2, conversionEngine);
+
+        cache.getResponse(EUR, USD, new BigDecimal("1"));
+        cache.getResponse(EUR, USD, new BigDecimal("2"));
+        cache.getResponse(EUR, USD, new BigDecimal("1"));
+        cache.getResponse(EUR, USD, new BigDecimal("3"));
+        cache.getResponse(EUR, USD, new BigDecimal("1"));
+        cache.getResponse(EUR, USD, new BigDecimal("3"));
+        cache.getResponse(EUR, USD, new BigDecimal("2"));
+
+        Mockito.verify(conversionEngine).convert(any(), anyInt(), anyInt(),
+                eq(new BigDecimal("1")));
+        Mockito.verify(conversionEngine, Mockito.times(2)).convert(any(),
+                anyInt(), anyInt(), eq(new BigDecimal("2")));
+        Mockito.verify(conversionEngine).convert(any(), anyInt(), anyInt(),
+                eq(new BigDecimal("3")));
+    }
+
+    @Test
+    void whenRatesChange_shouldNotServeResponsesOfPreviousRates() {
+        setupMock(createLatestRates(1633089600L));
+        var cache = createCache(10);
+
+        var first = cache.getResponse(EUR, USD, new BigDecimal("10"));
+        ratesSnapshotStore.update(createLatestRates(1633093200L));
+        var second = cache.getResponse(EUR, USD, new BigDecimal("10"));
+
+        assertNotSame(first.getBody(), second.getBody());
+        assertNotEquals(first.getHeaders().getETag(),
+                second.getHeaders().getETag());
+    }
+
+    @Test
+    void whenCacheIsDisabled_shouldConvertEachQuery() {
+        setupMock(createLatestRates(1633089600L));
+        var cache = createCache(0);
+
+        var first = cache.getResponse(EUR, USD, new BigDecimal("10"));
+        var second = cache.getResponse(EUR, USD, new BigDecimal("10"));
+
+        assertNotSame(first.getBody(), second.getBody());
+        assertEquals(first.getHeaders().getETag(),
+                second.getHeaders().getETag());
+    }
+
+    @Test
+    void whenStaleSnapshotIsServed_shouldMarkResponseWithItsAge() {
+        var clock = Mockito.mock(Clock.class);
+        var now = RETRIEVED_AT.plus(Duration.ofHours(4));
+        Mockito.when(clock.instant()).thenReturn(RETRIEVED_AT, now);
+        var circuitBreaker = new CircuitBreaker(1);
+        ratesSnapshotStore = new RatesSnapshotStore(
+                new HttpRatesProvider("exchangeratesapi", restTemplate,
+                        AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL),
+                new RatesSnapshotFile((Path) null), event -> {
+                }, new CurrencyMetrics(), circuitBreaker,
+                Duration.ofHours(3), clock);
+        ratesSnapshotStore.update(createLatestRates(1633089600L));
+        circuitBreaker.recordFailure();
+        var cache = new ConversionResponseCache(
+                new CurrencyService(ratesSnapshotStore,
+                        new HistoricalRatesStore((Path) null, 3),
+                        new CurrencyMetrics(),
+                        new BigDecimalConversionEngine(), 100, 10),
+                ratesSnapshotStore, Duration.ofHours(1), 0,
+                Clock.fixed(now, ZoneOffset.UTC));
+
+        var response = cache.getResponse(EUR, USD, new BigDecimal("10"));
+
+        assertEquals("14400", response.getHeaders().getFirst(HttpHeaders.AGE));
+        assertEquals("110 - \"Response is Stale\"",
+                response.getHeaders().getFirst(HttpHeaders.WARNING));
+        assertEquals("max-age=0", response.getHeaders().getCacheControl());
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenRequestHoldsCurrentRates_shouldNotConvertAgain() {
+        setupMock(createLatestRates(1633089600L));
+        ratesSnapshotStore = createRatesSnapshotStore(restTemplate,
+                Duration.ofHours(3), Clock.fixed(RETRIEVED_AT, ZoneOffset.UTC));
+        var conversionEngine = Mockito.mock(ConversionEngine.class);
+        var cache = new ConversionResponseCache(
+                new CurrencyService(ratesSnapshotStore,
+                        new HistoricalRatesStore((Path) null, 3),
+                        new CurrencyMetrics(), conversionEngine, 100, 10),
+                ratesSnapshotStore, Duration.ofHours(1), 0,
+                Clock.fixed(RETRIEVED_AT, ZoneOffset.UTC));
+        var request = new MockHttpServletRequest("GET", "/v1/converter");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH,
+                "\"" + Long.toHexString(1633089600L) + "\"");
+
+        var response = cache.getResponse(EUR, USD, new BigDecimal("10"),
+                new ServletWebRequest(request, new MockHttpServletResponse()));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        Mockito.verifyNoInteractions(conversionEngine);
+    }
+
+    @Test
+    void whenConversionDoesNotDependOnRates_shouldNotTagResponse() {
+        var cache = createCache(10);
+
+        var response = cache.getResponse(EUR, USD, BigDecimal.ZERO);
+
+        assertNull(response.getHeaders().getETag());
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    private ConversionResponseCache createCache(int maxEntries) {
+        return createCache(maxEntries, new BigDecimalConversionEngine());
+    }
+
+    private ConversionResponseCache createCache(int maxEntries,
+            ConversionEngine conversionEngine) {
+        ratesSnapshotStore = createRatesSnapshotStore(restTemplate,
+                Duration.ofHours(3), Clock.fixed(RETRIEVED_AT, ZoneOffset.UTC));
+        var currencyService = new CurrencyService(ratesSnapshotStore,
+                new HistoricalRatesStore((Path) null, 3), new CurrencyMetrics(),
+                conversionEngine, 100, 10);
+        return new ConversionResponseCache(currencyService, ratesSnapshotStore,
+                Duration.ofHours(1), maxEntries,
+                Clock.fixed(RETRIEVED_AT.plus(Duration.ofMinutes(10)),
+                        ZoneOffset.UTC));
+    }
+
+    private void setupMock(LatestRates latestRates) {
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class)).thenReturn(latestRates);
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.tarek.currencyconvertor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tarek.currencyconvertor.model.ConversionResult;
+
+class ConversionResultJsonWriterTest {
+
+    private final ObjectWriter jacksonWriter = new ObjectMapper()
+            .writerFor(ConversionResult.class);
+
+    @Test
+    void whenConversionSucceeded_shouldWriteAsJackson()
+            throws JsonProcessingException {
+        var conversionResult = createConversionResult("USD", "GBP",
+                new BigDecimal("1234.56"),
+                new BigDecimal("1.372966739820172428017578925016716"));
+
+        assertWrittenAsJackson(conversionResult);
+    }
+
+    @Test
+    void whenConversionFailed_shouldWriteErrorAsJackson()
+            throws JsonProcessingException {
+        var conversionResult = new ConversionResult();
+        conversionResult.setFrom("US\"D");
+        conversionResult.setError("Unknown currency \"\u00e9\u20ac\ud83d\udcb6"
+                + "\" in line\n\t\\ \u0001\u007f");
+        assertWrittenAsJackson(conversionResult);
+
+        conversionResult.setError("");
+        assertWrittenAsJackson(conversionResult);
+    }
+
+    @Test
+    void whenDecimalsAreNotScaled_shouldWriteAsJackson()
+            throws JsonProcessingException {
+        for (var amount : new String[] { "0", "0.0", "-0.5", "1E+3", "1E-8",
+                "0.0000001", "0.000001", "123456789012345678.25",
+                "-12345678901234567890.5", "99999999999999999.9", "10",
+                "1000000000000000000" }) {
+            var conversionResult = createConversionResult("EUR", "USD",
+                    new BigDecimal(amount), new BigDecimal("1.158074"));
+            conversionResult.setTimestamp(Long.MIN_VALUE);
+            conversionResult.setExecutionTime(Long.MAX_VALUE);
+
+            assertWrittenAsJackson(conversionResult);
+        }
+    }
+
+    @Test
+    void whenResultsAreRandom_shouldWriteAsJackson()
+            throws JsonProcessingException {
+        var random = new Random(42);
+        for (var i = 0; i < 10000; i++) {
+            var amount = BigDecimal.valueOf(random.nextLong() >>> random
+                    .nextInt(64), random.nextInt(20) - 4);
+            var rate = BigDecimal.valueOf(random.nextInt(Integer.MAX_VALUE),
+                    random.nextInt(16));
+            var conversionResult = createConversionResult("EUR", "JPY", amount,
+                    rate);
+            conversionResult.setTimestamp(random.nextLong());
+            conversionResult.setExecutionTime(random.nextInt(1000));
+
+            assertWrittenAsJackson(conversionResult);
+        }
+    }
+
+    @Test
+    void whenTemplateIsCopied_shouldWriteGivenExecutionTime()
+            throws JsonProcessingException {
+        var conversionResult = createConversionResult("USD", "GBP",
+                new BigDecimal("1234.56"), new BigDecimal("0.7283"));
+        conversionResult.setExecutionTime(12);
+        var template = ConversionResultJsonWriter.toTemplate(conversionResult);
+
+        for (var executionTime : new long[] { 0, 7, 12345, Long.MAX_VALUE }) {
+            conversionResult.setExecutionTime(executionTime);
+
+            assertArrayEquals(
+                    jacksonWriter.writeValueAsBytes(conversionResult),
+                    template.toBytes(executionTime));
+        }
+    }
+
+    private void assertWrittenAsJackson(ConversionResult conversionResult)
+            throws JsonProcessingException {
+        var expected = jacksonWriter.writeValueAsBytes(conversionResult);
+        var actual = ConversionResultJsonWriter.toBytes(conversionResult);
+
+        assertEquals(new String(expected, StandardCharsets.UTF_8),
+                new String(actual, StandardCharsets.UTF_8));
+        assertArrayEquals(expected, actual);
+    }
+
+    private static ConversionResult createConversionResult(String from,
+            String to, BigDecimal amount, BigDecimal rate) {
+        var conversionResult = new ConversionResult();
+        conversionResult.setSuccess(true);
+        conversionResult.setTimestamp(1633046400L);
+        conversionResult.setFrom(from);
+        conversionResult.setTo(to);
+        conversionResult.setAmount(amount);
+        conversionResult.setRate(rate);
+        conversionResult.setResult(amount.multiply(rate,
+                AppConstants.MATH_CONTEXT));
+        return conversionResult;
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.tarek.currencyconvertor;
+
+import static com.tarek.currencyconvertor.TestRates.createLatestRates;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+class CrossRateTableTest {
+
+    @Test
+    void whenSourceIsBaseCurrency_shouldReturnBaseRate() {
+        var crossRates = CrossRateTable.of(createLatestRates());
+
+        var rate = crossRates.getRate(
+                crossRates.indexOf(CurrencyCode.of("EUR")),
+                crossRates.indexOf(CurrencyCode.of("USD")));
+
+        assertEquals(BigDecimal.valueOf(1.1580744), rate);
+    }
+
+    @Test
+    void whenTargetIsBaseCurrency_shouldReturnInverseOfBaseRate() {
+        var crossRates = CrossRateTable.of(createLatestRates());
+
+        var rate = crossRates.getRate(
+                crossRates.indexOf(CurrencyCode.of("USD")),
+                crossRates.indexOf(CurrencyCode.of("EUR")));
+
+        assertEquals(BigDecimal.ONE.divide(BigDecimal.valueOf(1.1580744),
+                AppConstants.MATH_CONTEXT), rate);
+    }
+
+    @Test
+    void whenNeitherCurrencyIsBase_shouldReturnRateDerivedThroughBase() {
+        var crossRates = CrossRateTable.of(createLatestRates());
+
+        var rate = crossRates.getRate(
+                crossRates.indexOf(CurrencyCode.of("USD")),
+                crossRates.indexOf(CurrencyCode.of("GBP")));
+
+        var sourceToBaseRate = BigDecimal.ONE.divide(
+                BigDecimal.valueOf(1.1580744), AppConstants.MATH_CONTEXT);
+        var targetToBaseRate = BigDecimal.ONE.divide(
+                BigDecimal.valueOf(0.84348626), AppConstants.MATH_CONTEXT);
+        assertEquals(sourceToBaseRate.divide(targetToBaseRate,
+                AppConstants.MATH_CONTEXT), rate);
+    }
+
+    @Test
+    void whenEngineRatesAreRequestedAgain_shouldNotComputeThemAgain() {
+        var crossRates = CrossRateTable.of(createLatestRates());
+        var other = CrossRateTable.of(createLatestRates());
+        var computed = new AtomicInteger();
+        Function<CrossRateTable, Object> factory = table -> {
+            computed.incrementAndGet();
+            return new Object();
+        };
+
+        var rates = crossRates.getEngineRates(factory);
+        other.getEngineRates(factory);
+
+        assertSame(rates, crossRates.getEngineRates(factory));
+        assertEquals(2, computed.get());
+    }
+
+    @Test
+    void whenBaseCurrencyIsMissingFromRates_shouldStillIndexIt() {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put("USD", BigDecimal.valueOf(1.1580744));
+        var crossRates = CrossRateTable.of(createLatestRates(rates));
+
+        assertEquals(2, crossRates.size());
+        var eur = CurrencyCode.of("EUR");
+        assertEquals(eur, crossRates.getCode(crossRates.indexOf(eur)));
+    }
+
+    @Test
+    void whenRateIsNotPositive_shouldLeaveCurrencyOut() {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put("EUR", BigDecimal.ONE);
+        rates.put("XXX", BigDecimal.ZERO);
+        var crossRates = CrossRateTable.of(createLatestRates(rates));
+
+        assertEquals(-1, crossRates.indexOf(CurrencyCode.of("XXX")));
+    }
+
+    @Test
+    void whenRatesAreUpdated_shouldMatchTableComputedFromScratch() {
+        var crossRates = CrossRateTable.of(createLatestRates());
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put("EUR", BigDecimal.ONE);
+        rates.put("USD", BigDecimal.valueOf(1.1612));
+        rates.put("GBP", BigDecimal.valueOf(0.84348626));
+        var latestRates = createLatestRates(rates);
+
+        var updated = crossRates.update(latestRates);
+        var expected = CrossRateTable.of(latestRates);
+
+        assertEquals(expected.size(), updated.size());
+        for (var from = 0; from < expected.size(); from++) {
+            for (var to = 0; to < expected.size(); to++) {
+                assertEquals(expected.getRate(from, to),
+                        updated.getRate(from, to));
+            }
+        }
+        var gbp = crossRates.indexOf(CurrencyCode.of("GBP"));
+        var eur = crossRates.indexOf(CurrencyCode.of("EUR"));
+        assertSame(crossRates.getRate(gbp, eur), updated.getRate(gbp, eur));
+    }
+
+    @Test
+    void whenRatesAreUnchanged_shouldReturnSameTable() {
+        var crossRates = CrossRateTable.of(createLatestRates());
+
+        assertSame(crossRates, crossRates.update(createLatestRates()));
+    }
+
+    @Test
+    void whenCurrenciesChange_shouldRebuildTable() {
+        var crossRates = CrossRateTable.of(createLatestRates());
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put("EUR", BigDecimal.ONE);
+        rates.put("USD", BigDecimal.valueOf(1.1580744));
+        rates.put("JPY", BigDecimal.valueOf(130.41));
+
+        var updated = crossRates.update(createLatestRates(rates));
+
+        assertEquals(-1, updated.indexOf(CurrencyCode.of("GBP")));
+        assertEquals(CurrencyCode.of("JPY"),
+                updated.getCode(updated.indexOf(CurrencyCode.of("JPY"))));
+    }
+
+}
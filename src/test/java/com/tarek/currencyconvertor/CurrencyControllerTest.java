@@ -0,0 +1,118 @@
+package com.tarek.currencyconvertor;
+
+import static com.tarek.currencyconvertor.TestRates.createLatestRates;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tarek.currencyconvertor.model.ConversionRequest;
+
+@ExtendWith(MockitoExtension.class)
+class CurrencyControllerTest {
+
+    private static final Instant RETRIEVED_AT = Instant
+            .parse("2021-10-01T12:00:00Z");
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Test
+    void whenStaleSnapshotIsServed_shouldMarkMultiConversionWithItsAge() {
+        var controller = createController(Duration.ofHours(4));
+
+        var response = controller.multiConverter("EUR", List.of("all"),
+                new BigDecimal("10"));
+
+        assertEquals("14400", response.getHeaders().getFirst(HttpHeaders.AGE));
+        assertEquals(STALE_WARNING,
+                response.getHeaders().getFirst(HttpHeaders.WARNING));
+        assertEquals("max-age=0", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void whenStaleSnapshotIsServed_shouldMarkBatchConversionWithItsAge() {
+        var controller = createController(Duration.ofHours(4));
+
+        var response = controller.batchConverter(List.of(
+                new ConversionRequest("EUR", "USD", new BigDecimal("10"))));
+
+        assertEquals("14400", response.getHeaders().getFirst(HttpHeaders.AGE));
+        assertEquals(STALE_WARNING,
+                response.getHeaders().getFirst(HttpHeaders.WARNING));
+    }
+
+    @Test
+    void whenStaleSnapshotIsServed_shouldMarkBulkConversionWithItsAge()
+            throws Exception {
+        var controller = createController(Duration.ofHours(4));
+        var response = new MockHttpServletResponse();
+
+        controller.bulkConverter(MediaType.parseMediaType("text/csv"),
+                new ByteArrayInputStream("EUR,USD,10\n"
+                        .getBytes(StandardCharsets.UTF_8)),
+                response);
+
+        assertEquals("14400", response.getHeader(HttpHeaders.AGE));
+        assertEquals(STALE_WARNING, response.getHeader(HttpHeaders.WARNING));
+    }
+
+    @Test
+    void whenSnapshotIsFresh_shouldNotMarkMultiConversion() {
+        var controller = createController(Duration.ofHours(1));
+
+        var response = controller.multiConverter("EUR", List.of("USD"),
+                new BigDecimal("10"));
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.WARNING));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.AGE));
+    }
+
+    private CurrencyController createController(Duration age) {
+        var clock = Mockito.mock(Clock.class);
+        Mockito.when(clock.instant()).thenReturn(RETRIEVED_AT,
+                RETRIEVED_AT.plus(age));
+        var circuitBreaker = new CircuitBreaker(1);
+        var ratesSnapshotStore = new RatesSnapshotStore(
+                new HttpRatesProvider("exchangeratesapi", restTemplate,
+                        AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL),
+                new RatesSnapshotFile((Path) null), event -> {
+                }, new CurrencyMetrics(), circuitBreaker,
+                Duration.ofHours(3), clock);
+        ratesSnapshotStore.update(createLatestRates(1633089600L));
+        circuitBreaker.recordFailure();
+        var currencyService = new CurrencyService(ratesSnapshotStore,
+                new HistoricalRatesStore((Path) null, 3),
+                new CurrencyMetrics(), new BigDecimalConversionEngine(), 100,
+                10);
+        var objectMapper = new ObjectMapper();
+        return new CurrencyController(currencyService,
+                new ConversionResponseCache(currencyService,
+                        ratesSnapshotStore, Duration.ofHours(1), 0,
+                        Clock.fixed(RETRIEVED_AT.plus(age), ZoneOffset.UTC)),
+                new BulkConverter(currencyService, ratesSnapshotStore,
+                        objectMapper),
+                ratesSnapshotStore, objectMapper);
+    }
+
+}
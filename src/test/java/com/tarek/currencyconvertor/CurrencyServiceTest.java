@@ -1,36 +1,71 @@
 package com.tarek.currencyconvertor;
 
+import static com.tarek.currencyconvertor.TestRates.createLatestRates;
+import static com.tarek.currencyconvertor.TestRates.createRatesSnapshotStore;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigDecimal;
-import java.time.Instant;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.ZoneId;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.client.RestTemplate;
 
+import com.tarek.currencyconvertor.model.ConversionRequest;
+import com.tarek.currencyconvertor.model.ConversionResult;
+import com.tarek.currencyconvertor.model.CurrencyCode;
 import com.tarek.currencyconvertor.model.LatestRates;
 
 @ExtendWith(MockitoExtension.class)
 class CurrencyServiceTest {
 
+    private static final CurrencyCode EUR = CurrencyCode.of("EUR");
+    private static final CurrencyCode USD = CurrencyCode.of("USD");
+    private static final CurrencyCode GBP = CurrencyCode.of("GBP");
+    private static final CurrencyCode XYZ = CurrencyCode.of("XYZ");
+
     @Mock
-    private static RestTemplate restTemplate;
+    private RestTemplate restTemplate;
+
+    @TempDir
+    Path historyDirectory;
 
-    @InjectMocks
-    private final CurrencyService currencyService = new CurrencyService();
+    private RatesSnapshotStore ratesSnapshotStore;
+    private HistoricalRatesStore historicalRatesStore;
+    private CurrencyMetrics metrics;
+    private CurrencyService currencyService;
+
+    @BeforeEach
+    void setUp() {
+        historicalRatesStore = new HistoricalRatesStore(historyDirectory, 3);
+        metrics = new CurrencyMetrics();
+        ratesSnapshotStore = createRatesSnapshotStore(restTemplate,
+                Duration.ofHours(3));
+        currencyService = new CurrencyService(ratesSnapshotStore,
+                historicalRatesStore, metrics, new BigDecimalConversionEngine(),
+                100, 10);
+    }
 
     @Test
     void whenConversionAmountIsZero_shouldReturnZero() {
-        var conversionResult = currencyService.convert("EUR", "USD",
+        var conversionResult = currencyService.convert(EUR, USD,
                 BigDecimal.ZERO);
         assertEquals(0,
                 conversionResult.getResult().compareTo(BigDecimal.ZERO));
@@ -41,9 +76,7 @@ class CurrencyServiceTest {
         var amount = BigDecimal.valueOf(Math.random() * 1000);
         amount = amount.setScale(AppConstants.BIGDECIMAL_SCALE,
                 AppConstants.ROUNDING_MODE);
-        var currency = "EUR";
-        var conversionResult = currencyService.convert(currency, currency,
-                amount);
+        var conversionResult = currencyService.convert(EUR, EUR, amount);
 
         assertEquals(0, conversionResult.getResult().compareTo(amount));
     }
@@ -61,7 +94,7 @@ class CurrencyServiceTest {
                 AppConstants.BIGDECIMAL_SCALE, AppConstants.ROUNDING_MODE);
 
         setupMock(latestRates);
-        var conversionResult = currencyService.convert("EUR", "USD", amount);
+        var conversionResult = currencyService.convert(EUR, USD, amount);
         assertEquals(0, conversionResult.getResult().compareTo(trueResult));
     }
 
@@ -79,17 +112,247 @@ class CurrencyServiceTest {
                 AppConstants.BIGDECIMAL_SCALE, AppConstants.ROUNDING_MODE);
 
         setupMock(latestRates);
-        var conversionResult = currencyService.convert("USD", "EUR", amount);
+        var conversionResult = currencyService.convert(USD, EUR, amount);
+        assertEquals(0, conversionResult.getResult().compareTo(trueResult));
+    }
+
+    @Test
+    void whenNeitherCurrencyIsBase_shouldReturnConversionAmount() {
+        var latestRates = createLatestRates();
+
+        var amount = BigDecimal.valueOf(Math.random() * 1000);
+        amount = amount.setScale(AppConstants.BIGDECIMAL_SCALE,
+                AppConstants.ROUNDING_MODE);
+
+        var sourceToBaseRate = BigDecimal.ONE.divide(
+                latestRates.getRates().get("USD"), AppConstants.MATH_CONTEXT);
+        var targetToBaseRate = BigDecimal.ONE.divide(
+                latestRates.getRates().get("GBP"), AppConstants.MATH_CONTEXT);
+        var rate = sourceToBaseRate.divide(targetToBaseRate,
+                AppConstants.MATH_CONTEXT);
+        var trueResult = rate.multiply(amount).setScale(
+                AppConstants.BIGDECIMAL_SCALE, AppConstants.ROUNDING_MODE);
+
+        setupMock(latestRates);
+        var conversionResult = currencyService.convert(USD, GBP, amount);
         assertEquals(0, conversionResult.getResult().compareTo(trueResult));
     }
 
-    private LatestRates createLatestRates() {
-        Map<String, BigDecimal> rates = new LinkedHashMap<>();
-        rates.put("EUR", BigDecimal.ONE);
-        rates.put("USD", BigDecimal.valueOf(1.1580744));
-        rates.put("GBP", BigDecimal.valueOf(0.84348626));
-        return new LatestRates(true, Instant.now().getEpochSecond(), "EUR",
-                LocalDate.now(ZoneId.of("Europe/Helsinki")), rates);
+    @Test
+    void whenSourceCurrencyIsNotSupported_shouldThrow() {
+        setupMock(createLatestRates());
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.convert(XYZ, EUR, BigDecimal.TEN));
+    }
+
+    @Test
+    void whenTargetCurrencyIsNotSupported_shouldThrow() {
+        setupMock(createLatestRates());
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.convert(EUR, XYZ, BigDecimal.TEN));
+    }
+
+    @Test
+    void whenCodeIsUnknown_shouldRejectItWithoutRetrievingRates() {
+        ratesSnapshotStore.update(createLatestRates());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.toCurrencyCode("QQQ"));
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.toCurrencyCode("XYZ"));
+
+        assertNull(CurrencyCode.lookup("QQQ"));
+        assertEquals(2, metrics.getRejections(
+                CurrencyMetrics.RejectionReason.UNKNOWN_CURRENCY_CODE));
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenNoSnapshotIsLoaded_shouldResolveCodeAgainstRetrievedRates() {
+        setupMock(createLatestRates());
+
+        assertSame(USD, currencyService.toCurrencyCode("USD"));
+    }
+
+    @Test
+    void whenBatchIsConverted_shouldReturnResultsInOrderWithPerItemErrors() {
+        setupMock(createLatestRates());
+        var requests = List.of(
+                new ConversionRequest("EUR", "USD", BigDecimal.TEN),
+                new ConversionRequest("EUR", "XYZ", BigDecimal.TEN),
+                new ConversionRequest("GBP", "GBP", BigDecimal.ONE),
+                new ConversionRequest("usd", "EUR", BigDecimal.ONE));
+
+        var results = new ArrayList<ConversionResult>();
+        currencyService.convertBatch(requests).forEachResult(results::add);
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(0, results.get(0).getResult().compareTo(
+                currencyService.convert(EUR, USD, BigDecimal.TEN).getResult()));
+        assertFalse(results.get(1).isSuccess());
+        assertNotNull(results.get(1).getError());
+        assertTrue(results.get(2).isSuccess());
+        assertFalse(results.get(3).isSuccess());
+        assertEquals("usd", results.get(3).getFrom());
+    }
+
+    @Test
+    void whenBatchIsLargerThanParallelThreshold_shouldKeepRequestOrder() {
+        setupMock(createLatestRates());
+        var requests = new ArrayList<ConversionRequest>();
+        for (var i = 0; i < 100; i++) {
+            requests.add(new ConversionRequest("USD", "GBP",
+                    BigDecimal.valueOf(i)));
+        }
+
+        var results = new ArrayList<ConversionResult>();
+        currencyService.convertBatch(requests).forEachResult(results::add);
+
+        assertEquals(requests.size(), results.size());
+        for (var i = 0; i < requests.size(); i++) {
+            assertEquals(requests.get(i).getAmount(),
+                    results.get(i).getAmount());
+        }
+    }
+
+    @Test
+    void whenBatchIsIterated_shouldOnlyConvertChunkOfPulledResult() {
+        setupMock(createLatestRates());
+        var conversions = new AtomicInteger();
+        var conversionEngine = new BigDecimalConversionEngine();
+        var chunkSize = BatchConversion.PARALLEL_CHUNK_SIZE;
+        var service = new CurrencyService(ratesSnapshotStore,
+                historicalRatesStore, metrics,
+                (crossRates, from, to, amount) -> {
+                    conversions.incrementAndGet();
+                    return conversionEngine.convert(crossRates, from, to,
+                            amount);
+                }, chunkSize * 2 + 1, 10);
+        var requests = new ArrayList<ConversionRequest>();
+        for (var i = 1; i <= chunkSize * 2 + 1; i++) {
+            requests.add(new ConversionRequest("USD", "GBP",
+                    BigDecimal.valueOf(i)));
+        }
+
+        var results = service.convertBatch(requests).iterator();
+        assertEquals(0, conversions.get());
+        for (var i = 1; i <= chunkSize; i++) {
+            assertEquals(BigDecimal.valueOf(i), results.next().getAmount());
+        }
+        assertEquals(chunkSize, conversions.get());
+        assertEquals(BigDecimal.valueOf(chunkSize + 1),
+                results.next().getAmount());
+        assertEquals(chunkSize * 2, conversions.get());
+        var remaining = new ArrayList<ConversionResult>();
+        results.forEachRemaining(remaining::add);
+
+        assertEquals(chunkSize, remaining.size());
+        assertEquals(requests.size(), conversions.get());
+        assertFalse(results.hasNext());
+    }
+
+    @Test
+    void whenBatchExceedsMaxSize_shouldThrow() {
+        var requests = Collections.nCopies(101,
+                new ConversionRequest("EUR", "USD", BigDecimal.ONE));
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.convertBatch(requests));
+    }
+
+    @Test
+    void whenConvertingToMany_shouldMatchSingleConversionsInOrder() {
+        setupMock(createLatestRates());
+        var amount = BigDecimal.valueOf(123.456789);
+
+        var conversionResult = currencyService.convertToMany(USD,
+                List.of(GBP, EUR, USD), amount);
+
+        assertEquals(List.of("GBP", "EUR", "USD"),
+                new ArrayList<>(conversionResult.getResults().keySet()));
+        for (var to : List.of(GBP, EUR, USD)) {
+            assertEquals(currencyService.convert(USD, to, amount).getResult(),
+                    conversionResult.getResults().get(to.getSymbol()));
+        }
+        assertEquals(3, currencyService.convertToMany(GBP, null, amount)
+                .getResults().size());
+    }
+
+    @Test
+    void whenConvertingToManyWithUnsupportedTarget_shouldThrow() {
+        setupMock(createLatestRates());
+        var to = List.of(USD, XYZ);
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.convertToMany(EUR, to, BigDecimal.TEN));
+    }
+
+    @Test
+    void whenDateIsGiven_shouldConvertWithRatesOfThatDate() {
+        var latestRates = createLatestRates();
+        historicalRatesStore.record(latestRates);
+        setupMock(latestRates);
+
+        var amount = BigDecimal.valueOf(123.456789);
+        var historical = currencyService.convert(USD, GBP, amount,
+                latestRates.getDate());
+        var latest = currencyService.convert(USD, GBP, amount);
+
+        assertEquals(latest.getRate(), historical.getRate());
+        assertEquals(latest.getResult(), historical.getResult());
+        assertEquals(latestRates.getTimestamp(), historical.getTimestamp());
+    }
+
+    @Test
+    void whenDateIsGiven_shouldResolveCodesAgainstRatesOfThatDate() {
+        var latestRates = createLatestRates();
+        historicalRatesStore.record(latestRates);
+
+        assertSame(GBP,
+                currencyService.toCurrencyCode("GBP", latestRates.getDate()));
+        assertSame(EUR,
+                currencyService.toCurrencyCode("EUR", latestRates.getDate()));
+        assertThrows(IllegalArgumentException.class, () -> currencyService
+                .toCurrencyCode("XYZ", latestRates.getDate()));
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenNoRatesAreHeldForDate_shouldThrow() {
+        var date = LocalDate.of(2001, 1, 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.convert(EUR, USD, BigDecimal.TEN, date));
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenConverting_shouldRecordPathAndRejectionMetrics() {
+        setupMock(createLatestRates());
+        currencyService.convert(EUR, USD, BigDecimal.ZERO);
+        currencyService.convert(GBP, GBP, BigDecimal.TEN);
+        currencyService.convert(USD, EUR, BigDecimal.TEN);
+        currencyService.convert(USD, GBP, BigDecimal.TEN);
+        currencyService.convert(GBP, USD, BigDecimal.TEN);
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.convert(XYZ, EUR, BigDecimal.TEN));
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.toCurrencyCode("usd"));
+
+        assertEquals(1, metrics
+                .getConversions(CurrencyMetrics.ConversionPath.ZERO_AMOUNT)
+                .getCount());
+        assertEquals(1, metrics
+                .getConversions(CurrencyMetrics.ConversionPath.SAME_CURRENCY)
+                .getCount());
+        assertEquals(1, metrics
+                .getConversions(CurrencyMetrics.ConversionPath.BASE)
+                .getCount());
+        assertEquals(2, metrics
+                .getConversions(CurrencyMetrics.ConversionPath.CROSS)
+                .getCount());
+        assertEquals(1, metrics.getRejections(
+                CurrencyMetrics.RejectionReason.UNSUPPORTED_SOURCE));
+        assertEquals(1, metrics.getRejections(
+                CurrencyMetrics.RejectionReason.INVALID_CURRENCY_CODE));
     }
 
     private void setupMock(LatestRates latestRates) {
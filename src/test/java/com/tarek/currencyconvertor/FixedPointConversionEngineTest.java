@@ -0,0 +1,106 @@
+package com.tarek.currencyconvertor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tarek.currencyconvertor.model.LatestRates;
+
+class FixedPointConversionEngineTest {
+
+    private final BigDecimalConversionEngine reference = new BigDecimalConversionEngine();
+    private final FixedPointConversionEngine engine = new FixedPointConversionEngine();
+
+    @Test
+    void whenConvertingRandomAmounts_shouldMatchBigDecimalEngineAfterRounding() {
+        var crossRates = CrossRateTable.of(createLatestRates());
+        var random = new Random(42);
+        var conversions = 0;
+        var oversizedResults = 0;
+        for (var i = 0; i < 20000; i++) {
+            var amount = BigDecimal.valueOf(
+                    random.nextInt(Integer.MAX_VALUE) + 1L,
+                    random.nextInt(7));
+            var from = random.nextInt(crossRates.size());
+            var to = random.nextInt(crossRates.size());
+            var result = assertSameRoundedResult(crossRates, from, to,
+                    amount);
+            conversions++;
+            // the mantissas are too short to round a result of more than 16
+            // digits, which mostly falls back
+            if (result.precision() > 16) {
+                oversizedResults++;
+            }
+        }
+
+        assertTrue(
+                engine.getFallbacks() - oversizedResults < conversions / 100,
+                "fallbacks " + engine.getFallbacks() + ", oversized results "
+                        + oversizedResults);
+    }
+
+    @Test
+    void whenProductIsCloseToRoundingBoundary_shouldMatchBigDecimalEngine() {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put("EUR", BigDecimal.ONE);
+        rates.put("USD", new BigDecimal("1.5"));
+        rates.put("GBP", new BigDecimal("0.3"));
+        var crossRates = CrossRateTable.of(new LatestRates(true,
+                Instant.now().getEpochSecond(), "EUR", LocalDate.now(), rates));
+
+        // exact rates landing on, and next to, a midpoint
+        for (var amount : new String[] { "0.0000005", "0.0000015",
+                "0.00000049", "0.00000051", "1.2345675", "3" }) {
+            for (var from = 0; from < crossRates.size(); from++) {
+                for (var to = 0; to < crossRates.size(); to++) {
+                    assertSameRoundedResult(crossRates, from, to,
+                            new BigDecimal(amount));
+                }
+            }
+        }
+    }
+
+    @Test
+    void whenAmountIsTooLargeForFixedPoint_shouldFallBackToBigDecimal() {
+        var crossRates = CrossRateTable.of(createLatestRates());
+        var amount = new BigDecimal("123456789012345678901234.5");
+
+        assertSameRoundedResult(crossRates, 1, 2, amount);
+        assertEquals(1, engine.getFallbacks());
+    }
+
+    private BigDecimal assertSameRoundedResult(CrossRateTable crossRates, int from,
+            int to, BigDecimal amount) {
+        var expected = reference.convert(crossRates, from, to, amount)
+                .setScale(AppConstants.BIGDECIMAL_SCALE,
+                        AppConstants.ROUNDING_MODE);
+        var actual = engine.convert(crossRates, from, to, amount).setScale(
+                AppConstants.BIGDECIMAL_SCALE, AppConstants.ROUNDING_MODE);
+        // equals also compares the scale
+        assertEquals(expected, actual, () -> amount + " " + from + "->" + to);
+        return expected;
+    }
+
+    private LatestRates createLatestRates() {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put("EUR", BigDecimal.ONE);
+        rates.put("USD", new BigDecimal("1.158074"));
+        rates.put("GBP", new BigDecimal("0.843486"));
+        rates.put("JPY", new BigDecimal("129.672043"));
+        rates.put("IDR", new BigDecimal("16485.937761"));
+        rates.put("BTC", new BigDecimal("0.000018345"));
+        rates.put("KWD", new BigDecimal("0.349617"));
+        rates.put("VND", new BigDecimal("26345.1"));
+        return new LatestRates(true, Instant.now().getEpochSecond(), "EUR",
+                LocalDate.now(), rates);
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.tarek.currencyconvertor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+class HedgedRatesProviderTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(100);
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final LatestRates primaryRates = createLatestRates(1);
+    private final LatestRates secondaryRates = createLatestRates(2);
+    private HedgedRatesProvider provider;
+
+    @AfterEach
+    void close() {
+        if (provider != null) {
+            provider.close();
+        }
+    }
+
+    @Test
+    void whenPrimaryAnswersInTime_shouldNotHedge() {
+        var secondary = new StubProvider("secondary", secondaryRates, 0);
+        provider = new HedgedRatesProvider(List.of(
+                new HedgedRatesProvider.Source(secondary, 2, TIMEOUT),
+                new HedgedRatesProvider.Source(
+                        new StubProvider("primary", primaryRates, 0), 1,
+                        TIMEOUT)),
+                HEDGE_DELAY);
+
+        assertSame(primaryRates, provider.fetchLatestRates());
+
+        var stats = provider.getSourceStats();
+        assertEquals("primary", stats.get(0).getName());
+        assertEquals(1, stats.get(0).getWins());
+        assertEquals(1.0, stats.get(0).getSuccessRate());
+        assertEquals(0, stats.get(1).getRequests());
+        assertEquals(0, provider.getFailovers().getCount());
+    }
+
+    @Test
+    void whenPrimaryIsSlow_shouldHedgeToSecondary() {
+        provider = new HedgedRatesProvider(List.of(
+                new HedgedRatesProvider.Source(
+                        new StubProvider("primary", primaryRates, 2000), 1,
+                        TIMEOUT),
+                new HedgedRatesProvider.Source(
+                        new StubProvider("secondary", secondaryRates, 0), 2,
+                        TIMEOUT)),
+                HEDGE_DELAY);
+
+        var startTime = System.nanoTime();
+        assertSame(secondaryRates, provider.fetchLatestRates());
+
+        assertTrue(System.nanoTime() - startTime < Duration.ofMillis(1500)
+                .toNanos());
+        var stats = provider.getSourceStats();
+        assertEquals(1, stats.get(0).getRequests());
+        assertEquals(0, stats.get(0).getWins());
+        assertEquals(1, stats.get(1).getWins());
+        assertEquals(1, provider.getFailovers().getCount());
+        assertTrue(provider.getFailovers().getMaxNanos() >= HEDGE_DELAY
+                .toNanos());
+    }
+
+    @Test
+    void whenPrimaryFails_shouldFailOverWithoutWaitingForHedgeDelay() {
+        provider = new HedgedRatesProvider(List.of(
+                new HedgedRatesProvider.Source(
+                        new StubProvider("primary", null, 0), 1, TIMEOUT),
+                new HedgedRatesProvider.Source(
+                        new StubProvider("secondary", secondaryRates, 0), 2,
+                        TIMEOUT)),
+                Duration.ofSeconds(10));
+
+        assertSame(secondaryRates, provider.fetchLatestRates());
+
+        var stats = provider.getSourceStats();
+        assertEquals(1, stats.get(0).getFailures());
+        assertEquals(0.0, stats.get(0).getSuccessRate());
+        assertEquals(1, stats.get(1).getWins());
+    }
+
+    @Test
+    void whenAllSourcesExceedTheirTimeout_shouldAbandonThem() {
+        var timeout = Duration.ofMillis(100);
+        provider = new HedgedRatesProvider(List.of(
+                new HedgedRatesProvider.Source(
+                        new StubProvider("primary", primaryRates, 5000), 1,
+                        timeout),
+                new HedgedRatesProvider.Source(
+                        new StubProvider("secondary", secondaryRates, 5000),
+                        2, timeout)),
+                Duration.ofSeconds(10));
+
+        var startTime = System.nanoTime();
+        var e = assertThrows(LatestRatesRetrievalException.class,
+                provider::fetchLatestRates);
+
+        assertTrue(System.nanoTime() - startTime < Duration.ofSeconds(2)
+                .toNanos());
+        assertTrue(e.getCause() instanceof TimeoutException);
+        var stats = provider.getSourceStats();
+        assertEquals(1, stats.get(0).getTimeouts());
+        assertEquals(1, stats.get(1).getTimeouts());
+        assertEquals(0.0, stats.get(1).getSuccessRate());
+    }
+
+    @Test
+    void whenSourceIsFile_shouldReadLatestRatesFromIt(@TempDir Path directory)
+            throws IOException {
+        var objectMapper = new ObjectMapper().findAndRegisterModules();
+        var path = directory.resolve("rates.json");
+        Files.writeString(path, "{\"success\":true,\"timestamp\":1634688000,"
+                + "\"base\":\"EUR\",\"date\":\"2021-10-20\","
+                + "\"rates\":{\"EUR\":1,\"USD\":1.1580744}}");
+
+        var latestRates = new FileRatesProvider("file", path, objectMapper)
+                .fetchLatestRates();
+
+        assertTrue(latestRates.isSuccess());
+        assertEquals(new BigDecimal("1.1580744"),
+                latestRates.getRates().get("USD"));
+        assertThrows(LatestRatesRetrievalException.class,
+                () -> new FileRatesProvider("missing",
+                        directory.resolve("missing.json"), objectMapper)
+                                .fetchLatestRates());
+    }
+
+    private static LatestRates createLatestRates(long usdRate) {
+        return new LatestRates(true, Instant.now().getEpochSecond(), "EUR",
+                LocalDate.of(2021, 10, 20), Map.of("EUR", BigDecimal.ONE, "USD",
+                        BigDecimal.valueOf(usdRate)));
+    }
+
+    /**
+     * A source answering with the given rates after the given delay, or
+     * failing if there are none
+     */
+    private static final class StubProvider implements RatesProvider {
+
+        private final String name;
+        private final LatestRates latestRates;
+        private final long delayMillis;
+
+        StubProvider(String name, LatestRates latestRates, long delayMillis) {
+            this.name = name;
+            this.latestRates = latestRates;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public LatestRates fetchLatestRates() {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LatestRatesRetrievalException("Interrupted", e);
+            }
+            if (latestRates == null) {
+                throw new LatestRatesRetrievalException("Unavailable");
+            }
+            return latestRates;
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.tarek.currencyconvertor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+class HistoricalRatesStoreTest {
+
+    private static final CurrencyCode EUR = CurrencyCode.of("EUR");
+    private static final CurrencyCode USD = CurrencyCode.of("USD");
+    private static final CurrencyCode GBP = CurrencyCode.of("GBP");
+
+    // a Friday
+    private static final LocalDate DATE = LocalDate.of(2021, 10, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenRatesAreRecorded_shouldLookUpSameRatesByDate() {
+        var store = new HistoricalRatesStore(directory, 3);
+        var latestRates = createLatestRates(DATE, "1.1580744");
+        store.record(latestRates);
+
+        var dailyRates = store.getRates(DATE).orElseThrow();
+
+        assertEquals(DATE, dailyRates.getDate());
+        assertEquals(EUR, dailyRates.getBase());
+        assertEquals(latestRates.getTimestamp(), dailyRates.getTimestamp());
+        assertEquals(new BigDecimal("1.1580744"), dailyRates.getRate(USD));
+        assertEquals(new BigDecimal("0.84348626"), dailyRates.getRate(GBP));
+        assertEquals(BigDecimal.ONE, dailyRates.getRate(EUR));
+        assertNull(dailyRates.getRate(CurrencyCode.of("XYZ")));
+    }
+
+    @Test
+    void whenNoRatesAreRecordedOnDate_shouldFallBackToPreviousDate() {
+        var store = new HistoricalRatesStore(directory, 3);
+        store.record(createLatestRates(DATE, "1.1580744"));
+
+        assertEquals(DATE, store.getRates(DATE.plusDays(3)).orElseThrow()
+                .getDate());
+        assertFalse(store.getRates(DATE.minusDays(1)).isPresent());
+        assertFalse(store
+                .getRates(DATE.plusDays(
+                        HistoricalRatesStore.MAX_LOOKBACK_DAYS + 1))
+                .isPresent());
+    }
+
+    @Test
+    void whenStoreIsReopened_shouldReadRecordedRatesFromDisk() {
+        var store = new HistoricalRatesStore(directory, 3);
+        store.record(createLatestRates(DATE, "1.1580744"));
+        store.record(createLatestRates(DATE, 1, "1.16"));
+        store.record(createLatestRates(LocalDate.of(2020, 12, 31), "1.22"));
+
+        var reopened = new HistoricalRatesStore(directory, 1);
+
+        assertEquals(new BigDecimal("1.16"),
+                reopened.getRates(DATE).orElseThrow().getRate(USD));
+        assertEquals(new BigDecimal("1.22"), reopened
+                .getRates(LocalDate.of(2021, 1, 2)).orElseThrow()
+                .getRate(USD));
+        assertEquals(new BigDecimal("1.16"),
+                reopened.getRates(DATE).orElseThrow().getRate(USD));
+    }
+
+    @Test
+    void whenRatesAreRecordedAgainOnSameDay_shouldReplaceRecordOfDay()
+            throws IOException {
+        var store = new HistoricalRatesStore(directory, 3);
+        store.record(createLatestRates(DATE.minusDays(1), "1.15"));
+        var sizeOfPreviousDay = Files.size(directory.resolve("rates-2021.bin"));
+        store.record(createLatestRates(DATE, "1.1580744"));
+        var sizeOfFirstRecord = Files.size(directory.resolve("rates-2021.bin"))
+                - sizeOfPreviousDay;
+        store.record(createLatestRates(DATE, 1, "1.1580745"));
+        store.record(createLatestRates(DATE, 2, "1.1580746"));
+
+        assertEquals(sizeOfPreviousDay + sizeOfFirstRecord,
+                Files.size(directory.resolve("rates-2021.bin")));
+        var reopened = new HistoricalRatesStore(directory, 3);
+        assertEquals(new BigDecimal("1.1580746"),
+                reopened.getRates(DATE).orElseThrow().getRate(USD));
+        assertEquals(new BigDecimal("1.15"), reopened
+                .getRates(DATE.minusDays(1)).orElseThrow().getRate(USD));
+        reopened.record(createLatestRates(DATE, 3, "1.1580747"));
+        assertEquals(sizeOfPreviousDay + sizeOfFirstRecord,
+                Files.size(directory.resolve("rates-2021.bin")));
+    }
+
+    @Test
+    void whenRecordOfDayIsReplaced_shouldKeepRatesLookedUpBefore() {
+        var store = new HistoricalRatesStore(directory, 3);
+        var latestRates = createLatestRates(DATE, "1.1580744");
+        store.record(latestRates);
+        var dailyRates = store.getRates(DATE).orElseThrow();
+
+        store.record(createLatestRates(DATE, 1, "1.16"));
+
+        assertEquals(latestRates.getTimestamp(), dailyRates.getTimestamp());
+        assertEquals(new BigDecimal("1.1580744"), dailyRates.getRate(USD));
+        assertEquals(new BigDecimal("1.16"),
+                store.getRates(DATE).orElseThrow().getRate(USD));
+    }
+
+    @Test
+    void whenLastRecordIsTorn_shouldIgnoreItAndAppendAfterValidRecords()
+            throws IOException {
+        var store = new HistoricalRatesStore(directory, 3);
+        store.record(createLatestRates(DATE, "1.1580744"));
+        Files.write(directory.resolve("rates-2021.bin"),
+                new byte[] { 0, 0, 1, 0, 42 }, StandardOpenOption.APPEND);
+
+        var reopened = new HistoricalRatesStore(directory, 3);
+        assertEquals(new BigDecimal("1.1580744"),
+                reopened.getRates(DATE).orElseThrow().getRate(USD));
+        reopened.record(createLatestRates(DATE.plusDays(1), "1.17"));
+
+        var reopenedAgain = new HistoricalRatesStore(directory, 3);
+        assertEquals(new BigDecimal("1.17"), reopenedAgain
+                .getRates(DATE.plusDays(1)).orElseThrow().getRate(USD));
+    }
+
+    @Test
+    void whenNoDirectoryIsConfigured_shouldHoldNothing() {
+        var store = new HistoricalRatesStore((Path) null, 3);
+        store.record(createLatestRates(DATE, "1.1580744"));
+
+        assertFalse(store.isEnabled());
+        assertFalse(store.getRates(DATE).isPresent());
+    }
+
+    private LatestRates createLatestRates(LocalDate date, String usdRate) {
+        return createLatestRates(date, 0, usdRate);
+    }
+
+    private LatestRates createLatestRates(LocalDate date, int hour,
+            String usdRate) {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put("EUR", BigDecimal.ONE);
+        rates.put("USD", new BigDecimal(usdRate));
+        rates.put("GBP", new BigDecimal("0.84348626"));
+        var timestamp = date.atTime(hour, 0).toEpochSecond(ZoneOffset.UTC);
+        return new LatestRates(true, timestamp, "EUR", date, rates);
+    }
+
+}
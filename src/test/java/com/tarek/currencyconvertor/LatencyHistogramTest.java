@@ -0,0 +1,40 @@
+package com.tarek.currencyconvertor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void whenValueIsBucketed_shouldFallWithinBucketBounds() {
+        for (long value : new long[] { 0, 1, 3, 4, 7, 8, 9, 15, 16, 1000,
+                123456789, 1L << 39 }) {
+            var bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(bucket));
+            assertTrue(bucket == 0
+                    || value > LatencyHistogram.upperBoundOf(bucket - 1));
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1,
+                LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void whenLatenciesAreRecorded_shouldReportPercentilesWithinPrecision() {
+        var histogram = new LatencyHistogram();
+        for (var i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500000L, histogram.getTotalNanos());
+        assertEquals(1000000L, histogram.getMaxNanos());
+        var p50 = histogram.getValueAtPercentile(50);
+        assertTrue(p50 >= 500000 && p50 <= 500000 * 1.25, "p50 " + p50);
+        var p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p99 >= 990000 && p99 <= 1000000, "p99 " + p99);
+        assertEquals(1000000L, histogram.getValueAtPercentile(100));
+    }
+
+}
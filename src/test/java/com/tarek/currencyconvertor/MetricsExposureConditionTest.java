@@ -0,0 +1,49 @@
+package com.tarek.currencyconvertor;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+class MetricsExposureConditionTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(MetricsConfig.class);
+
+    @Test
+    void whenMetricsIsExposed_shouldMatch() {
+        contextRunner
+                .withPropertyValues(
+                        "management.endpoints.web.exposure.include=health,metrics")
+                .run(context -> assertTrue(context.containsBean("metrics")));
+    }
+
+    @Test
+    void whenExposureIsNotSet_shouldNotMatch() {
+        contextRunner
+                .run(context -> assertFalse(context.containsBean("metrics")));
+    }
+
+    @Test
+    void whenMetricsIsExcluded_shouldNotMatch() {
+        contextRunner.withPropertyValues(
+                "management.endpoints.web.exposure.include=*",
+                "management.endpoints.web.exposure.exclude=metrics")
+                .run(context -> assertFalse(context.containsBean("metrics")));
+    }
+
+    @Configuration
+    static class MetricsConfig {
+
+        @Bean
+        @Conditional(MetricsExposureCondition.class)
+        String metrics() {
+            return "metrics";
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.tarek.currencyconvertor;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("production")
+class ProductionProfileTests {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Test
+    void whenStartedWithProductionProfile_shouldOnlyCreateScheduledBeansEagerly() {
+        var beanFactory = context.getBeanFactory();
+        assertTrue(beanFactory.containsSingleton("ratesSnapshotStore"));
+        assertFalse(beanFactory.containsSingleton("currencyController"));
+        assertFalse(context.containsBean("templateEngine"));
+    }
+
+}
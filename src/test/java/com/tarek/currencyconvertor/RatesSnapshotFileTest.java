@@ -0,0 +1,217 @@
+package com.tarek.currencyconvertor;
+
+import static com.tarek.currencyconvertor.TestRates.createLatestRates;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.web.client.RestTemplate;
+
+import com.tarek.currencyconvertor.model.LatestRates;
+
+class RatesSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenSnapshotIsWritten_shouldReadSameRatesBack() {
+        var latestRates = createLatestRates();
+        var retrievedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        var snapshotFile = new RatesSnapshotFile(
+                directory.resolve("rates.snapshot"));
+
+        snapshotFile.write(new RatesSnapshot(latestRates,
+                CrossRateTable.of(latestRates), retrievedAt));
+        var retrievedRates = snapshotFile.read().orElseThrow();
+
+        assertEquals(latestRates, retrievedRates.getLatestRates());
+        assertEquals(retrievedAt, retrievedRates.getRetrievedAt());
+    }
+
+    @Test
+    void whenSnapshotIsWritten_shouldLeaveNoTemporaryFile() throws IOException {
+        var latestRates = createLatestRates();
+        var snapshotFile = new RatesSnapshotFile(
+                directory.resolve("rates.snapshot"));
+
+        snapshotFile.write(new RatesSnapshot(latestRates,
+                CrossRateTable.of(latestRates), Instant.now()));
+        snapshotFile.write(new RatesSnapshot(latestRates,
+                CrossRateTable.of(latestRates), Instant.now()));
+
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void whenOnlyRetrievalInstantIsWritten_shouldReadItBackWithSameRates() {
+        var latestRates = createLatestRates();
+        var retrievedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        var refreshedAt = retrievedAt.plus(Duration.ofDays(2));
+        var crossRates = CrossRateTable.of(latestRates);
+        var snapshotFile = new RatesSnapshotFile(
+                directory.resolve("rates.snapshot"));
+
+        snapshotFile.write(
+                new RatesSnapshot(latestRates, crossRates, retrievedAt));
+        snapshotFile.writeRetrievedAt(
+                new RatesSnapshot(latestRates, crossRates, refreshedAt));
+        var retrievedRates = snapshotFile.read().orElseThrow();
+
+        assertEquals(latestRates, retrievedRates.getLatestRates());
+        assertEquals(refreshedAt, retrievedRates.getRetrievedAt());
+    }
+
+    @Test
+    void whenOnlyRetrievalInstantIsWritten_shouldReplaceFileWithUpdatedCopy()
+            throws IOException {
+        var latestRates = createLatestRates();
+        var retrievedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        var refreshedAt = retrievedAt.plus(Duration.ofHours(1));
+        var crossRates = CrossRateTable.of(latestRates);
+        var path = directory.resolve("rates.snapshot");
+        var snapshotFile = new RatesSnapshotFile(path);
+        snapshotFile.write(
+                new RatesSnapshot(latestRates, crossRates, retrievedAt));
+        var previous = Files.createLink(directory.resolve("previous"), path);
+
+        snapshotFile.writeRetrievedAt(
+                new RatesSnapshot(latestRates, crossRates, refreshedAt));
+
+        // the previous file is left untouched rather than rewritten in place
+        var previousRates = new RatesSnapshotFile(previous).read()
+                .orElseThrow();
+        assertEquals(retrievedAt, previousRates.getRetrievedAt());
+        var retrievedRates = snapshotFile.read().orElseThrow();
+        assertEquals(latestRates, retrievedRates.getLatestRates());
+        assertEquals(refreshedAt, retrievedRates.getRetrievedAt());
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void whenOnlyRetrievalInstantIsWrittenWithoutFile_shouldWriteSnapshot() {
+        var latestRates = createLatestRates();
+        var retrievedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        var snapshotFile = new RatesSnapshotFile(
+                directory.resolve("rates.snapshot"));
+
+        snapshotFile.writeRetrievedAt(new RatesSnapshot(latestRates,
+                CrossRateTable.of(latestRates), retrievedAt));
+        var retrievedRates = snapshotFile.read().orElseThrow();
+
+        assertEquals(latestRates, retrievedRates.getLatestRates());
+        assertEquals(retrievedAt, retrievedRates.getRetrievedAt());
+    }
+
+    @Test
+    void whenFileIsMissingOrCorrupt_shouldReadNothing() throws IOException {
+        var path = directory.resolve("rates.snapshot");
+        var snapshotFile = new RatesSnapshotFile(path);
+        assertFalse(snapshotFile.read().isPresent());
+
+        Files.write(path, new byte[] { 1, 2, 3 });
+        assertFalse(snapshotFile.read().isPresent());
+    }
+
+    @Test
+    void whenNumberOfRatesIsOutOfRange_shouldRejectSnapshot()
+            throws IOException {
+        var latestRates = createLatestRates();
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            RatesSnapshotFile.writeSnapshot(out, new RatesSnapshot(latestRates,
+                    CrossRateTable.of(latestRates), Instant.now()));
+        }
+        var snapshot = bytes.toByteArray();
+        // the number of rates follows the header and the fields before it
+        var sizeOffset = 8 + 8 + 1 + 8 + 2 + latestRates.getBase().length()
+                + 1 + 8;
+
+        for (var size : new int[] { -1, Integer.MAX_VALUE }) {
+            ByteBuffer.wrap(snapshot).putInt(sizeOffset, size);
+            assertThrows(IOException.class,
+                    () -> RatesSnapshotFile.readSnapshot(new DataInputStream(
+                            new ByteArrayInputStream(snapshot))));
+        }
+    }
+
+    @Test
+    void whenStoreIsRestored_shouldServePersistedSnapshotWithoutRetrieval() {
+        var latestRates = createLatestRates();
+        var snapshotFile = new RatesSnapshotFile(
+                directory.resolve("rates.snapshot"));
+        snapshotFile.write(new RatesSnapshot(latestRates,
+                CrossRateTable.of(latestRates), Instant.now()));
+        var restTemplate = Mockito.mock(RestTemplate.class);
+
+        var store = new RatesSnapshotStore(
+                new HttpRatesProvider("exchangeratesapi", restTemplate,
+                        AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL),
+                snapshotFile, event -> {
+                }, new CurrencyMetrics(), new CircuitBreaker(0),
+                Duration.ofHours(3), Clock.systemUTC());
+        store.restore();
+
+        assertEquals(latestRates, store.getSnapshot().getLatestRates());
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenPersistedRatesAreInconsistent_shouldRetrieveLatestRates() {
+        var snapshotFile = new RatesSnapshotFile(
+                directory.resolve("rates.snapshot"));
+        // a base currency that is not a three-letter code
+        snapshotFile.write(new RatesSnapshot(new LatestRates(true, 0, "E1",
+                null, TestRates.createRates()), null, Instant.now()));
+        var restTemplate = Mockito.mock(RestTemplate.class);
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class)).thenReturn(createLatestRates());
+
+        var store = new RatesSnapshotStore(
+                new HttpRatesProvider("exchangeratesapi", restTemplate,
+                        AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL),
+                snapshotFile, event -> {
+                }, new CurrencyMetrics(), new CircuitBreaker(0),
+                Duration.ofHours(3), Clock.systemUTC());
+        store.restore();
+
+        assertNull(store.getLoadedSnapshot());
+        assertEquals("EUR", store.getSnapshot().getLatestRates().getBase());
+    }
+
+    @Test
+    void whenPersistenceIsDisabled_shouldNeitherWriteNorRead() {
+        var snapshotFile = new RatesSnapshotFile("");
+        var latestRates = createLatestRates();
+
+        snapshotFile.write(new RatesSnapshot(latestRates,
+                CrossRateTable.of(latestRates), Instant.now()));
+
+        assertFalse(snapshotFile.isEnabled());
+        assertTrue(snapshotFile.read().isEmpty());
+    }
+
+}
@@ -0,0 +1,555 @@
+package com.tarek.currencyconvertor;
+
+import static com.tarek.currencyconvertor.TestRates.createLatestRates;
+import static com.tarek.currencyconvertor.TestRates.createRatesSnapshotStore;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.tarek.currencyconvertor.CurrencyMetrics.FetchOutcome;
+import com.tarek.currencyconvertor.ResponseSizeLimitInterceptor.ResponseTooLargeException;
+import com.tarek.currencyconvertor.model.CurrencyCode;
+import com.tarek.currencyconvertor.model.LatestRates;
+
+@ExtendWith(MockitoExtension.class)
+class RatesSnapshotStoreTest {
+
+    private static final Duration MAX_STALENESS = Duration.ofHours(3);
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private Clock clock;
+
+    @Test
+    void whenNoSnapshotIsLoaded_shouldRetrieveLatestRates() {
+        var latestRates = createLatestRates();
+        var now = Instant.now();
+        Mockito.when(clock.instant()).thenReturn(now);
+        setupMock(latestRates);
+
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        var snapshot = store.getSnapshot();
+
+        assertSame(latestRates, snapshot.getLatestRates());
+        assertEquals(now, snapshot.getRetrievedAt());
+    }
+
+    @Test
+    void whenSnapshotIsLoaded_shouldNotRetrieveLatestRatesAgain() {
+        Mockito.when(clock.instant()).thenReturn(Instant.now());
+        setupMock(createLatestRates());
+
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        var first = store.getSnapshot();
+        var second = store.getSnapshot();
+
+        assertSame(first, second);
+        Mockito.verify(restTemplate, Mockito.times(1)).getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class);
+    }
+
+    @Test
+    void whenRefreshFails_shouldKeepPreviousSnapshot() {
+        Mockito.when(clock.instant()).thenReturn(Instant.now());
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class)).thenReturn(createLatestRates())
+                .thenThrow(new ResourceAccessException("timeout"));
+
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        store.refresh();
+        var previous = store.getSnapshot();
+        store.refresh();
+
+        assertSame(previous, store.getSnapshot());
+    }
+
+    @Test
+    void whenSnapshotIsOlderThanMaxStaleness_shouldRetrieveLatestRatesAgain() {
+        var retrievedAt = Instant.now();
+        var now = retrievedAt.plus(MAX_STALENESS).plusSeconds(1);
+        Mockito.when(clock.instant()).thenReturn(retrievedAt, now);
+        var latestRates = createLatestRates();
+        setupMock(latestRates);
+
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        store.refresh();
+        var snapshot = store.getSnapshot();
+
+        assertEquals(now, snapshot.getRetrievedAt());
+        Mockito.verify(restTemplate, Mockito.times(2)).getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class);
+    }
+
+    @Test
+    void whenSnapshotIsStale_shouldNotBeAvailableWithoutRetrieval() {
+        var retrievedAt = Instant.now();
+        Mockito.when(clock.instant()).thenReturn(retrievedAt,
+                retrievedAt.plus(MAX_STALENESS).plusSeconds(1));
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        store.update(createLatestRates());
+
+        assertNull(store.getAvailableSnapshot());
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenRetrievalCompletedSinceSnapshotWasFoundStale_shouldNotRetrieveAgain() {
+        Mockito.when(clock.instant()).thenReturn(Instant.now());
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        var snapshot = store.update(createLatestRates());
+
+        assertSame(snapshot, store.retrieveSnapshot());
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenSnapshotIsOlderThanMaxStalenessAndRetrievalFails_shouldThrow() {
+        var retrievedAt = Instant.now();
+        Mockito.when(clock.instant()).thenReturn(retrievedAt,
+                retrievedAt.plus(MAX_STALENESS).plusSeconds(1));
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class)).thenReturn(createLatestRates())
+                .thenThrow(new ResourceAccessException("timeout"));
+
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        store.refresh();
+
+        assertThrows(LatestRatesRetrievalException.class, store::getSnapshot);
+    }
+
+    @Test
+    void whenRetrievalsKeepFailing_shouldOpenCircuitAndServeStaleSnapshot() {
+        var retrievedAt = Instant.now();
+        Mockito.when(clock.instant()).thenReturn(retrievedAt,
+                retrievedAt.plus(MAX_STALENESS).plusSeconds(1));
+        var latestRates = createLatestRates();
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class)).thenReturn(latestRates)
+                .thenThrow(new ResourceAccessException("timeout"));
+        var circuitBreaker = new CircuitBreaker(2);
+
+        var store = new RatesSnapshotStore(
+                new HttpRatesProvider("exchangeratesapi", restTemplate,
+                        AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL),
+                new RatesSnapshotFile((Path) null), event -> {
+                }, new CurrencyMetrics(), circuitBreaker, MAX_STALENESS,
+                clock);
+        store.refresh();
+        assertThrows(LatestRatesRetrievalException.class, store::getSnapshot);
+        assertThrows(LatestRatesRetrievalException.class, store::getSnapshot);
+
+        assertTrue(circuitBreaker.isOpen());
+        var snapshot = store.getSnapshot();
+        assertSame(latestRates, snapshot.getLatestRates());
+        assertTrue(store.isStale(snapshot));
+        assertEquals(1, circuitBreaker.getStaleServes());
+        Mockito.verify(restTemplate, Mockito.times(3)).getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class);
+    }
+
+    @Test
+    void whenProbeSucceeds_shouldCloseCircuit() {
+        Mockito.when(clock.instant()).thenReturn(Instant.now());
+        var latestRates = createLatestRates();
+        setupMock(latestRates);
+        var circuitBreaker = new CircuitBreaker(1);
+        circuitBreaker.recordFailure();
+
+        var store = new RatesSnapshotStore(
+                new HttpRatesProvider("exchangeratesapi", restTemplate,
+                        AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL),
+                new RatesSnapshotFile((Path) null), event -> {
+                }, new CurrencyMetrics(), circuitBreaker, MAX_STALENESS,
+                clock);
+        assertThrows(LatestRatesRetrievalException.class, store::getSnapshot);
+        store.probe();
+
+        assertFalse(circuitBreaker.isOpen());
+        assertEquals(0, circuitBreaker.getConsecutiveFailures());
+        assertSame(latestRates, store.getSnapshot().getLatestRates());
+    }
+
+    @Test
+    void whenCallersNeedRatesConcurrently_shouldShareOneRetrieval()
+            throws Exception {
+        Mockito.when(clock.instant()).thenReturn(Instant.now());
+        var latestRates = createLatestRates();
+        var release = new CountDownLatch(1);
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class)).thenAnswer(invocation -> {
+                    release.await();
+                    return latestRates;
+                });
+
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        var callers = 8;
+        var executor = Executors.newFixedThreadPool(callers);
+        try {
+            var futures = new ArrayList<Future<RatesSnapshot>>();
+            for (var i = 0; i < callers; i++) {
+                futures.add(executor.submit(store::getSnapshot));
+            }
+            waitForCoalescedCallers(store, callers - 1);
+            release.countDown();
+
+            for (var future : futures) {
+                assertSame(latestRates,
+                        future.get(5, TimeUnit.SECONDS).getLatestRates());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Mockito.verify(restTemplate, Mockito.times(1)).getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class);
+        assertEquals(callers - 1, store.getLastLoadCoalescedCallers());
+    }
+
+    @Test
+    void whenSharedRetrievalFails_shouldThrowToEveryCaller() throws Exception {
+        var release = new CountDownLatch(1);
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class)).thenAnswer(invocation -> {
+                    release.await();
+                    throw new ResourceAccessException("timeout");
+                });
+
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        var callers = 4;
+        var executor = Executors.newFixedThreadPool(callers);
+        try {
+            var futures = new ArrayList<Future<RatesSnapshot>>();
+            for (var i = 0; i < callers; i++) {
+                futures.add(executor.submit(store::getSnapshot));
+            }
+            waitForCoalescedCallers(store, callers - 1);
+            release.countDown();
+
+            for (var future : futures) {
+                var e = assertThrows(ExecutionException.class,
+                        () -> future.get(5, TimeUnit.SECONDS));
+                assertTrue(e
+                        .getCause() instanceof LatestRatesRetrievalException);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void whenRatesAreRetrievedAsynchronously_shouldShareOneRetrieval() {
+        var now = Instant.now();
+        Mockito.when(clock.instant()).thenReturn(now);
+        var fetch = new CompletableFuture<RetrievedRates>();
+        var provider = Mockito.mock(RatesProvider.class);
+        Mockito.when(provider.fetchRetrievedRatesAsync(now)).thenReturn(fetch);
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+
+        var first = store.retrieveSnapshotAsync(provider);
+        var second = store.retrieveSnapshotAsync(provider);
+        second.cancel(false);
+        assertFalse(first.isDone());
+        fetch.complete(new RetrievedRates(createLatestRates(), now));
+
+        var snapshot = first.join();
+        assertSame(snapshot, store.getLoadedSnapshot());
+        assertEquals(now, snapshot.getRetrievedAt());
+        assertEquals(1, store.getLastLoadCoalescedCallers());
+        Mockito.verify(provider).fetchRetrievedRatesAsync(now);
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenAsynchronousRetrievalTimesOut_shouldFailAndRecordIt() {
+        Mockito.when(clock.instant()).thenReturn(Instant.now());
+        var provider = Mockito.mock(RatesProvider.class);
+        Mockito.when(provider.fetchRetrievedRatesAsync(Mockito.any()))
+                .thenReturn(CompletableFuture.failedFuture(
+                        new LatestRatesRetrievalException("Timed out",
+                                new TimeoutException())));
+        var metrics = new CurrencyMetrics();
+        var circuitBreaker = new CircuitBreaker(1);
+        var store = new RatesSnapshotStore(provider,
+                new RatesSnapshotFile((Path) null), event -> {
+                }, metrics, circuitBreaker, MAX_STALENESS, clock);
+
+        var e = assertThrows(CompletionException.class,
+                () -> store.retrieveSnapshotAsync(provider).join());
+
+        assertTrue(e.getCause() instanceof LatestRatesRetrievalException);
+        assertEquals(1,
+                metrics.getUpstreamFetches(FetchOutcome.TIMEOUT).getCount());
+        assertTrue(circuitBreaker.isOpen());
+    }
+
+    @Test
+    void whenRatesAreRetrievedByOtherMeans_shouldSwapThemInWithoutRetrieval() {
+        var now = Instant.now();
+        Mockito.when(clock.instant()).thenReturn(now);
+        var latestRates = createLatestRates();
+
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        var snapshot = store.update(latestRates);
+
+        assertSame(latestRates, snapshot.getLatestRates());
+        assertSame(snapshot, store.getFreshSnapshot());
+        assertSame(snapshot, store.getSnapshot());
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenRatesAreUnchanged_shouldOnlyRefreshRetrievalInstant() {
+        var retrievedAt = Instant.now();
+        var refreshedAt = retrievedAt.plusSeconds(3600);
+        Mockito.when(clock.instant()).thenReturn(retrievedAt, refreshedAt);
+        var events = new ArrayList<Object>();
+        var metrics = new CurrencyMetrics();
+        var store = new RatesSnapshotStore(
+                new HttpRatesProvider("exchangeratesapi", restTemplate,
+                        AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL),
+                new RatesSnapshotFile((Path) null), events::add, metrics,
+                new CircuitBreaker(0), MAX_STALENESS, clock);
+        var latestRates = createLatestRates();
+
+        var first = store.update(latestRates);
+        var second = store.update(new LatestRates(true,
+                latestRates.getTimestamp(), latestRates.getBase(),
+                latestRates.getDate(), latestRates.getRates()));
+
+        assertSame(first.getLatestRates(), second.getLatestRates());
+        assertSame(first.getCrossRates(), second.getCrossRates());
+        assertEquals(refreshedAt, second.getRetrievedAt());
+        assertEquals(1, events.size());
+        assertEquals(2, metrics.getRatesUpdates());
+        assertEquals(1, metrics.getUnchangedRatesUpdates());
+        assertEquals(0, metrics.getLastChangedCurrencies());
+    }
+
+    @Test
+    void whenRatesWereRetrievedEarlier_shouldKeepTheirRetrievalInstant() {
+        var now = Instant.now();
+        var pulledAt = now.minus(Duration.ofHours(2));
+        Mockito.when(clock.instant()).thenReturn(now);
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+
+        var snapshot = store.update(createLatestRates(), pulledAt);
+
+        assertEquals(pulledAt, snapshot.getRetrievedAt());
+        assertEquals(Duration.ofHours(2), store.getSnapshotAge());
+    }
+
+    @Test
+    void whenRatesAreOlderThanCurrentSnapshot_shouldKeepCurrentSnapshot() {
+        var now = Instant.now();
+        Mockito.when(clock.instant()).thenReturn(now);
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        var current = store.update(createLatestRates(), now);
+        Map<String, BigDecimal> rates = new LinkedHashMap<>(
+                current.getLatestRates().getRates());
+        rates.put("USD", BigDecimal.valueOf(1.1612));
+
+        var kept = store.update(createLatestRates(rates),
+                now.minusSeconds(60));
+
+        assertSame(current, kept);
+        assertSame(current, store.getFreshSnapshot());
+    }
+
+    @Test
+    void whenRatesAreUpdatedConcurrently_shouldKeepTheLatestRetrieval()
+            throws Exception {
+        var now = Instant.now();
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var start = new CountDownLatch(1);
+            var updates = new ArrayList<Future<RatesSnapshot>>();
+            for (var i = 0; i < 64; i++) {
+                Map<String, BigDecimal> rates = new LinkedHashMap<>(
+                        TestRates.createRates());
+                rates.put("USD", BigDecimal.valueOf(1.15 + i / 1000.0));
+                var latestRates = createLatestRates(rates);
+                var retrievedAt = now.minusSeconds(i);
+                updates.add(executor.submit(() -> {
+                    start.await();
+                    return store.update(latestRates, retrievedAt);
+                }));
+            }
+            start.countDown();
+            for (var update : updates) {
+                update.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var snapshot = store.getLoadedSnapshot();
+        assertEquals(now, snapshot.getRetrievedAt());
+        assertEquals(0, new BigDecimal("1.15").compareTo(snapshot
+                .getLatestRates().getRates().get("USD")));
+    }
+
+    @Test
+    void whenSomeRatesChange_shouldCountChangedCurrencies() {
+        Mockito.when(clock.instant()).thenReturn(Instant.now());
+        var metrics = new CurrencyMetrics();
+        var store = new RatesSnapshotStore(
+                new HttpRatesProvider("exchangeratesapi", restTemplate,
+                        AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL),
+                new RatesSnapshotFile((Path) null), event -> {
+                }, metrics, new CircuitBreaker(0), MAX_STALENESS, clock);
+        var latestRates = createLatestRates();
+        store.update(latestRates);
+        Map<String, BigDecimal> rates = new LinkedHashMap<>(
+                latestRates.getRates());
+        rates.put("USD", BigDecimal.valueOf(1.1612));
+        rates.remove("GBP");
+
+        var snapshot = store.update(new LatestRates(true,
+                latestRates.getTimestamp() + 3600, latestRates.getBase(),
+                latestRates.getDate(), rates));
+
+        assertEquals(2, metrics.getLastChangedCurrencies());
+        assertEquals(0, metrics.getUnchangedRatesUpdates());
+        assertEquals(-1, snapshot.getCrossRates()
+                .indexOf(CurrencyCode.of("GBP")));
+    }
+
+    @Test
+    void whenSnapshotIsOlderThanMaxStaleness_shouldNotReturnItAsFresh() {
+        var retrievedAt = Instant.now();
+        Mockito.when(clock.instant()).thenReturn(retrievedAt,
+                retrievedAt.plus(MAX_STALENESS).plusSeconds(1));
+
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+        store.update(createLatestRates());
+
+        assertNull(store.getFreshSnapshot());
+        assertThrows(LatestRatesRetrievalException.class,
+                () -> store.update(new LatestRates(false, 0, null, null, null)));
+        Mockito.verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenRemoteApiReportsFailure_shouldThrow() {
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class))
+                .thenReturn(new LatestRates(false, 0, null, null, null));
+
+        var store = createRatesSnapshotStore(restTemplate, MAX_STALENESS,
+                clock);
+
+        assertThrows(LatestRatesRetrievalException.class, store::getSnapshot);
+    }
+
+    @Test
+    void whenBodyExtractionTimesOut_shouldRecordTimeout() {
+        var metrics = whenRetrievalFails(new RestClientException(
+                "Error while extracting response",
+                new SocketTimeoutException("Read timed out")));
+
+        assertEquals(1,
+                metrics.getUpstreamFetches(FetchOutcome.TIMEOUT).getCount());
+    }
+
+    @Test
+    void whenBodyExceedsMaximumSize_shouldRecordTooLarge() {
+        var metrics = whenRetrievalFails(new RestClientException(
+                "Error while extracting response",
+                new ResponseTooLargeException(1024)));
+
+        assertEquals(1,
+                metrics.getUpstreamFetches(FetchOutcome.TOO_LARGE).getCount());
+    }
+
+    private CurrencyMetrics whenRetrievalFails(RestClientException e) {
+        Mockito.when(clock.instant()).thenReturn(Instant.now());
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class)).thenThrow(e);
+        var metrics = new CurrencyMetrics();
+        var store = new RatesSnapshotStore(
+                new HttpRatesProvider("exchangeratesapi", restTemplate,
+                        AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL),
+                new RatesSnapshotFile((Path) null), event -> {
+                }, metrics, new CircuitBreaker(0), MAX_STALENESS, clock);
+
+        assertThrows(LatestRatesRetrievalException.class, store::getSnapshot);
+        assertEquals(0,
+                metrics.getUpstreamFetches(FetchOutcome.ERROR).getCount());
+        return metrics;
+    }
+
+    private void waitForCoalescedCallers(RatesSnapshotStore store,
+            long callers) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (store.getCoalescedCallers() < callers
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void setupMock(LatestRates latestRates) {
+        Mockito.when(restTemplate.getForObject(
+                AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL,
+                LatestRates.class)).thenReturn(latestRates);
+    }
+
+}
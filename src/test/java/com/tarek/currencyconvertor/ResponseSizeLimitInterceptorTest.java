@@ -0,0 +1,55 @@
+package com.tarek.currencyconvertor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+class ResponseSizeLimitInterceptorTest {
+
+    private final ResponseSizeLimitInterceptor interceptor = new ResponseSizeLimitInterceptor(
+            4);
+
+    @Test
+    void whenBodyIsWithinLimit_shouldReadWholeBody() throws IOException {
+        var response = intercept(new byte[] { 1, 2, 3, 4 }, -1);
+
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 },
+                response.getBody().readAllBytes());
+    }
+
+    @Test
+    void whenBodyExceedsLimit_shouldFailReading() throws IOException {
+        var response = intercept(new byte[] { 1, 2, 3, 4, 5 }, -1);
+
+        assertThrows(IOException.class,
+                () -> response.getBody().readAllBytes());
+    }
+
+    @Test
+    void whenContentLengthExceedsLimit_shouldFailRightAway() {
+        assertThrows(IOException.class,
+                () -> intercept(new byte[] { 1, 2, 3, 4, 5 }, 5));
+    }
+
+    private ClientHttpResponse intercept(
+            byte[] body, long contentLength) throws IOException {
+        var request = new MockClientHttpRequest(HttpMethod.GET,
+                URI.create("http://localhost/latest"));
+        var response = new MockClientHttpResponse(body, HttpStatus.OK);
+        if (contentLength >= 0) {
+            response.getHeaders().setContentLength(contentLength);
+        }
+        return interceptor.intercept(request, new byte[0],
+                (req, reqBody) -> response);
+    }
+
+}
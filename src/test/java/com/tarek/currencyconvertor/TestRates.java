@@ -0,0 +1,100 @@
+package com.tarek.currencyconvertor;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.web.client.RestTemplate;
+
+import com.tarek.currencyconvertor.model.LatestRates;
+
+/**
+ * The latest rates the tests convert with: EUR as the base currency, USD and
+ * GBP, and the rates snapshot store retrieving them from a mocked remote API
+ */
+public final class TestRates {
+
+    private TestRates() {
+    }
+
+    /**
+     * @return the EUR, USD and GBP rates, in a map that may be modified
+     */
+    public static Map<String, BigDecimal> createRates() {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put("EUR", BigDecimal.ONE);
+        rates.put("USD", BigDecimal.valueOf(1.1580744));
+        rates.put("GBP", BigDecimal.valueOf(0.84348626));
+        return rates;
+    }
+
+    /**
+     * @return the EUR, USD and GBP rates, published now
+     */
+    public static LatestRates createLatestRates() {
+        return createLatestRates(createRates());
+    }
+
+    /**
+     * @param rates
+     *            the rates against EUR
+     * @return the given rates, published now
+     */
+    public static LatestRates createLatestRates(Map<String, BigDecimal> rates) {
+        return new LatestRates(true, Instant.now().getEpochSecond(), "EUR",
+                LocalDate.now(ZoneId.of("Europe/Helsinki")), rates);
+    }
+
+    /**
+     * @param timestamp
+     *            the epoch second the rates were published at
+     * @return the EUR, USD and GBP rates, published at the given time
+     */
+    public static LatestRates createLatestRates(long timestamp) {
+        return new LatestRates(true, timestamp, "EUR",
+                LocalDate.ofEpochDay(timestamp / 86400), createRates());
+    }
+
+    /**
+     * @param restTemplate
+     *            the client the latest rates are retrieved from the remote API
+     *            with
+     * @param maxStaleness
+     *            the age beyond which a snapshot is retrieved again
+     * @return a rates snapshot store without a snapshot file, whose circuit
+     *         never opens
+     */
+    static RatesSnapshotStore createRatesSnapshotStore(
+            RestTemplate restTemplate, Duration maxStaleness) {
+        return createRatesSnapshotStore(restTemplate, maxStaleness,
+                Clock.systemUTC());
+    }
+
+    /**
+     * @param restTemplate
+     *            the client the latest rates are retrieved from the remote API
+     *            with
+     * @param maxStaleness
+     *            the age beyond which a snapshot is retrieved again
+     * @param clock
+     *            the clock the age of the snapshots is measured with
+     * @return a rates snapshot store without a snapshot file, whose circuit
+     *         never opens
+     */
+    static RatesSnapshotStore createRatesSnapshotStore(
+            RestTemplate restTemplate, Duration maxStaleness, Clock clock) {
+        return new RatesSnapshotStore(
+                new HttpRatesProvider("exchangeratesapi", restTemplate,
+                        AppConstants.EXCHANGERATESAPI_LATEST_ENDPOINT_URL),
+                new RatesSnapshotFile((Path) null), event -> {
+                }, new CurrencyMetrics(), new CircuitBreaker(0), maxStaleness,
+                clock);
+    }
+
+}
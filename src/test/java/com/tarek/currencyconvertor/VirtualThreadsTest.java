@@ -0,0 +1,39 @@
+package com.tarek.currencyconvertor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadsTest {
+
+    @Test
+    void whenJvmProvidesVirtualThreads_shouldRunTasksOnThem()
+            throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        var threadFactory = VirtualThreads.newThreadFactory("test-");
+        var threadName = new CompletableFuture<String>();
+
+        threadFactory.newThread(
+                () -> threadName.complete(Thread.currentThread().getName()))
+                .start();
+
+        assertEquals("test-0", threadName.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void whenJvmDoesNotProvideVirtualThreads_shouldThrow() {
+        assumeFalse(VirtualThreads.isSupported());
+
+        var e = assertThrows(IllegalStateException.class,
+                () -> VirtualThreads.newThreadFactory("test-"));
+        assertTrue(e.getMessage().contains("Java 21"));
+    }
+
+}
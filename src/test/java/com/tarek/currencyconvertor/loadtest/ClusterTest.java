@@ -0,0 +1,113 @@
+package com.tarek.currencyconvertor.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.tarek.currencyconvertor.ClusterRatesProvider;
+import com.tarek.currencyconvertor.CurrencyConvertorApplication;
+
+/**
+ * Runs a cluster of three instances on localhost against a local stand-in of
+ * the remote rates API, and checks that only the leader retrieves the latest
+ * rates from it while the others pull its snapshot, and that the next
+ * instance takes over once the leader stops.
+ *
+ * <p>
+ * Excluded from the default build; run with
+ * {@code mvn -Ploadtest test -Dtest=ClusterTest}.
+ */
+@Tag("loadtest")
+class ClusterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    @Test
+    void instancesShareLeaderSnapshotAndFailOver()
+            throws IOException, InterruptedException {
+        var urls = new String[3];
+        for (var i = 0; i < urls.length; i++) {
+            urls[i] = "http://localhost:" + findFreePort();
+        }
+        var instances = String.join(",", urls);
+
+        try (var upstream = new FakeRatesServer(Duration.ZERO, 0);
+                var leader = startInstance(upstream, instances, urls[0]);
+                var second = startInstance(upstream, instances, urls[1]);
+                var third = startInstance(upstream, instances, urls[2])) {
+            var leaderProvider = leader.getBean(ClusterRatesProvider.class);
+            var secondProvider = second.getBean(ClusterRatesProvider.class);
+            var thirdProvider = third.getBean(ClusterRatesProvider.class);
+
+            await(() -> URI.create(urls[0]).equals(secondProvider.getLeader())
+                    && URI.create(urls[0]).equals(thirdProvider.getLeader()));
+            var upstreamFetches = secondProvider.getUpstreamFetches()
+                    + thirdProvider.getUpstreamFetches();
+            await(() -> secondProvider.getPeerPulls() > 2
+                    && thirdProvider.getPeerPulls() > 2);
+            assertEquals(upstreamFetches, secondProvider.getUpstreamFetches()
+                    + thirdProvider.getUpstreamFetches());
+            assertTrue(leaderProvider.getUpstreamFetches() > 0);
+            assertNull(leaderProvider.getLeader());
+
+            leader.close();
+
+            await(() -> secondProvider.getLeader() == null
+                    && URI.create(urls[1]).equals(thirdProvider.getLeader()));
+            var fetchesAfterFailover = secondProvider.getUpstreamFetches();
+            await(() -> secondProvider
+                    .getUpstreamFetches() > fetchesAfterFailover);
+            System.out.println("Upstream requests: " + upstream.getRequests()
+                    + ", pulled by the second instance: "
+                    + secondProvider.getPeerPulls()
+                    + ", pulled by the third instance: "
+                    + thirdProvider.getPeerPulls());
+        }
+    }
+
+    private static ConfigurableApplicationContext startInstance(
+            FakeRatesServer upstream, String instances, String self) {
+        return new SpringApplicationBuilder(CurrencyConvertorApplication.class)
+                .run("--server.port=" + URI.create(self).getPort(),
+                        "--spring.main.banner-mode=off",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--currencyconvertor.upstream.latest-rates-url="
+                                + upstream.getLatestRatesUrl(),
+                        "--currencyconvertor.rates.refresh-interval=PT0.5S",
+                        "--currencyconvertor.rates.max-staleness=PT5S",
+                        "--currencyconvertor.cluster.instances=" + instances,
+                        "--currencyconvertor.cluster.self-url=" + self);
+    }
+
+    private static int findFreePort() throws IOException {
+        try (var socket = new ServerSocket(0, 0,
+                InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void await(BooleanSupplier condition)
+            throws InterruptedException {
+        var deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline,
+                    "Timed out waiting for the cluster");
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+    }
+
+}
@@ -0,0 +1,264 @@
+package com.tarek.currencyconvertor.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+/**
+ * Drives {@code /v1/converter} at fixed arrival rates, with the application
+ * started in a JVM of its own against a local stand-in of the remote rates
+ * API, once with a healthy and once with a
+ * degraded upstream, and reports the throughput and latency percentiles of
+ * each rate. Each scenario runs once per thread mode, with requests handled on
+ * pooled platform threads or on virtual threads, the latter only on Java 21
+ * and later. The peak number of requests in flight is reported alongside,
+ * with the peak number of live platform threads and of heap used of the
+ * application process alone. Requests are sent on schedule whether or not
+ * earlier ones have completed, and latencies are measured from the scheduled send time, so that
+ * a slow server is not hidden by a slowed down client.
+ *
+ * <p>
+ * Excluded from the default build; run with {@code mvn -Ploadtest test}. The
+ * rates, durations and upstream behaviors can be overridden with the
+ * {@code loadtest.*} system properties read below. The results are printed
+ * and written to {@code target/loadtest-results.csv}.
+ */
+@Tag("loadtest")
+class ConverterLoadTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration HEAP_SAMPLING_INTERVAL = Duration
+            .ofMillis(100);
+
+    private static final String[] PAIRS = { "from=EUR&to=USD",
+            "from=USD&to=EUR", "from=USD&to=GBP", "from=GBP&to=JPY" };
+
+    private final int[] rates = Arrays
+            .stream(System.getProperty("loadtest.rates", "250,500,1000")
+                    .split(","))
+            .mapToInt(rate -> Integer.parseInt(rate.trim())).toArray();
+    private final Duration duration = durationProperty("loadtest.duration",
+            "PT10S");
+    private final Duration warmup = durationProperty("loadtest.warmup",
+            "PT3S");
+    private final String[] threadModes = System
+            .getProperty("loadtest.thread-modes",
+                    Runtime.version().feature() >= 21 ? "platform,virtual"
+                            : "platform")
+            .split(",");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void converterUnderHealthyAndDegradedUpstream()
+            throws IOException, InterruptedException {
+        var results = new ArrayList<Result>();
+        for (var threadMode : threadModes) {
+            var virtualThreads = "virtual".equals(threadMode.trim());
+            runScenario("healthy", virtualThreads,
+                    durationProperty("loadtest.healthy.latency", "PT0.02S"),
+                    Double.parseDouble(System.getProperty(
+                            "loadtest.healthy.failure-rate", "0")),
+                    results);
+            runScenario("degraded", virtualThreads,
+                    durationProperty("loadtest.degraded.latency", "PT0.5S"),
+                    Double.parseDouble(System.getProperty(
+                            "loadtest.degraded.failure-rate", "0.25")),
+                    results);
+        }
+        report(results);
+    }
+
+    private void runScenario(String scenario, boolean virtualThreads,
+            Duration upstreamLatency, double upstreamFailureRate,
+            List<Result> results) throws IOException, InterruptedException {
+        try (var upstream = new FakeRatesServer(upstreamLatency,
+                upstreamFailureRate);
+                var application = startApplication(upstream,
+                        virtualThreads)) {
+            var port = application.getPort();
+            var targets = Arrays.stream(PAIRS)
+                    .map(pair -> URI.create("http://localhost:" + port
+                            + "/v1/converter?" + pair + "&amount=123.45"))
+                    .toArray(URI[]::new);
+
+            var threadMode = virtualThreads ? "virtual" : "platform";
+            drive(application, scenario, threadMode, targets, rates[0],
+                    warmup);
+            for (var rate : rates) {
+                var upstreamRequests = upstream.getRequests();
+                var result = drive(application, scenario, threadMode, targets,
+                        rate, duration);
+                result.upstreamRequests = upstream.getRequests()
+                        - upstreamRequests;
+                assertEquals(result.requests, result.latencies.length,
+                        "Not every request completed");
+                results.add(result);
+                System.out.println(result);
+            }
+        }
+    }
+
+    private static ForkedApplication startApplication(
+            FakeRatesServer upstream, boolean virtualThreads)
+            throws IOException, InterruptedException {
+        // a short staleness makes the upstream behavior visible to requests
+        return new ForkedApplication("--spring.main.banner-mode=off",
+                "--spring.devtools.restart.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.tarek.currencyconvertor=ERROR",
+                "--currencyconvertor.upstream.latest-rates-url="
+                        + upstream.getLatestRatesUrl(),
+                "--currencyconvertor.rates.refresh-interval=PT1S",
+                "--currencyconvertor.rates.max-staleness=PT2S",
+                "--currencyconvertor.threads.virtual="
+                        + virtualThreads);
+    }
+
+    private Result drive(ForkedApplication application, String scenario,
+            String threadMode, URI[] targets, int rate, Duration duration)
+            throws InterruptedException {
+        var requests = (int) (rate * duration.toMillis() / 1000);
+        var interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        var recorder = new LatencyRecorder(requests);
+        var completed = new CountDownLatch(requests);
+        var inFlight = new AtomicInteger();
+        var peakInFlight = 0;
+        var peakHeapUsed = new AtomicLong();
+        application.resetPeakThreadCount();
+        // the heap of the application is sampled off the sending thread, so
+        // that the remote calls do not delay the requests
+        var sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakHeapUsed
+                .accumulateAndGet(application.getHeapUsed(), Math::max), 0,
+                HEAP_SAMPLING_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+
+        var start = System.nanoTime();
+        for (var i = 0; i < requests; i++) {
+            var scheduledAt = start + i * interval;
+            long delay;
+            while ((delay = scheduledAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            var request = HttpRequest.newBuilder(targets[i % targets.length])
+                    .timeout(REQUEST_TIMEOUT).GET().build();
+            peakInFlight = Math.max(peakInFlight, inFlight.incrementAndGet());
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        inFlight.decrementAndGet();
+                        recorder.record(System.nanoTime() - scheduledAt,
+                                e == null && response.statusCode() == 200);
+                        completed.countDown();
+                    });
+        }
+        completed.await(REQUEST_TIMEOUT.toSeconds() * 2, TimeUnit.SECONDS);
+        var elapsed = System.nanoTime() - start;
+        sampler.shutdownNow();
+        var result = new Result(scenario, threadMode, rate, requests,
+                recorder.getErrors(), elapsed, recorder.sorted());
+        result.peakInFlight = peakInFlight;
+        result.peakThreads = application.getPeakThreadCount();
+        result.peakHeapUsed = peakHeapUsed.get();
+        return result;
+    }
+
+    private static void report(List<Result> results) throws IOException {
+        var lines = new ArrayList<String>();
+        lines.add("scenario,threadMode,offeredRps,requests,errors,"
+                + "upstreamRequests,throughputRps,p50Ms,p99Ms,p999Ms,maxMs,"
+                + "peakInFlight,peakThreads,peakHeapMb");
+        for (var result : results) {
+            lines.add(result.toCsv());
+        }
+        var file = Path.of("target", "loadtest-results.csv");
+        Files.createDirectories(file.getParent());
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        System.out.println("Load test results written to " + file);
+        lines.forEach(System.out::println);
+    }
+
+    private static Duration durationProperty(String name,
+            String defaultValue) {
+        return Duration.parse(System.getProperty(name, defaultValue));
+    }
+
+    private static final class Result {
+
+        private final String scenario;
+        private final String threadMode;
+        private final int offeredRps;
+        private final int requests;
+        private final long errors;
+        private final long elapsedNanos;
+        private final long[] latencies;
+        private long upstreamRequests;
+        private int peakInFlight;
+        private int peakThreads;
+        private long peakHeapUsed;
+
+        Result(String scenario, String threadMode, int offeredRps,
+                int requests, long errors, long elapsedNanos,
+                long[] latencies) {
+            this.scenario = scenario;
+            this.threadMode = threadMode;
+            this.offeredRps = offeredRps;
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+        }
+
+        double getThroughputRps() {
+            return (latencies.length - errors) * 1e9 / elapsedNanos;
+        }
+
+        double getPercentileMillis(double percentile) {
+            return LatencyRecorder.percentile(latencies, percentile) / 1e6;
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT,
+                    "%s,%s,%d,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%d,%d,%d",
+                    scenario, threadMode, offeredRps, requests, errors,
+                    upstreamRequests, getThroughputRps(),
+                    getPercentileMillis(50), getPercentileMillis(99),
+                    getPercentileMillis(99.9), getPercentileMillis(100),
+                    peakInFlight, peakThreads, peakHeapUsed >> 20);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%-8s %-8s %5d rps offered: %7.1f rps served, %d errors, "
+                            + "p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, "
+                            + "max %.3f ms, peak %d in flight, "
+                            + "%d threads, %d MB heap",
+                    scenario, threadMode, offeredRps, getThroughputRps(),
+                    errors, getPercentileMillis(50), getPercentileMillis(99),
+                    getPercentileMillis(99.9), getPercentileMillis(100),
+                    peakInFlight, peakThreads, peakHeapUsed >> 20);
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.tarek.currencyconvertor.loadtest;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for the latest rates endpoint of exchangeratesapi.io,
+ * serving a fixed set of rates after a configurable latency, and failing a
+ * configurable share of the requests with {@code 503 Service Unavailable}.
+ */
+final class FakeRatesServer implements AutoCloseable {
+
+    private static final String RATES = "\"EUR\":1,\"USD\":1.158074,"
+            + "\"GBP\":0.843486,\"JPY\":129.672,\"CHF\":1.077396,"
+            + "\"AUD\":1.592394,\"CAD\":1.463532,\"SEK\":10.117563";
+
+    private final Duration latency;
+    private final double failureRate;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    FakeRatesServer(Duration latency, double failureRate) throws IOException {
+        this.latency = latency;
+        this.failureRate = failureRate;
+        this.executor = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/latest", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return the URL of the latest rates endpoint
+     */
+    URI getLatestRatesUrl() {
+        return URI.create("http://localhost:" + server.getAddress().getPort()
+                + "/v1/latest");
+    }
+
+    long getRequests() {
+        return requests.get();
+    }
+
+    long getFailures() {
+        return failures.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            Thread.sleep(latency.toMillis());
+            if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                failures.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            var body = ("{\"success\":true,\"timestamp\":"
+                    + Instant.now().getEpochSecond()
+                    + ",\"base\":\"EUR\",\"date\":\""
+                    + LocalDate.now(ZoneOffset.UTC) + "\",\"rates\":{" + RATES
+                    + "}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type",
+                    "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.tarek.currencyconvertor.loadtest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+import com.tarek.currencyconvertor.CurrencyConvertorApplication;
+
+/**
+ * The application started in a JVM of its own, from the test class path, so
+ * that the load generator neither competes with it for CPU and heap nor
+ * shows up in its threads and heap, which are read over a local JMX
+ * connection. Its output is appended to
+ * {@code target/loadtest-application.log}.
+ */
+final class ForkedApplication implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final int port;
+    private final Process process;
+    private final JMXConnector jmxConnector;
+    private final ThreadMXBean threads;
+    private final MemoryMXBean memory;
+
+    /**
+     * Start the application on a free port and wait until it accepts
+     * connections.
+     *
+     * @throws IOException
+     *             thrown if the application cannot be started or does not
+     *             start in time
+     * @throws InterruptedException
+     *             thrown if interrupted while waiting for the application
+     * @param args
+     *            the arguments of the application, besides its port
+     */
+    ForkedApplication(String... args)
+            throws IOException, InterruptedException {
+        this.port = findFreePort();
+        var jmxPort = findFreePort();
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java")
+                .toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Dcom.sun.management.jmxremote.port=" + jmxPort);
+        command.add("-Dcom.sun.management.jmxremote.rmi.port=" + jmxPort);
+        command.add("-Dcom.sun.management.jmxremote.authenticate=false");
+        command.add("-Dcom.sun.management.jmxremote.ssl=false");
+        command.add("-Djava.rmi.server.hostname=127.0.0.1");
+        command.add(CurrencyConvertorApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.addAll(List.of(args));
+        var log = Path.of("target", "loadtest-application.log").toFile();
+        this.process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log)).start();
+        try {
+            awaitStarted();
+            this.jmxConnector = JMXConnectorFactory.connect(new JMXServiceURL(
+                    "service:jmx:rmi:///jndi/rmi://127.0.0.1:" + jmxPort
+                            + "/jmxrmi"));
+            var connection = jmxConnector.getMBeanServerConnection();
+            this.threads = ManagementFactory.newPlatformMXBeanProxy(
+                    connection, ManagementFactory.THREAD_MXBEAN_NAME,
+                    ThreadMXBean.class);
+            this.memory = ManagementFactory.newPlatformMXBeanProxy(
+                    connection, ManagementFactory.MEMORY_MXBEAN_NAME,
+                    MemoryMXBean.class);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    /**
+     * Reset the peak number of live threads of the application to the
+     * current number.
+     */
+    void resetPeakThreadCount() {
+        threads.resetPeakThreadCount();
+    }
+
+    /**
+     * @return the peak number of live platform threads of the application
+     *         since the last reset
+     */
+    int getPeakThreadCount() {
+        return threads.getPeakThreadCount();
+    }
+
+    /**
+     * @return the heap currently used by the application, in bytes
+     */
+    long getHeapUsed() {
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private void awaitStarted() throws IOException, InterruptedException {
+        var deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IOException("The application exited with "
+                        + process.exitValue() + " while starting");
+            }
+            try (var socket = new Socket()) {
+                socket.connect(new InetSocketAddress(
+                        InetAddress.getLoopbackAddress(), port));
+                return;
+            } catch (IOException e) {
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("The application did not start in "
+                            + STARTUP_TIMEOUT, e);
+                }
+                TimeUnit.MILLISECONDS.sleep(200);
+            }
+        }
+    }
+
+    private static int findFreePort() throws IOException {
+        try (var socket = new ServerSocket(0, 0,
+                InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        try {
+            jmxConnector.close();
+        } finally {
+            process.destroy();
+            if (!process.waitFor(SHUTDOWN_TIMEOUT.toSeconds(),
+                    TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.tarek.currencyconvertor.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the latencies of a fixed number of requests without locking, and
+ * reports exact percentiles once all of them are recorded.
+ */
+final class LatencyRecorder {
+
+    private final long[] latencies;
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong errors = new AtomicLong();
+
+    LatencyRecorder(int capacity) {
+        this.latencies = new long[capacity];
+    }
+
+    void record(long latencyNanos, boolean success) {
+        var index = count.getAndIncrement();
+        if (index < latencies.length) {
+            latencies[index] = latencyNanos;
+        }
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    int getCount() {
+        return Math.min(count.get(), latencies.length);
+    }
+
+    long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * @return the recorded latencies in ascending order
+     */
+    long[] sorted() {
+        var sorted = Arrays.copyOf(latencies, getCount());
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * @param sorted
+     *            latencies in ascending order
+     * @param percentile
+     *            the percentile, from 0 to 100
+     * @return the latency at the given percentile, using the nearest-rank
+     *         method, or 0 if there are no latencies
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        var rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.tarek.currencyconvertor.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class CurrencyCodeTest {
+
+    @Test
+    void whenSameSymbolIsResolvedTwice_shouldReturnSameInstance() {
+        assertSame(CurrencyCode.of("USD"), CurrencyCode.of(new String("USD")));
+    }
+
+    @Test
+    void pack_shouldMapCodesToDistinctValuesWithinCapacity() {
+        assertEquals(0, CurrencyCode.pack("AAA"));
+        assertEquals(CurrencyCode.CAPACITY - 1, CurrencyCode.pack("ZZZ"));
+        assertNotEquals(CurrencyCode.pack("USD"), CurrencyCode.pack("UDS"));
+    }
+
+    @Test
+    void whenSymbolIsNotThreeUpperCaseLetters_shouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CurrencyCode.of("usd"));
+        assertThrows(IllegalArgumentException.class,
+                () -> CurrencyCode.of("US"));
+        assertThrows(IllegalArgumentException.class,
+                () -> CurrencyCode.of("U$D"));
+        assertThrows(IllegalArgumentException.class,
+                () -> CurrencyCode.of(null));
+    }
+
+}
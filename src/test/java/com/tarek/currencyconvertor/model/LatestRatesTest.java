@@ -0,0 +1,53 @@
+package com.tarek.currencyconvertor.model;
+
+import static com.tarek.currencyconvertor.TestRates.createLatestRates;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class LatestRatesTest {
+
+    @Test
+    void getRates_shouldReturnSameUnmodifiableView() {
+        var latestRates = createLatestRates();
+
+        assertSame(latestRates.getRates(), latestRates.getRates());
+        assertThrows(UnsupportedOperationException.class,
+                () -> latestRates.getRates().put("JPY", BigDecimal.TEN));
+    }
+
+    @Test
+    void whenSourceMapIsModified_shouldKeepOriginalRates() {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put("USD", BigDecimal.valueOf(1.1580744));
+        var latestRates = new LatestRates(true,
+                Instant.now().getEpochSecond(), "EUR",
+                LocalDate.now(ZoneId.of("Europe/Helsinki")), rates);
+
+        rates.put("GBP", BigDecimal.valueOf(0.84348626));
+
+        assertEquals(1, latestRates.getRates().size());
+    }
+
+    @Test
+    void containsSymbol_shouldIncludeBaseAndRatedCurrencies() {
+        var latestRates = createLatestRates();
+
+        assertTrue(latestRates.containsSymbol("EUR"));
+        assertTrue(latestRates.containsSymbol("USD"));
+        assertFalse(latestRates.containsSymbol("JPY"));
+        assertFalse(latestRates.containsSymbol(null));
+    }
+
+}